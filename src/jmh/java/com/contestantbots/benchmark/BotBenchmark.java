@@ -0,0 +1,78 @@
+package com.contestantbots.benchmark;
+
+import com.contestantbots.team.ExampleBotJames;
+import com.contestantbots.team.ExampleBotRobbie;
+import com.contestantbots.team.HunterBot;
+import com.scottlogic.hackathon.game.Bot;
+import com.scottlogic.hackathon.game.GameState;
+import com.scottlogic.hackathon.game.Move;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.PrintStream;
+import java.util.List;
+
+/**
+ * Cost of a single {@code makeMoves} call for each of our bots, on every map and at each stage of the game.
+ * <p>
+ * {@link ExampleBotRobbie} is built without rollouts and without speculation between phases: both fill whatever time
+ * they are given, so with them on this would measure the time budget rather than the cost of deciding. The rollouts
+ * are measured on their own by {@link PhaseSimulatorBenchmark}. Each bot makes a few calls in the setup first, so the
+ * work done once per game, such as identifying the map and filling its distance tables, is not measured either.
+ */
+@State(Scope.Thread)
+public class BotBenchmark {
+    private static final int WARM_UP_CALLS = 3;
+
+    @Param({"ExampleBotRobbie", "ExampleBotJames", "HunterBot"})
+    public String bot;
+
+    @Param({"VeryEasy", "Easy", "Medium", "LargeMedium", "Hard"})
+    public String map;
+
+    @Param({"EARLY", "MID", "LATE"})
+    public GameStateFixture.Density density;
+
+    private Bot instance;
+    private GameState gameState;
+    private PrintStream console;
+
+    @Setup
+    public void setUp() throws Exception {
+        console = Silence.systemOut();
+        instance = newBot(bot);
+        GameStateFixture fixture = new GameStateFixture(map);
+        instance.initialise(fixture.initialState(instance.getId()));
+        gameState = fixture.state(instance.getId(), density);
+        for (int i = 0; i < WARM_UP_CALLS; i++) {
+            instance.makeMoves(gameState);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(console);
+    }
+
+    @Benchmark
+    public List<Move> makeMoves() {
+        return instance.makeMoves(gameState);
+    }
+
+    private static Bot newBot(final String name) {
+        switch (name) {
+            case "ExampleBotRobbie":
+                return new ExampleBotRobbie(0, false);
+            case "ExampleBotJames":
+                return new ExampleBotJames();
+            case "HunterBot":
+                return new HunterBot();
+            default:
+                throw new IllegalArgumentException("unknown bot " + name);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.contestantbots.benchmark;
+
+import com.contestantbots.util.RecordedGameState;
+import com.scottlogic.hackathon.game.Collectable;
+import com.scottlogic.hackathon.game.GameMap;
+import com.scottlogic.hackathon.game.GameState;
+import com.scottlogic.hackathon.game.Player;
+import com.scottlogic.hackathon.game.Position;
+import com.scottlogic.hackathon.game.SpawnPoint;
+import com.scottlogic.hackathon.game.engine.maps.Arena;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Synthetic game states on a bundled map, as seen by one bot, with a fixed seed so every run benchmarks the same
+ * positions.
+ * <p>
+ * The bot owns the first spawn point and every other spawn point belongs to a separate enemy. Players are scattered
+ * around their spawn points, further out and in greater numbers as the game goes on, and only what the engine would
+ * let the bot see is included.
+ */
+public class GameStateFixture {
+    private static final int VISIBLE_DISTANCE = 6;
+    private static final int MIN_COLLECTABLE_DISTANCE_FROM_SPAWN = 8;
+    private static final long SEED = 42;
+
+    public enum Density {
+        EARLY(10, 4, 8, 2),
+        MID(80, 30, 24, 15),
+        LATE(300, 120, 64, 40);
+
+        private final int ownPlayers;
+        private final int enemyPlayers;
+        private final int spread;
+        private final int collectables;
+
+        Density(final int ownPlayers, final int enemyPlayers, final int spread, final int collectables) {
+            this.ownPlayers = ownPlayers;
+            this.enemyPlayers = enemyPlayers;
+            this.spread = spread;
+            this.collectables = collectables;
+        }
+    }
+
+    private final Arena arena;
+    private final Set<Position> outOfBounds;
+    private final List<Position> spawnPositions;
+
+    public GameStateFixture(final String mapName) throws Exception {
+        this.arena = Arena.load(mapName);
+        this.outOfBounds = arena.getOutOfBoundsPositions();
+        this.spawnPositions = arena.getSpawnPointPositions().stream()
+                .sorted(Comparator.comparingInt(Position::getY).thenComparingInt(Position::getX))
+                .collect(Collectors.toList());
+    }
+
+    public GameMap getMap() {
+        return arena;
+    }
+
+    /**
+     * @return the state the engine passes to {@code Bot.initialise}: just the bot's own spawn point
+     */
+    public GameState initialState(final UUID botId) {
+        Set<SpawnPoint> spawnPoints = Collections.singleton(
+                new RecordedGameState.RecordedSpawnPoint(new UUID(0, 0), botId, spawnPositions.get(0)));
+        return new RecordedGameState(0, arena, visibleOutOfBounds(Collections.singleton(spawnPositions.get(0))),
+                Collections.emptySet(), Collections.emptySet(), spawnPoints, Collections.emptySet(),
+                Collections.emptySet());
+    }
+
+    public GameState state(final UUID botId, final Density density) {
+        Random random = new Random(SEED);
+        Set<Position> occupied = new HashSet<>();
+        Set<Player> ownPlayers = scatter(random, botId, spawnPositions.get(0), density.ownPlayers, density.spread,
+                occupied);
+        Set<Position> ownPositions = ownPlayers.stream().map(Player::getPosition).collect(Collectors.toSet());
+        ownPositions.add(spawnPositions.get(0));
+
+        Set<Player> players = new LinkedHashSet<>(ownPlayers);
+        Set<SpawnPoint> spawnPoints = new LinkedHashSet<>();
+        spawnPoints.add(new RecordedGameState.RecordedSpawnPoint(new UUID(0, 0), botId, spawnPositions.get(0)));
+        for (int i = 1; i < spawnPositions.size(); i++) {
+            UUID enemy = new UUID(1, i);
+            Position spawn = spawnPositions.get(i);
+            scatter(random, enemy, spawn, density.enemyPlayers, density.spread, occupied).stream()
+                    .filter(player -> isVisible(player.getPosition(), ownPositions))
+                    .forEach(players::add);
+            if (isVisible(spawn, ownPositions)) {
+                spawnPoints.add(new RecordedGameState.RecordedSpawnPoint(new UUID(0, i), enemy, spawn));
+            }
+        }
+
+        Set<Collectable> collectables = new LinkedHashSet<>();
+        for (int attempts = 0; collectables.size() < density.collectables && attempts < 100_000; attempts++) {
+            Position position = new Position(random.nextInt(arena.getWidth()), random.nextInt(arena.getHeight()));
+            if (!outOfBounds.contains(position) && isVisible(position, ownPositions)
+                    && spawnPositions.stream()
+                    .allMatch(spawn -> arena.distance(spawn, position) > MIN_COLLECTABLE_DISTANCE_FROM_SPAWN)) {
+                collectables.add(new RecordedGameState.RecordedCollectable(new UUID(random.nextLong(), random.nextLong()),
+                        Collectable.Type.values()[random.nextInt(Collectable.Type.values().length)], position));
+            }
+        }
+
+        return new RecordedGameState(100, arena, visibleOutOfBounds(ownPositions), players, Collections.emptySet(),
+                spawnPoints, Collections.emptySet(), collectables);
+    }
+
+    private Set<Player> scatter(final Random random, final UUID owner, final Position spawn, final int count,
+                                final int spread, final Set<Position> occupied) {
+        Set<Player> players = new LinkedHashSet<>();
+        for (int attempts = 0; players.size() < count && attempts < 100_000; attempts++) {
+            Position position = new Position(
+                    Math.floorMod(spawn.getX() + random.nextInt(2 * spread + 1) - spread, arena.getWidth()),
+                    Math.floorMod(spawn.getY() + random.nextInt(2 * spread + 1) - spread, arena.getHeight()));
+            if (!outOfBounds.contains(position) && occupied.add(position)) {
+                players.add(new RecordedGameState.RecordedPlayer(new UUID(random.nextLong(), random.nextLong()), owner,
+                        position));
+            }
+        }
+        return players;
+    }
+
+    private boolean isVisible(final Position position, final Set<Position> viewers) {
+        for (Position viewer : viewers) {
+            if (arena.distance(viewer, position) <= VISIBLE_DISTANCE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Set<Position> visibleOutOfBounds(final Set<Position> viewers) {
+        Set<Position> visible = new HashSet<>();
+        for (Position viewer : viewers) {
+            arena.getSurroundingPositions(viewer, VISIBLE_DISTANCE)
+                    .filter(outOfBounds::contains)
+                    .forEach(visible::add);
+        }
+        return visible;
+    }
+}
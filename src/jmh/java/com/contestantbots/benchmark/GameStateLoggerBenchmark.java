@@ -0,0 +1,53 @@
+package com.contestantbots.benchmark;
+
+import com.contestantbots.util.ConsoleGameStateSink;
+import com.contestantbots.util.GameStateLogger;
+import com.scottlogic.hackathon.game.GameState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time {@link GameStateLogger#process} takes from the bot's phase, logging synchronously or through the background
+ * writer.
+ */
+@State(Scope.Thread)
+public class GameStateLoggerBenchmark {
+    @Param({"SUMMARY", "FULL"})
+    public GameStateLogger.Level level;
+
+    @Param({"0", "16"})
+    public int queueCapacity;
+
+    @Param({"Hard"})
+    public String map;
+
+    @Param({"EARLY", "MID", "LATE"})
+    public GameStateFixture.Density density;
+
+    private GameStateLogger logger;
+    private GameState gameState;
+
+    @Setup
+    public void setUp() throws Exception {
+        UUID botId = UUID.randomUUID();
+        logger = new GameStateLogger(level, 1, queueCapacity, new ConsoleGameStateSink(botId, Silence.NULL));
+        gameState = new GameStateFixture(map).state(botId, density);
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        logger.close(1, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public void process() {
+        logger.process(gameState);
+    }
+}
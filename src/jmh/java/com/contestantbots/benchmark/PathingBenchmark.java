@@ -0,0 +1,94 @@
+package com.contestantbots.benchmark;
+
+import com.contestantbots.util.DistanceField;
+import com.contestantbots.util.TargetAssigner;
+import com.scottlogic.hackathon.game.Collectable;
+import com.scottlogic.hackathon.game.Direction;
+import com.scottlogic.hackathon.game.GameMap;
+import com.scottlogic.hackathon.game.GameState;
+import com.scottlogic.hackathon.game.Player;
+import com.scottlogic.hackathon.game.Position;
+import com.scottlogic.hackathon.game.Route;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Cost of the pathing helpers the bots use each phase, with the engine's own route finding as a baseline.
+ */
+@State(Scope.Thread)
+public class PathingBenchmark {
+    @Param({"Easy", "LargeMedium", "Hard"})
+    public String map;
+
+    @Param({"EARLY", "MID", "LATE"})
+    public GameStateFixture.Density density;
+
+    private GameMap gameMap;
+    private GameState gameState;
+    private List<Position> players;
+    private List<Position> collectables;
+    private DistanceField cached;
+    private DistanceField uncached;
+    private Position from;
+    private Position to;
+    private int next;
+    private final TargetAssigner targetAssigner = new TargetAssigner();
+
+    @Setup
+    public void setUp() throws Exception {
+        UUID botId = UUID.randomUUID();
+        GameStateFixture fixture = new GameStateFixture(map);
+        gameMap = fixture.getMap();
+        gameState = fixture.state(botId, density);
+        players = gameState.getPlayers().stream()
+                .filter(player -> player.getOwner().equals(botId))
+                .map(Player::getPosition)
+                .collect(Collectors.toList());
+        collectables = gameState.getCollectables().stream()
+                .map(Collectable::getPosition)
+                .collect(Collectors.toList());
+        from = players.get(0);
+        to = collectables.isEmpty() ? players.get(players.size() - 1) : collectables.get(0);
+
+        cached = new DistanceField(gameMap, gameState.getOutOfBoundsPositions());
+        cached.prepare(collectables);
+        cached.prepare(players);
+        uncached = new DistanceField(gameMap, gameState.getOutOfBoundsPositions(), 1);
+    }
+
+    /**
+     * A full breadth-first search, as paid the first time a destination is seen.
+     */
+    @Benchmark
+    public int distanceFieldSearch() {
+        next = (next + 1) % players.size();
+        return uncached.distance(from, players.get(next));
+    }
+
+    @Benchmark
+    public Optional<Direction> distanceFieldFirstStep() {
+        return cached.firstStep(from, to);
+    }
+
+    @Benchmark
+    public Optional<Route> engineFindRoute() {
+        return gameMap.findRoute(from, to, gameState.getOutOfBoundsPositions());
+    }
+
+    /**
+     * Assigning every player to a collectable, as {@code ExampleBotRobbie} does each phase, with the distances cached.
+     */
+    @Benchmark
+    public Map<Position, Position> assignCollectables() {
+        return targetAssigner.assign(players, collectables, cached::distance);
+    }
+}
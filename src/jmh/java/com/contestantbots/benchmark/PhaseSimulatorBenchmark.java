@@ -0,0 +1,57 @@
+package com.contestantbots.benchmark;
+
+import com.contestantbots.util.PhaseSimulator;
+import com.contestantbots.util.PositionSet;
+import com.contestantbots.util.SimulatedState;
+import com.scottlogic.hackathon.game.Direction;
+import com.scottlogic.hackathon.game.GameState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Throughput of {@link PhaseSimulator}: one rollout is a copy of the loaded state and a simulated phase with random
+ * moves for every player.
+ */
+@State(Scope.Thread)
+public class PhaseSimulatorBenchmark {
+    private static final int DIRECTIONS = Direction.values().length;
+
+    @Param({"Easy", "LargeMedium", "Hard"})
+    public String map;
+
+    @Param({"EARLY", "MID", "LATE"})
+    public GameStateFixture.Density density;
+
+    private PhaseSimulator simulator;
+    private SimulatedState loaded;
+    private SimulatedState rollout;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Setup
+    public void setUp() throws Exception {
+        UUID botId = UUID.randomUUID();
+        GameStateFixture fixture = new GameStateFixture(map);
+        GameState gameState = fixture.state(botId, density);
+        PositionSet outOfBounds = new PositionSet(fixture.getMap());
+        outOfBounds.addAll(gameState.getOutOfBoundsPositions());
+        simulator = new PhaseSimulator(fixture.getMap());
+        loaded = simulator.load(gameState, botId, outOfBounds);
+        rollout = loaded.newScratch();
+    }
+
+    @Benchmark
+    public int rollout() {
+        rollout.copyFrom(loaded);
+        for (int i = 0; i < rollout.getPlayerCount(); i++) {
+            rollout.setMove(i, random.nextInt(DIRECTIONS + 1) - 1);
+        }
+        simulator.step(rollout);
+        return rollout.countPlayers(0);
+    }
+}
@@ -0,0 +1,102 @@
+package com.contestantbots.benchmark;
+
+import com.contestantbots.util.GridPathfinder;
+import com.contestantbots.util.RouteCache;
+import com.scottlogic.hackathon.game.GameMap;
+import com.scottlogic.hackathon.game.Position;
+import com.scottlogic.hackathon.game.Route;
+import com.scottlogic.hackathon.game.engine.maps.Arena;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * {@link GridPathfinder} against the engine's {@code GameMap.findRoute} on every bundled map, with the whole map
+ * known. Each call takes the next of a fixed set of start and end tiles at least {@link #minDistance} apart, and
+ * {@link #routeCacheMarch} shows what {@link RouteCache} saves when players follow their routes.
+ * <p>
+ * The engine's search recurses deeply enough on long routes to overflow the default thread stack, hence the
+ * {@code -Xss}.
+ */
+@State(Scope.Thread)
+@Fork(jvmArgsAppend = "-Xss64m")
+public class RouteBenchmark {
+    private static final int PAIRS = 64;
+    private static final long SEED = 42;
+
+    @Param({"VeryEasy", "Easy", "Medium", "LargeMedium", "Hard"})
+    public String map;
+
+    @Param({"8", "32"})
+    public int minDistance;
+
+    private GameMap gameMap;
+    private Set<Position> outOfBounds;
+    private GridPathfinder pathfinder;
+    private final List<Position> starts = new ArrayList<>();
+    private final List<Position> ends = new ArrayList<>();
+    private RouteCache routeCache;
+    private Position[] marching;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        Arena arena = Arena.load(map);
+        gameMap = arena;
+        outOfBounds = arena.getOutOfBoundsPositions();
+        pathfinder = new GridPathfinder(gameMap);
+        pathfinder.addOutOfBounds(outOfBounds);
+        pathfinder.getTransitionCount();
+
+        Random random = new Random(SEED);
+        while (starts.size() < PAIRS) {
+            Position start = new Position(random.nextInt(gameMap.getWidth()), random.nextInt(gameMap.getHeight()));
+            Position end = new Position(random.nextInt(gameMap.getWidth()), random.nextInt(gameMap.getHeight()));
+            if (!outOfBounds.contains(start) && !outOfBounds.contains(end)
+                    && gameMap.distance(start, end) >= minDistance
+                    && pathfinder.findRoute(start, end).isPresent()) {
+                starts.add(start);
+                ends.add(end);
+            }
+        }
+
+        GridPathfinder cachePathfinder = new GridPathfinder(gameMap);
+        routeCache = new RouteCache(gameMap, cachePathfinder, RouteCache.DEFAULT_CAPACITY);
+        routeCache.addOutOfBounds(outOfBounds);
+        marching = starts.toArray(new Position[0]);
+    }
+
+    @Benchmark
+    public Optional<Route> engineFindRoute() {
+        next = (next + 1) % PAIRS;
+        return gameMap.findRoute(starts.get(next), ends.get(next), outOfBounds);
+    }
+
+    @Benchmark
+    public Optional<Route> gridPathfinder() {
+        next = (next + 1) % PAIRS;
+        return pathfinder.findRoute(starts.get(next), ends.get(next));
+    }
+
+    /**
+     * Every pair's player takes one step along its route per call, asking the cache for the rest of the way each
+     * time, as a bot would each phase.
+     */
+    @Benchmark
+    public Optional<Route> routeCacheMarch() {
+        next = (next + 1) % PAIRS;
+        Optional<Route> route = routeCache.route(marching[next], ends.get(next));
+        Optional<Route> rest = route.flatMap(Route::step);
+        marching[next] = rest.isPresent() && rest.get().getLength() > 0 ? rest.get().getStart() : starts.get(next);
+        return route;
+    }
+}
@@ -0,0 +1,31 @@
+package com.contestantbots.benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Discards console output, so that benchmarks measure our decision code rather than the terminal.
+ */
+final class Silence {
+    static final PrintStream NULL = new PrintStream(new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    });
+
+    private Silence() {
+    }
+
+    /**
+     * @return the stream that was replaced, to be restored when the benchmark finishes
+     */
+    static PrintStream systemOut() {
+        PrintStream original = System.out;
+        System.setOut(NULL);
+        return original;
+    }
+}
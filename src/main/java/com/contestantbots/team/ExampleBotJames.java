@@ -1,6 +1,8 @@
 package com.contestantbots.team;
 
 import com.contestantbots.util.GameStateLogger;
+import com.contestantbots.util.MoveTable;
+import com.contestantbots.util.PositionSet;
 import com.scottlogic.hackathon.client.Client;
 import com.scottlogic.hackathon.game.*;
 
@@ -9,33 +11,24 @@ import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
 public class ExampleBotJames extends Bot {
-    static class MoveImpl implements Move {
-        private UUID playerId;
-        private Direction direction;
-        public MoveImpl(UUID playerId, Direction direction) {
-            this.playerId = playerId;
-            this.direction = direction;
-        }
-        @Override
-        public UUID getPlayer() {
-            return playerId;
-        }
-        @Override
-        public Direction getDirection() {
-            return direction;
-        }
-    }
-
     private final GameStateLogger gameStateLogger;
+    private final MoveTable moveTable = new MoveTable();
+    private PositionSet outOfBounds;
+    private PositionSet nextPositions;
 
     public ExampleBotJames() {
         super("Example Bot James");
         gameStateLogger = new GameStateLogger(getId());
     }
 
-    private boolean canMove(final GameState gameState, final List<Position> nextPositions, final Player player, final Direction direction) {
-        Set<Position> outOfBounds = gameState.getOutOfBoundsPositions();
-        Position newPosition = gameState.getMap().getNeighbour(player.getPosition(), direction);
+    @Override
+    public void initialise(final GameState initialGameState) {
+        outOfBounds = new PositionSet(initialGameState.getMap());
+        nextPositions = new PositionSet(initialGameState.getMap());
+    }
+
+    private boolean canMove(final PositionSet nextPositions, final Player player, final Direction direction) {
+        int newPosition = nextPositions.neighbour(player.getPosition(), direction);
         if (!nextPositions.contains(newPosition)
                 && !outOfBounds.contains(newPosition)) {
             nextPositions.add(newPosition);
@@ -45,21 +38,21 @@ public class ExampleBotJames extends Bot {
         }
     }
 
-    private Move doMove(final GameState gameState, final List<Position> nextPositions, final Player player) {
+    private Move doMove(final PositionSet nextPositions, final Player player) {
         List<Direction> directions = new ArrayList<>(Arrays.asList(Direction.values()));
         Direction direction;
         do {
             direction = directions.remove(ThreadLocalRandom.current().nextInt(directions.size()));
-        } while (!directions.isEmpty() && !canMove(gameState, nextPositions, player, direction));
-        return new MoveImpl(player.getId(), direction);
+        } while (!directions.isEmpty() && !canMove(nextPositions, player, direction));
+        return moveTable.get(player.getId(), direction);
     }
 
-    private List<Move> doExplore(final GameState gameState, final List<Position> nextPositions) {
+    private List<Move> doExplore(final GameState gameState, final PositionSet nextPositions) {
         List<Move> exploreMoves = new ArrayList<>();
 
         exploreMoves.addAll(gameState.getPlayers().stream()
-                .map(player -> doMove(gameState, nextPositions, player))
-                //.map(player -> new MoveImpl(player.getId(), Direction.NORTH))
+                .map(player -> doMove(nextPositions, player))
+                //.map(player -> moveTable.get(player.getId(), Direction.NORTH))
                 .collect(Collectors.toList()));
 
         System.out.println(exploreMoves.size() + " players exploring");
@@ -69,7 +62,9 @@ public class ExampleBotJames extends Bot {
     @Override
     public List<Move> makeMoves(final GameState gameState) {
         gameStateLogger.process(gameState);
-        List<Position> nextPositions = new ArrayList<>();
+        moveTable.forget(gameState.getRemovedPlayers());
+        outOfBounds.addAll(gameState.getOutOfBoundsPositions());
+        nextPositions.clear();
         List<Move> moves = new ArrayList<>();
         moves.addAll(doExplore(gameState, nextPositions));
         return moves;
@@ -1,115 +1,741 @@
 package com.contestantbots.team;
 
+import com.contestantbots.util.AnytimeBot;
+import com.contestantbots.util.AssignmentSolver;
+import com.contestantbots.util.CollectableHeatmap;
+import com.contestantbots.util.DistanceField;
+import com.contestantbots.util.FlowField;
+import com.contestantbots.util.FogOfWar;
 import com.contestantbots.util.GameStateLogger;
+import com.contestantbots.util.GreedyNearestSolver;
+import com.contestantbots.util.MapKnowledge;
+import com.contestantbots.util.MetricsRegistry;
+import com.contestantbots.util.MoveBuffer;
+import com.contestantbots.util.MoveTable;
+import com.contestantbots.util.OpponentModel;
+import com.contestantbots.util.PhaseDeadline;
+import com.contestantbots.util.PhaseSimulator;
+import com.contestantbots.util.PositionSet;
+import com.contestantbots.util.PositionTable;
+import com.contestantbots.util.ReplayRecorder;
+import com.contestantbots.util.ReservationPlanner;
+import com.contestantbots.util.RolloutEvaluator;
+import com.contestantbots.util.SimulatedState;
+import com.contestantbots.util.SpatialIndex;
+import com.contestantbots.util.SpeculativePlanner;
+import com.contestantbots.util.TargetAssigner;
+import com.contestantbots.util.Territory;
+import com.contestantbots.util.ThreatMap;
+import com.contestantbots.util.WorldModel;
 import com.scottlogic.hackathon.client.Client;
 import com.scottlogic.hackathon.game.*;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.ThreadLocalRandom;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
-public class ExampleBotRobbie extends Bot {
-    private final GameStateLogger gameStateLogger;
+public class ExampleBotRobbie extends AnytimeBot {
+    private static final int EXPLORE_CELL_SIZE = 8;
+    private static final int ATTACK_DISTANCE = 8;
+    private static final int FALLBACK_COLLECT_DISTANCE = 10;
+    public static final long DEFAULT_ROLLOUT_BUDGET_MILLIS = 100;
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final int WANDER = 0;
+    private static final int TARGET = 1;
+    private static final int ENEMY_SPAWN_POINT = 2;
+    private static final int COLLECTABLE = 3;
+    private static final int BORDER = 4;
+    private static final int FIGHT_URGENCY = 3;
+    private static final int ATTACK_URGENCY = 2;
+    private static final int COLLECT_URGENCY = 1;
+    private static final int EXPLORE_URGENCY = 0;
+    private static final int WANDER_COST = 1 << 20;
+    private static final int GUARD_RANGE = 8;
+    private static final int HOT_SPOTS = 4;
+    private static final int HOT_SPOT_RANGE = 12;
+    /**
+     * A single spawn seen within about the last 70 phases.
+     */
+    private static final float HOT_SPOT_HEAT = 0.5f;
 
-    Map<Player, Position> assignedPlayerDestinations = new HashMap<>();
+    private final long rolloutBudgetMillis;
+    private final boolean speculating;
+    private final GameStateLogger gameStateLogger;
+    private final MetricsRegistry.Timer loggingTimer = getMetrics().timer("logging");
+    private final MetricsRegistry.Timer ingestTimer = getMetrics().timer("ingest");
+    private final MetricsRegistry.Timer assignmentTimer = getMetrics().timer("assignment");
+    private final MetricsRegistry.Timer pathingTimer = getMetrics().timer("pathing");
+    private final MetricsRegistry.Timer emissionTimer = getMetrics().timer("emission");
+    private final MetricsRegistry.Timer rolloutTimer = getMetrics().timer("rollout");
+    // how many players each plan gives each kind of goal, summed over the three plans a phase makes
+    private final LongAdder attackingPlayers = getMetrics().counter("plan.attacking");
+    private final LongAdder fightingPlayers = getMetrics().counter("plan.fighting");
+    private final LongAdder guardingPlayers = getMetrics().counter("plan.guarding");
+    private final LongAdder waitingPlayers = getMetrics().counter("plan.waiting");
+    private final LongAdder collectingPlayers = getMetrics().counter("plan.collecting");
+    private final LongAdder exploringPlayers = getMetrics().counter("plan.exploring");
+    private final LongAdder speculationHits = getMetrics().counter("speculation.frontierHits");
+    private final LongAdder speculationMisses = getMetrics().counter("speculation.frontierMisses");
+    private DistanceField distanceField;
+    private WorldModel worldModel;
+    private OpponentModel opponentModel;
+    private ThreatMap threatMap;
+    private FlowField collectableField;
+    private FlowField enemySpawnPointField;
+    private Territory territory;
+    private FlowField borderField;
+    private final List<Position> borderTargets = new ArrayList<>();
+    private CollectableHeatmap collectableHeatmap;
+    private final int[] hotSpotTiles = new int[HOT_SPOTS];
+    // what pathing treats as out of bounds: those seen, and the rest of the map's once it has been identified
+    private PositionSet outOfBounds;
+    private PositionSet seenOutOfBounds;
+    private List<MapKnowledge> mapCandidates;
+    private MapKnowledge mapKnowledge;
+    private PositionSet chokepoints;
+    private PositionTable positionTable;
+    private ReservationPlanner reservationPlanner;
+    private SpatialIndex frontierIndex;
+    private SpatialIndex predictedIndex;
+    private final List<Position> predictedCollectables = new ArrayList<>();
+    private PositionSet speculatedTargets;
+    private int[] nearestInCell;
+    private final TargetAssigner quickAssigner = new TargetAssigner(new GreedyNearestSolver(1));
+    private final TargetAssigner targetAssigner = new TargetAssigner();
+    private ReplayRecorder replayRecorder;
+    private PhaseSimulator phaseSimulator;
+    private RolloutEvaluator rolloutEvaluator;
+    private final MoveTable moveTable = new MoveTable();
+    private final MoveBuffer plannedMoves = new MoveBuffer(moveTable);
+    private int[] goalKinds = new int[0];
+    private Position[] goals = new Position[0];
+    private int[] urgencies = new int[0];
+    private int[] startTiles = new int[0];
+    // the slots still wandering when targets are assigned, and the target each is given
+    private int[] assignSlots = new int[0];
+    private int[] assignedTargets = new int[0];
+    private final List<Position> frontierTargets = new ArrayList<>();
+    private int[] frontierInCell;
+    private int[] ownSlotAt;
 
     public ExampleBotRobbie() {
+        this(DEFAULT_ROLLOUT_BUDGET_MILLIS, true);
+    }
+
+    /**
+     * @param rolloutBudgetMillis the most time a phase may spend on rollouts for fights, or 0 to keep the planned
+     *                            moves
+     * @param speculating         whether to work towards the next phase between phases
+     */
+    public ExampleBotRobbie(final long rolloutBudgetMillis, final boolean speculating) {
         super("ExampleBotRobbie");
-        gameStateLogger = new GameStateLogger(getId());
+        this.rolloutBudgetMillis = rolloutBudgetMillis;
+        this.speculating = speculating;
+        gameStateLogger = new GameStateLogger(getId(), GameStateLogger.Level.FULL, 1, 16);
+    }
+
+    @Override
+    public void initialise(final GameState initialGameState) {
+        distanceField = new DistanceField(initialGameState.getMap(), initialGameState.getOutOfBoundsPositions());
+        outOfBounds = new PositionSet(initialGameState.getMap());
+        seenOutOfBounds = new PositionSet(initialGameState.getMap());
+        seenOutOfBounds.addAll(initialGameState.getOutOfBoundsPositions());
+        chokepoints = new PositionSet(initialGameState.getMap());
+        positionTable = PositionTable.forMap(initialGameState.getMap());
+        reservationPlanner = new ReservationPlanner(initialGameState.getMap());
+        frontierIndex = new SpatialIndex(initialGameState.getMap());
+        predictedIndex = new SpatialIndex(initialGameState.getMap());
+        speculatedTargets = new PositionSet(initialGameState.getMap());
+        nearestInCell = new int[exploreCellsAcross() * exploreCellsDown()];
+        frontierInCell = new int[nearestInCell.length];
+        ownSlotAt = new int[positionTable.size()];
+        Arrays.fill(ownSlotAt, -1);
+        worldModel = new WorldModel(initialGameState.getMap(), getId());
+        opponentModel = new OpponentModel(initialGameState.getMap());
+        threatMap = new ThreatMap(initialGameState.getMap());
+        collectableField = new FlowField(initialGameState.getMap());
+        enemySpawnPointField = new FlowField(initialGameState.getMap());
+        territory = new Territory(initialGameState.getMap());
+        borderField = new FlowField(initialGameState.getMap());
+        collectableHeatmap = new CollectableHeatmap(initialGameState.getMap());
+
+        mapCandidates = new ArrayList<>(MapKnowledge.candidates(initialGameState, getId()));
+        identifyMap(initialGameState);
+        phaseSimulator = new PhaseSimulator(initialGameState.getMap());
+        rolloutEvaluator = new RolloutEvaluator(initialGameState.getMap());
+
+        // set -Dcontestantbots.replay.dir=<dir> to record every phase for ReplayReader
+        String replayDir = System.getProperty("contestantbots.replay.dir");
+        if (replayDir != null) {
+            try {
+                replayRecorder = new ReplayRecorder(Paths.get(replayDir, getId() + ".replay"),
+                        initialGameState.getMap(), getId());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        // set -Dcontestantbots.metrics.dir=<dir> to write how long each stage of makeMoves took when the game ends
+        String metricsDir = System.getProperty("contestantbots.metrics.dir");
+        if (metricsDir != null) {
+            getMetrics().writeOnGameOver(Paths.get(metricsDir, getId() + ".metrics.json"));
+        }
     }
 
     @Override
     public List<Move> makeMoves(final GameState gameState) {
-        gameStateLogger.process(gameState);
-        List<Move> moves = new ArrayList<>();
-        List<Position> nextPositions = new ArrayList<>();
-//        assignedPlayerDestinations.clear();
-        for (Player player : assignedPlayerDestinations.keySet()) {
-            Position targetDest = assignedPlayerDestinations.get(player);
-            if (targetDest == player.getPosition() || gameState.getRemovedPlayers().contains(player)) {
-                assignedPlayerDestinations.remove(player);
+        List<Move> moves = super.makeMoves(gameState);
+
+        if (replayRecorder != null) {
+            replayRecorder.record(gameState, moves);
+        }
+        return moves;
+    }
+
+    /**
+     * Also stops the game state logger's writer thread once it has written what is queued, and closes the replay so
+     * it is cut down to the phases recorded.
+     */
+    @Override
+    public void gameOver() {
+        super.gameOver();
+        try {
+            gameStateLogger.close(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (replayRecorder != null) {
+            try {
+                replayRecorder.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            replayRecorder = null;
+        }
+    }
+
+    @Override
+    protected List<Move> fallbackMoves(final GameState gameState) {
+        loggingTimer.time(() -> gameStateLogger.process(gameState));
+        ingestTimer.time(() -> ingest(gameState));
+
+        return plan(null);
+    }
+
+    /**
+     * Brings every model, field and map kept between phases up to date with the game state.
+     */
+    private void ingest(final GameState gameState) {
+        moveTable.forget(gameState.getRemovedPlayers());
+        identifyMap(gameState);
+        seenOutOfBounds.addAll(gameState.getOutOfBoundsPositions());
+        distanceField.addOutOfBounds(gameState.getOutOfBoundsPositions());
+        outOfBounds.addAll(gameState.getOutOfBoundsPositions());
+        worldModel.update(gameState);
+        opponentModel.update(gameState, worldModel);
+        // judge battles by where the enemy is likely to be once everyone has moved
+        threatMap.update(worldModel.getOwnPlayers(), worldModel.getVisibleEnemies(), opponentModel::predictedTile);
+        collectableField.addOutOfBounds(gameState.getOutOfBoundsPositions());
+        collectableField.setTargets(worldModel.getCollectables());
+        enemySpawnPointField.addOutOfBounds(gameState.getOutOfBoundsPositions());
+        enemySpawnPointField.setTargets(worldModel.getEnemySpawnPoints());
+        territory.update(gameState, worldModel);
+        updateBorderTargets();
+        borderField.addOutOfBounds(gameState.getOutOfBoundsPositions());
+        borderField.setTargets(borderTargets);
+        collectableHeatmap.update(worldModel);
+    }
+
+    /**
+     * Narrows down the precomputed maps that look like the one being played. Once only one is left, every obstacle on
+     * it is taken as known, so routes no longer have to be discovered as they are explored. The map is still checked
+     * against what our players see every phase, and if it turns out to be another that only looked the same so far,
+     * it is given up and pathing goes back to the obstacles actually seen.
+     */
+    private void identifyMap(final GameState gameState) {
+        if (mapKnowledge != null) {
+            if (!mapKnowledge.matches(gameState, getId())) {
+                mapKnowledge = null;
+                mapCandidates.clear();
+                forgetMap(gameState.getMap());
+            }
+            return;
+        }
+        if (mapCandidates.isEmpty()) {
+            return;
+        }
+        mapCandidates.removeIf(candidate -> !candidate.matches(gameState, getId()));
+        if (mapCandidates.size() == 1) {
+            mapKnowledge = mapCandidates.get(0);
+            Set<Position> knownOutOfBounds = mapKnowledge.getOutOfBoundsPositions();
+            distanceField.addOutOfBounds(knownOutOfBounds);
+            outOfBounds.addAll(knownOutOfBounds);
+            collectableField.addOutOfBounds(knownOutOfBounds);
+            enemySpawnPointField.addOutOfBounds(knownOutOfBounds);
+            borderField.addOutOfBounds(knownOutOfBounds);
+            for (Position chokepoint : mapKnowledge.getChokepoints()) {
+                chokepoints.add(chokepoint);
+            }
+        }
+    }
+
+    /**
+     * Starts the fields that pathing uses again from the out-of-bounds tiles seen so far, since none of them can
+     * forget an obstacle. The targets are set again as the phase is ingested.
+     */
+    private void forgetMap(final GameMap map) {
+        List<Position> seen = new ArrayList<>(seenOutOfBounds.size());
+        for (int tile = seenOutOfBounds.nextIndex(0); tile >= 0; tile = seenOutOfBounds.nextIndex(tile + 1)) {
+            seen.add(seenOutOfBounds.position(tile));
+        }
+        distanceField = new DistanceField(map, seen);
+        outOfBounds.clear();
+        outOfBounds.addAll(seen);
+        collectableField = new FlowField(map);
+        collectableField.addOutOfBounds(seen);
+        enemySpawnPointField = new FlowField(map);
+        enemySpawnPointField.addOutOfBounds(seen);
+        borderField = new FlowField(map);
+        borderField.addOutOfBounds(seen);
+        chokepoints.clear();
+    }
+
+    /**
+     * Between phases, guesses where our players will be from the moves just made. The collectables they step onto are
+     * dropped from the collectable field, and the distance tables are computed for where the exploration targets are
+     * likely to be, so that the next phase finds most of that work done. The next phase sets the collectable targets
+     * from what it actually sees, which comes out the same however the field got there, and the tables are looked up
+     * by position, so a wrong guess only costs the time it took.
+     */
+    @Override
+    protected Optional<SpeculativePlanner.Speculation> speculation(final GameState gameState, final List<Move> moves) {
+        if (!speculating) {
+            return Optional.empty();
+        }
+        return Optional.of(cancelled -> {
+            predictOwnPlayers(moves);
+            predictedCollectables.clear();
+            for (Position collectable : worldModel.getCollectables()) {
+                if (predictedIndex.countWithin(positionTable.index(collectable), 0) == 0) {
+                    predictedCollectables.add(collectable);
+                }
+            }
+            collectableField.setTargets(predictedCollectables);
+            for (Position target : predictedFrontierTargets()) {
+                if (cancelled.getAsBoolean()) {
+                    return;
+                }
+                distanceField.prepare(Collections.singleton(target));
+            }
+        });
+    }
+
+    /**
+     * Puts each of our players in {@link #predictedIndex}, by its index in the world model, where its move takes it.
+     */
+    private void predictOwnPlayers(final List<Move> moves) {
+        predictedIndex.clear();
+        List<Player> ownPlayers = worldModel.getOwnPlayers();
+        for (int id = 0; id < ownPlayers.size(); id++) {
+            int tile = positionTable.index(ownPlayers.get(id).getPosition());
+            predictedIndex.put(id, tile);
+            ownSlotAt[tile] = id;
+        }
+        for (Move move : moves) {
+            WorldModel.TrackedPlayer player = worldModel.getOwnPlayer(move.getPlayer());
+            if (player != null && ownSlotAt[player.getTile()] >= 0) {
+                predictedIndex.put(ownSlotAt[player.getTile()],
+                        positionTable.neighbour(player.getTile(), move.getDirection()));
             }
         }
-        System.out.println("apd" + assignedPlayerDestinations.keySet().size());
+        for (Player player : ownPlayers) {
+            ownSlotAt[positionTable.index(player.getPosition())] = -1;
+        }
+    }
 
-        moves.addAll(doCollect(gameState, assignedPlayerDestinations, nextPositions));
-        moves.addAll(doExplore(gameState, nextPositions));
+    /**
+     * The same choice of targets as {@link #frontierTargets()}, but from the frontier as it should be once our
+     * players have made their moves: the unseen tiles that will still be out of view, and those just beyond the view
+     * of each player that moves. They are also left in {@link #speculatedTargets}.
+     */
+    private List<Position> predictedFrontierTargets() {
+        FogOfWar fogOfWar = worldModel.getFogOfWar();
+        int viewDistance = fogOfWar.getViewDistance();
+        Arrays.fill(nearestInCell, Integer.MAX_VALUE);
+        PositionSet frontier = fogOfWar.getFrontier();
+        for (int tile = frontier.nextIndex(0); tile >= 0; tile = frontier.nextIndex(tile + 1)) {
+            if (predictedIndex.countWithin(tile, viewDistance) == 0) {
+                offerFrontierTile(tile);
+            }
+        }
+
+        List<Player> ownPlayers = worldModel.getOwnPlayers();
+        int ring = viewDistance + 1;
+        for (int id = 0; id < ownPlayers.size(); id++) {
+            int tile = predictedIndex.tile(id);
+            if (tile == positionTable.index(ownPlayers.get(id).getPosition())) {
+                continue;
+            }
+            int x = tile % positionTable.getWidth();
+            int y = tile / positionTable.getWidth();
+            for (int dy = -ring; dy <= ring; dy++) {
+                int step = dy == -ring || dy == ring ? 1 : 2 * ring;
+                for (int dx = -ring; dx <= ring; dx += step) {
+                    Position position = positionTable.position(Math.floorMod(x + dx, positionTable.getWidth()),
+                            Math.floorMod(y + dy, positionTable.getHeight()));
+                    int next = positionTable.index(position);
+                    if (!fogOfWar.isSeen(position) && predictedIndex.countWithin(next, viewDistance) == 0) {
+                        offerFrontierTile(next);
+                    }
+                }
+            }
+        }
+
+        List<Position> targets = new ArrayList<>();
+        speculatedTargets.clear();
+        for (int tile : nearestInCell) {
+            if (tile != Integer.MAX_VALUE) {
+                targets.add(positionTable.position(tile));
+                speculatedTargets.add(tile);
+            }
+        }
+        return targets;
+    }
+
+    private void offerFrontierTile(final int tile) {
+        int cell = exploreCell(tile % positionTable.getWidth(), tile / positionTable.getWidth());
+        nearestInCell[cell] = Math.min(nearestInCell[cell], tile);
+    }
+
+    @Override
+    protected Optional<List<Move>> refine(final GameState gameState, final List<Move> best, final int iteration,
+                                          final PhaseDeadline deadline) {
+        switch (iteration) {
+            case 0:
+                return Optional.of(plan(quickAssigner));
+            case 1:
+                return Optional.of(plan(targetAssigner));
+            case 2:
+                return rolloutBudgetMillis > 0
+                        ? Optional.of(refineFights(gameState, best, deadline)) : Optional.empty();
+            default:
+                return Optional.empty();
+        }
+    }
+
+    /**
+     * Tries variations on the moves of players near the enemy in simulated rollouts, leaving the rest of the plan as
+     * it is.
+     */
+    private List<Move> refineFights(final GameState gameState, final List<Move> best, final PhaseDeadline deadline) {
+        SimulatedState state = phaseSimulator.load(gameState, getId(), outOfBounds);
+        phaseSimulator.setMoves(state, best);
+        long budgetMillis = Math.min(rolloutBudgetMillis, deadline.remaining(TimeUnit.MILLISECONDS));
+        int[] directions = rolloutTimer.time(
+                () -> rolloutEvaluator.evaluate(state, new PhaseDeadline(budgetMillis, TimeUnit.MILLISECONDS)));
+
+        List<Move> moves = new ArrayList<>();
+        for (int i = 0; i < state.getPlayerCount(); i++) {
+            if (state.getPlayerOwner(i) == 0 && directions[i] != SimulatedState.STAY) {
+                moves.add(moveTable.get(state.getPlayerId(i), DIRECTIONS[directions[i]]));
+            }
+        }
         return moves;
     }
 
-    private List<Move> doCollect(final GameState gameState, final Map<Player, Position> assignedPlayerDestinations, final List<Position> nextPositions) {
-        List<Move> collectMoves = new ArrayList<>();
+    private List<Move> plan(final TargetAssigner assigner) {
+        plannedMoves.reset(worldModel.getOwnPlayers());
+        int count = plannedMoves.size();
+        if (goalKinds.length < count) {
+            int capacity = Math.max(count, goalKinds.length * 2);
+            goalKinds = new int[capacity];
+            goals = new Position[capacity];
+            urgencies = new int[capacity];
+            startTiles = new int[capacity];
+            assignSlots = new int[capacity];
+            assignedTargets = new int[capacity];
+        }
+        for (int slot = 0; slot < count; slot++) {
+            goalKinds[slot] = WANDER;
+            goals[slot] = null;
+            urgencies[slot] = 0;
+            startTiles[slot] = positionTable.index(plannedMoves.player(slot).getPosition());
+        }
 
-        Set<Position> collectablePositions = gameState.getCollectables().stream()
-                .map(collectable -> collectable.getPosition())
-                .collect(Collectors.toSet());
-        Set<Player> players = gameState.getPlayers().stream()
-                .filter(player -> isMyPlayer(player))
-                .collect(Collectors.toSet());
+        assignmentTimer.time(() -> {
+            doFight();
+            doAttack();
+            doCollect(assigner);
+            doExplore(assigner);
+            doWait();
+            doGuard();
+        });
 
-        List<Route> collectableRoutes = new ArrayList<>();
-        for (Position collectablePosition : collectablePositions) {
-            for (Player player : players) {
-                int distance = gameState.getMap().distance(player.getPosition(), collectablePosition);
-                Route route = new Route(player, collectablePosition, distance);
-                collectableRoutes.add(route);
+        int[] directions = pathingTimer.time(
+                () -> reservationPlanner.plan(count, startTiles, urgencies, this::stepCost));
+        return emissionTimer.time(() -> {
+            for (int slot = 0; slot < count; slot++) {
+                if (directions[slot] != ReservationPlanner.STAY) {
+                    plannedMoves.set(slot, DIRECTIONS[directions[slot]]);
+                }
+            }
+            return plannedMoves.toMoves();
+        });
+    }
+
+    private void doFight() {
+        int fighting = 0;
+
+        for (int slot = 0; slot < plannedMoves.size(); slot++) {
+            Player player = plannedMoves.player(slot);
+            if (threatMap.enemy(player.getPosition()) > 0) {
+                for (Direction direction : DIRECTIONS) {
+                    int tile = positionTable.neighbour(startTiles[slot], direction);
+                    if (threatMap.isWinning(tile) && isOpen(tile)) {
+                        setGoal(slot, TARGET, positionTable.position(tile), FIGHT_URGENCY);
+                        fighting++;
+                        break;
+                    }
+                }
             }
         }
 
-        for (Route route : collectableRoutes) {
-            if (!assignedPlayerDestinations.containsKey(route.getPlayer())
-                    && !assignedPlayerDestinations.containsValue(route.getDestination())) {
-                Optional<Direction> direction = gameState.getMap().directionsTowards(route.getPlayer().getPosition(), route.getDestination()).findFirst();
-                if (direction.isPresent() && canMove(gameState, nextPositions, route.getPlayer(), direction.get())) {
-                    collectMoves.add(new MoveImpl(route.getPlayer().getId(), direction.get()));
-                    assignedPlayerDestinations.put(route.getPlayer(), route.getDestination());
+        fightingPlayers.add(fighting);
+    }
+
+    private void doAttack() {
+        int attacking = 0;
+
+        for (int slot = 0; slot < plannedMoves.size(); slot++) {
+            if (goalKinds[slot] == WANDER
+                    && enemySpawnPointField.distance(plannedMoves.player(slot).getPosition()) <= ATTACK_DISTANCE) {
+                setGoal(slot, ENEMY_SPAWN_POINT, null, ATTACK_URGENCY);
+                attacking++;
+            }
+        }
+
+        attackingPlayers.add(attacking);
+    }
+
+    private void doCollect(final TargetAssigner targetAssigner) {
+        int collecting = 0;
+
+        if (targetAssigner == null) {
+            // head for the nearest collectable, whoever else is going for it
+            for (int slot = 0; slot < plannedMoves.size(); slot++) {
+                if (goalKinds[slot] == WANDER && collectableField.distance(plannedMoves.player(slot).getPosition())
+                        <= FALLBACK_COLLECT_DISTANCE) {
+                    setGoal(slot, COLLECTABLE, null, COLLECT_URGENCY);
+                    collecting++;
                 }
             }
+            collectingPlayers.add(collecting);
+            return;
         }
 
+        collecting = assignTargets(targetAssigner, worldModel.getCollectables(), worldModel.getCollectableIndex(),
+                COLLECT_URGENCY);
 
-        System.out.println(collectMoves.size() + " players collecting");
+        collectingPlayers.add(collecting);
+    }
 
-        return collectMoves;
+    /**
+     * Assigns the players without a goal yet to the targets.
+     *
+     * @param targetIndex the targets by tile, with ids that index {@code targets}
+     * @return how many players were given a target
+     */
+    private int assignTargets(final TargetAssigner targetAssigner, final List<Position> targets,
+                              final SpatialIndex targetIndex, final int urgency) {
+        int players = 0;
+        for (int slot = 0; slot < plannedMoves.size(); slot++) {
+            if (goalKinds[slot] == WANDER) {
+                assignSlots[players++] = slot;
+            }
+        }
+
+        int assigned = targetAssigner.assign(players, targets.size(),
+                (player, target) -> distanceField.distance(plannedMoves.player(assignSlots[player]).getPosition(),
+                        targets.get(target)),
+                (player, k, nearest) -> targetIndex.nearest(startTiles[assignSlots[player]], k, nearest),
+                assignedTargets);
+
+        for (int player = 0; player < players; player++) {
+            if (assignedTargets[player] != AssignmentSolver.UNASSIGNED) {
+                setGoal(assignSlots[player], TARGET, targets.get(assignedTargets[player]), urgency);
+            }
+        }
+        return assigned;
     }
 
-    private boolean canMove(final GameState gameState, final List<Position> nextPositions, final Player player, final Direction direction) {
-        Set<Position> outOfBounds = gameState.getOutOfBoundsPositions();
-        Position newPosition = gameState.getMap().getNeighbour(player.getPosition(), direction);
-        if (!nextPositions.contains(newPosition)) {
-            nextPositions.add(newPosition);
-            return true;
+    private void doExplore(final TargetAssigner targetAssigner) {
+        int exploring = 0;
+
+        if (targetAssigner != null) {
+            exploring += assignTargets(targetAssigner, frontierTargets(), frontierIndex, EXPLORE_URGENCY);
+        }
+
+        for (int slot = 0; slot < plannedMoves.size(); slot++) {
+            exploring += goalKinds[slot] == WANDER ? 1 : 0;
         }
-        return false;
+
+        exploringPlayers.add(exploring);
     }
 
-    private List<Move> doExplore(final GameState gameState, final List<Position> nextPositions) {
-        List<Move> exploreMoves = new ArrayList<>();
+    /**
+     * Sends the nearest player with nothing else to do to each tile where collectables have lately spawned, to wait
+     * there for the next one, once {@link CollectableHeatmap#isClustered} shows that they come back to the same tiles.
+     * Only one waits at each, so the rest keep wandering and stragglers still get found.
+     */
+    private void doWait() {
+        int waiting = 0;
 
-        exploreMoves.addAll(gameState.getPlayers().stream()
-                .filter(player -> isMyPlayer(player))
-                .filter(player -> !assignedPlayerDestinations.containsKey(player))
-                .map(player -> doMove(gameState, nextPositions, player))
-                .collect(Collectors.toList()));
+        int found = collectableHeatmap.isClustered()
+                ? collectableHeatmap.hotSpots(HOT_SPOTS, HOT_SPOT_HEAT, hotSpotTiles, worldModel) : 0;
+        for (int i = 0; i < found; i++) {
+            Position hotSpot = positionTable.position(hotSpotTiles[i]);
+            int nearest = -1;
+            int nearestDistance = HOT_SPOT_RANGE + 1;
+            for (int slot = 0; slot < plannedMoves.size(); slot++) {
+                if (goalKinds[slot] == WANDER) {
+                    int distance = distanceField.distance(plannedMoves.player(slot).getPosition(), hotSpot);
+                    if (distance < nearestDistance) {
+                        nearest = slot;
+                        nearestDistance = distance;
+                    }
+                }
+            }
+            if (nearest >= 0) {
+                setGoal(nearest, TARGET, hotSpot, EXPLORE_URGENCY);
+                waiting++;
+            }
+        }
 
-        System.out.println(exploreMoves.size() + " players exploring");
-        return exploreMoves;
+        waitingPlayers.add(waiting);
     }
 
-    private boolean isMyPlayer(final Player player) {
-        return player.getOwner().equals(getId());
+    /**
+     * Sends the players with nothing else to do that are near the edge of the area our spawn points reach before
+     * anyone else's to hold it. The rest keep wandering, so that stragglers still get found. Once the map is known,
+     * only the narrow passages across the edge are held, if it has any, since a few players can hold those.
+     */
+    private void doGuard() {
+        int guarding = 0;
+
+        for (int slot = 0; slot < plannedMoves.size(); slot++) {
+            if (goalKinds[slot] == WANDER
+                    && borderField.distance(plannedMoves.player(slot).getPosition()) <= GUARD_RANGE) {
+                setGoal(slot, BORDER, null, EXPLORE_URGENCY);
+                guarding++;
+            }
+        }
+
+        guardingPlayers.add(guarding);
     }
 
-    private Move doMove(final GameState gameState, final List<Position> nextPositions, final Player player) {
-        List<Direction> directions = new ArrayList<>(Arrays.asList(Direction.values()));
-        Direction direction;
-        do {
-            direction = directions.remove(ThreadLocalRandom.current().nextInt(directions.size()));
-        } while (!directions.isEmpty() && !canMove(gameState, nextPositions, player, direction));
-//        if (directions.isEmpty()) {
-//            // Could not move
-//        }
-        return new MoveImpl(player.getId(), direction);
+    private void updateBorderTargets() {
+        borderTargets.clear();
+        PositionSet border = territory.getBorder(getId());
+        for (int i = border.nextIndex(0); i >= 0; i = border.nextIndex(i + 1)) {
+            if (chokepoints.contains(i)) {
+                borderTargets.add(border.position(i));
+            }
+        }
+        if (borderTargets.isEmpty()) {
+            for (int i = border.nextIndex(0); i >= 0; i = border.nextIndex(i + 1)) {
+                borderTargets.add(border.position(i));
+            }
+        }
+    }
+
+    private void setGoal(final int slot, final int kind, final Position goal, final int urgency) {
+        goalKinds[slot] = kind;
+        goals[slot] = goal;
+        urgencies[slot] = urgency;
+    }
+
+    private boolean isOpen(final int tile) {
+        return !outOfBounds.contains(tile) && threatMap.isSafe(tile);
+    }
+
+    /**
+     * How far a player would be from its goal after stepping onto a tile. Players without a goal, or whose goal can no
+     * longer be reached, wander at random.
+     */
+    private int stepCost(final int slot, final int tile) {
+        if (!isOpen(tile)) {
+            return ReservationPlanner.BLOCKED;
+        }
+        Position position = positionTable.position(tile);
+        int distance;
+        switch (goalKinds[slot]) {
+            case TARGET:
+                distance = distanceField.distance(position, goals[slot]);
+                break;
+            case ENEMY_SPAWN_POINT:
+                distance = enemySpawnPointField.distance(position);
+                break;
+            case COLLECTABLE:
+                distance = collectableField.distance(position);
+                break;
+            case BORDER:
+                distance = borderField.distance(position);
+                break;
+            default:
+                distance = DistanceField.UNREACHABLE;
+                break;
+        }
+        return distance != DistanceField.UNREACHABLE ? distance
+                : WANDER_COST + ThreadLocalRandom.current().nextInt(DIRECTIONS.length);
+    }
+
+    /**
+     * One unseen tile on the edge of the explored area per cell of the map, so that players spread out rather than all
+     * heading for neighbouring tiles, and only a few distance fields are needed. They are also left in
+     * {@link #frontierIndex}, and the list is reused by the next call.
+     */
+    private List<Position> frontierTargets() {
+        PositionSet frontier = worldModel.getFogOfWar().getFrontier();
+        Arrays.fill(frontierInCell, -1);
+        for (int i = frontier.nextIndex(0); i >= 0; i = frontier.nextIndex(i + 1)) {
+            int cell = exploreCell(frontier.x(i), frontier.y(i));
+            if (frontierInCell[cell] < 0) {
+                frontierInCell[cell] = i;
+            }
+        }
+        frontierTargets.clear();
+        for (int tile : frontierInCell) {
+            if (tile >= 0) {
+                frontierTargets.add(positionTable.position(tile));
+            }
+        }
+        frontierIndex.clear();
+        for (int i = 0; i < frontierTargets.size(); i++) {
+            frontierIndex.put(i, positionTable.index(frontierTargets.get(i)));
+        }
+        // how many of the targets the last speculation guessed, counted the first time this phase only
+        if (!speculatedTargets.isEmpty()) {
+            for (Position target : frontierTargets) {
+                (speculatedTargets.contains(target) ? speculationHits : speculationMisses).increment();
+            }
+            speculatedTargets.clear();
+        }
+        return frontierTargets;
+    }
+
+    private int exploreCell(final int x, final int y) {
+        return y / EXPLORE_CELL_SIZE * exploreCellsAcross() + x / EXPLORE_CELL_SIZE;
+    }
+
+    private int exploreCellsAcross() {
+        return (positionTable.getWidth() + EXPLORE_CELL_SIZE - 1) / EXPLORE_CELL_SIZE;
+    }
+
+    private int exploreCellsDown() {
+        return (positionTable.getHeight() + EXPLORE_CELL_SIZE - 1) / EXPLORE_CELL_SIZE;
     }
 
 
@@ -165,45 +791,4 @@ public class ExampleBotRobbie extends Bot {
         Client.main(args);
     }
 
-    static class Route implements Comparable<Route> {
-        private final Player player;
-        private final Position destination;
-        private final int distance;
-        public Route(Player player, Position destination, int distance) {
-            this.player = player;
-            this.destination = destination;
-            this.distance = distance;
-        }
-        public Player getPlayer() {
-            return player;
-        }
-        public Position getDestination() {
-            return destination;
-        }
-        public int getDistance() {
-            return distance;
-        }
-        @Override
-        public int compareTo(Route o) {
-            return distance - o.getDistance();
-        }
-    }
-
-    static class MoveImpl implements Move {
-        private UUID playerId;
-        private Direction direction;
-        MoveImpl(UUID playerId, Direction direction) {
-            this.playerId = playerId;
-            this.direction = direction;
-        }
-        @Override
-        public UUID getPlayer() {
-            return playerId;
-        }
-        @Override
-        public Direction getDirection() {
-            return direction;
-        }
-    }
-
 }
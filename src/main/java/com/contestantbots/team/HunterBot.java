@@ -1,30 +1,18 @@
 package com.contestantbots.team;
 
 import com.contestantbots.util.GameStateLogger;
+import com.contestantbots.util.MoveTable;
+import com.contestantbots.util.PositionSet;
+import com.contestantbots.util.PositionTable;
+import com.contestantbots.util.RouteCache;
 import com.scottlogic.hackathon.client.Client;
 import com.scottlogic.hackathon.game.*;
 
 import java.util.*;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
 
 public class HunterBot extends Bot {
-    static class MoveImpl implements Move {
-        private UUID playerId;
-        private Direction direction;
-        public MoveImpl(UUID playerId, Direction direction) {
-            this.playerId = playerId;
-            this.direction = direction;
-        }
-        @Override
-        public UUID getPlayer() {
-            return playerId;
-        }
-        @Override
-        public Direction getDirection() {
-            return direction;
-        }
-    }
-
     class Group {
         Player leader;
         List<Player> followers;
@@ -44,27 +32,27 @@ public class HunterBot extends Bot {
             followers.add(player);
         }
 
-        public Move leaderMove(final GameState gameState, final List<Position> nextPositions) {
-            Move move = doMove(gameState, nextPositions, leader);
+        public Move leaderMove(final PositionSet nextPositions) {
+            Move move = doMove(nextPositions, leader);
             leaderPastDirections.addFirst(move.getDirection());
             leaderPastDirections.removeLast();
             return move;
         }
 
-        public List<Move> turnMoves(final GameState gameState, final List<Position> nextPositions) {
+        public List<Move> turnMoves(final PositionSet nextPositions) {
             List<Move> moves = new ArrayList<>();
             switch (followers.size()) {
                 case 0:
-                    moves.add(new MoveImpl(leader.getId(), Direction.WEST));
+                    moves.add(moveTable.get(leader.getId(), Direction.WEST));
                     break;
                 case 1:
-                    moves.add(new MoveImpl(leader.getId(), Direction.WEST));
-                    moves.add(new MoveImpl(followers.get(0).getId(), Direction.WEST));
+                    moves.add(moveTable.get(leader.getId(), Direction.WEST));
+                    moves.add(moveTable.get(followers.get(0).getId(), Direction.WEST));
                     break;
                 default:
-                    moves.add(new MoveImpl(followers.get(0).getId(), leaderPastDirections.getFirst()));
-                    moves.add(new MoveImpl(followers.get(1).getId(), leaderPastDirections.getLast()));
-                    moves.add(leaderMove(gameState, nextPositions));
+                    moves.add(moveTable.get(followers.get(0).getId(), leaderPastDirections.getFirst()));
+                    moves.add(moveTable.get(followers.get(1).getId(), leaderPastDirections.getLast()));
+                    moves.add(leaderMove(nextPositions));
                     break;
             }
             return moves;
@@ -72,15 +60,28 @@ public class HunterBot extends Bot {
     }
 
     private final GameStateLogger gameStateLogger;
+    private final MoveTable moveTable = new MoveTable();
+    private PositionSet outOfBounds;
+    private PositionSet nextPositions;
+    private PositionTable positionTable;
+    private RouteCache routeCache;
+    private final Set<Position> enemySpawnPoints = new HashSet<>();
 
     public HunterBot() {
         super("Hunter Bot");
         gameStateLogger = new GameStateLogger(getId());
     }
 
-    private boolean canMove(final GameState gameState, final List<Position> nextPositions, final Player player, final Direction direction) {
-        Set<Position> outOfBounds = gameState.getOutOfBoundsPositions();
-        Position newPosition = gameState.getMap().getNeighbour(player.getPosition(), direction);
+    @Override
+    public void initialise(final GameState initialGameState) {
+        outOfBounds = new PositionSet(initialGameState.getMap());
+        nextPositions = new PositionSet(initialGameState.getMap());
+        positionTable = PositionTable.forMap(initialGameState.getMap());
+        routeCache = new RouteCache(initialGameState.getMap());
+    }
+
+    private boolean canMove(final PositionSet nextPositions, final Player player, final Direction direction) {
+        int newPosition = nextPositions.neighbour(player.getPosition(), direction);
         if (!nextPositions.contains(newPosition)
                 && !outOfBounds.contains(newPosition)) {
             nextPositions.add(newPosition);
@@ -90,19 +91,72 @@ public class HunterBot extends Bot {
         }
     }
 
-    private Move doMove(final GameState gameState, final List<Position> nextPositions, final Player player) {
+    private Move doMove(final PositionSet nextPositions, final Player player) {
         List<Direction> directions = new ArrayList<>(Arrays.asList(Direction.values()));
         Direction direction;
         do {
             direction = directions.remove(ThreadLocalRandom.current().nextInt(directions.size()));
-        } while (!directions.isEmpty() && !canMove(gameState, nextPositions, player, direction));
-        return new MoveImpl(player.getId(), direction);
+        } while (!directions.isEmpty() && !canMove(nextPositions, player, direction));
+        return moveTable.get(player.getId(), direction);
+    }
+
+    /**
+     * Takes the next step of the cached route to the player's prey, or a random safe step if there is no prey or that
+     * step is taken.
+     */
+    private Move hunt(final PositionSet nextPositions, final Player player, final List<Position> prey) {
+        Optional<Position> target = prey.stream()
+                .min(Comparator.comparingInt(position -> distance(player.getPosition(), position)));
+        Optional<Direction> step = target
+                .flatMap(position -> routeCache.route(player.getPosition(), position))
+                .map(Route::directionIterator)
+                .filter(Iterator::hasNext)
+                .map(Iterator::next);
+        if (step.isPresent() && canMove(nextPositions, player, step.get())) {
+            return moveTable.get(player.getId(), step.get());
+        }
+        return doMove(nextPositions, player);
+    }
+
+    private int distance(final Position from, final Position to) {
+        return positionTable.distance(positionTable.index(from), positionTable.index(to));
+    }
+
+    /**
+     * @return the enemy spawn points seen and not yet destroyed, or if there are none the enemy players in view
+     */
+    private List<Position> findPrey(final GameState gameState) {
+        gameState.getRemovedSpawnPoints().forEach(spawnPoint -> enemySpawnPoints.remove(spawnPoint.getPosition()));
+        gameState.getSpawnPoints().stream()
+                .filter(spawnPoint -> !spawnPoint.getOwner().equals(getId()))
+                .forEach(spawnPoint -> enemySpawnPoints.add(spawnPoint.getPosition()));
+        if (!enemySpawnPoints.isEmpty()) {
+            return new ArrayList<>(enemySpawnPoints);
+        }
+        return gameState.getPlayers().stream()
+                .filter(player -> !isMyPlayer(player))
+                .map(Player::getPosition)
+                .collect(Collectors.toList());
     }
 
     @Override
     public List<Move> makeMoves(final GameState gameState) {
         gameStateLogger.process(gameState);
-        return new ArrayList<>();
+        moveTable.forget(gameState.getRemovedPlayers());
+        if (outOfBounds.addAll(gameState.getOutOfBoundsPositions())) {
+            routeCache.addOutOfBounds(gameState.getOutOfBoundsPositions());
+        }
+        nextPositions.clear();
+        List<Position> prey = findPrey(gameState);
+
+        return gameState.getPlayers().stream()
+                .filter(player -> isMyPlayer(player))
+                .map(player -> hunt(nextPositions, player, prey))
+                .collect(Collectors.toList());
+    }
+
+    private boolean isMyPlayer(final Player player) {
+        return player.getOwner().equals(getId());
     }
 
 
@@ -1,17 +1,18 @@
 package com.contestantbots.team;
 
+import com.contestantbots.util.AnytimeBot;
 import com.contestantbots.util.GameStateLogger;
+import com.contestantbots.util.PhaseDeadline;
 import com.scottlogic.hackathon.client.Client;
-import com.scottlogic.hackathon.game.Bot;
 import com.scottlogic.hackathon.game.GameState;
 import com.scottlogic.hackathon.game.Move;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
-public class MemeBot extends Bot {
+public class MemeBot extends AnytimeBot {
     private final GameStateLogger gameStateLogger;
-    private final long MaxTime = 4900000000L;
 
     public MemeBot() {
         super("Meme Bot");
@@ -19,15 +20,18 @@ public class MemeBot extends Bot {
     }
 
     @Override
-    public List<Move> makeMoves(final GameState gameState) {
-        long start = System.nanoTime();
+    protected List<Move> fallbackMoves(final GameState gameState) {
         gameStateLogger.process(gameState);
-        while (System.nanoTime() - start <= MaxTime) {
-
-        }
         return new ArrayList<>();
     }
 
+    @Override
+    protected Optional<List<Move>> refine(final GameState gameState, final List<Move> best, final int iteration,
+                                          final PhaseDeadline deadline) {
+        // nothing to improve on, so the phase ends as soon as the logger has run
+        return Optional.empty();
+    }
+
 
     /*
      * Run this main as a java application to test and debug your code within your IDE.
@@ -0,0 +1,145 @@
+package com.contestantbots.util;
+
+import com.scottlogic.hackathon.game.Bot;
+import com.scottlogic.hackathon.game.GameState;
+import com.scottlogic.hackathon.game.Move;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bot that always has a complete set of moves ready and improves on it for as long as the phase allows.
+ * <p>
+ * Each phase, {@link #fallbackMoves} is asked for a cheap plan that is safe to return straight away. After that
+ * {@link #refine} is called repeatedly, each time with the best plan so far, until it has nothing better to offer or
+ * the phase deadline (the time budget less a safety margin) has passed. The engine disqualifies bots that take longer
+ * than its {@code makeMovesTimeoutSeconds}, so the budget should stay well within that.
+ * <p>
+ * Every phase is timed in {@link #getMetrics()}, as are the fallback plan and each refinement, alongside the budget
+ * and the engine's timeout, and subclasses add timers for their own stages.
+ * <p>
+ * Once the moves are chosen, {@link #speculation} can hand back work towards the next phase for a
+ * {@link SpeculativePlanner} to run while the engine resolves this one. It is stopped before the next phase starts.
+ * The engine does not tell bots when the game is over, so whatever runs the game calls {@link #gameOver} once it is;
+ * otherwise the speculation thread stops itself after it has been idle for a while and the metrics are written when
+ * the JVM exits.
+ */
+public abstract class AnytimeBot extends Bot {
+    /**
+     * The engine's default {@code makeMovesTimeoutSeconds}.
+     */
+    public static final long ENGINE_TIMEOUT_MILLIS = 5000;
+    /**
+     * The time a bot is expected to take per phase.
+     */
+    public static final long DEFAULT_BUDGET_MILLIS = 500;
+    public static final long DEFAULT_SAFETY_MARGIN_MILLIS = 50;
+
+    private final long budgetMillis;
+    private final long safetyMarginMillis;
+    private final MetricsRegistry metrics;
+    private final MetricsRegistry.Timer makeMovesTimer;
+    private final MetricsRegistry.Timer fallbackTimer;
+    private final MetricsRegistry.Timer refineTimer;
+    private final LongAdder overBudget;
+    private SpeculativePlanner speculativePlanner;
+
+    protected AnytimeBot(final String displayName) {
+        this(displayName, DEFAULT_BUDGET_MILLIS, DEFAULT_SAFETY_MARGIN_MILLIS);
+    }
+
+    protected AnytimeBot(final String displayName, final long budgetMillis, final long safetyMarginMillis) {
+        super(displayName);
+        if (safetyMarginMillis < 0 || safetyMarginMillis >= budgetMillis) {
+            throw new IllegalArgumentException("safetyMarginMillis must be >= 0 and less than budgetMillis");
+        }
+        this.budgetMillis = budgetMillis;
+        this.safetyMarginMillis = safetyMarginMillis;
+        this.metrics = new MetricsRegistry(displayName);
+        this.makeMovesTimer = metrics.timer("makeMoves");
+        this.fallbackTimer = metrics.timer("makeMoves.fallback");
+        this.refineTimer = metrics.timer("makeMoves.refine");
+        this.overBudget = metrics.counter("makeMoves.overBudget");
+        metrics.gauge("budgetMillis", () -> budgetMillis);
+        metrics.gauge("engineTimeoutMillis", () -> ENGINE_TIMEOUT_MILLIS);
+    }
+
+    @Override
+    public List<Move> makeMoves(final GameState gameState) {
+        if (speculativePlanner == null) {
+            speculativePlanner = new SpeculativePlanner(getDisplayName(), SpeculativePlanner.isDebugMode(), metrics);
+        }
+        List<Move> best;
+        try (MetricsRegistry.Sample phase = makeMovesTimer.start()) {
+            PhaseDeadline deadline = new PhaseDeadline(budgetMillis - safetyMarginMillis, TimeUnit.MILLISECONDS);
+            speculativePlanner.reconcile();
+            best = fallbackTimer.time(() -> fallbackMoves(gameState));
+            for (int iteration = 0; !deadline.isExpired(); iteration++) {
+                Optional<List<Move>> refined;
+                MetricsRegistry.Sample sample = refineTimer.start();
+                try {
+                    refined = refine(gameState, best, iteration, deadline);
+                } finally {
+                    sample.close();
+                }
+                if (!refined.isPresent()) {
+                    break;
+                }
+                best = refined.get();
+            }
+            if (phase.elapsedNanos() > TimeUnit.MILLISECONDS.toNanos(budgetMillis)) {
+                overBudget.increment();
+            }
+        }
+        speculation(gameState, best).ifPresent(speculativePlanner::speculate);
+        return best;
+    }
+
+    /**
+     * Stops any speculation still running, lets its thread finish and writes the metrics if they were given a file.
+     * Call it once the game is over and the bot will not be asked for moves again.
+     */
+    public void gameOver() {
+        if (speculativePlanner != null) {
+            speculativePlanner.shutdown();
+        }
+        metrics.flush();
+    }
+
+    /**
+     * @return the metrics of this bot's game, which subclasses can add their own timers and counters to
+     */
+    protected MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Called first every phase, so this is also the place to update any state kept between phases.
+     *
+     * @return moves that can be returned as they are if there is no time for anything better
+     */
+    protected abstract List<Move> fallbackMoves(GameState gameState);
+
+    /**
+     * Tries to improve on the best plan found so far. Long-running refinements should check the deadline themselves
+     * and give up once it has expired.
+     *
+     * @param iteration how many times this has already been called this phase
+     * @return a better plan, or empty if there is nothing more to try this phase
+     */
+    protected abstract Optional<List<Move>> refine(GameState gameState, List<Move> best, int iteration,
+                                                   PhaseDeadline deadline);
+
+    /**
+     * Called after the moves for the phase are chosen, to get ahead on the next phase. The speculation may change the
+     * bot's state, but only in ways the next phase checks against the real game state, as it may be stopped part way.
+     *
+     * @param moves the moves about to be returned
+     * @return work to run before the next phase, or empty for none
+     */
+    protected Optional<SpeculativePlanner.Speculation> speculation(final GameState gameState, final List<Move> moves) {
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,44 @@
+package com.contestantbots.util;
+
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Strategy for matching players to targets so that each target is given to at most one player.
+ */
+public interface AssignmentSolver {
+    /**
+     * Cost returned for a player/target pair that must never be matched, e.g. because the target is unreachable.
+     */
+    int FORBIDDEN = Integer.MAX_VALUE;
+
+    int UNASSIGNED = -1;
+
+    /**
+     * @param players number of players, indexed from 0
+     * @param targets number of targets, indexed from 0
+     * @param cost    non-negative cost of sending a player to a target, or {@link #FORBIDDEN}
+     * @return the target index for each player, or {@link #UNASSIGNED}
+     */
+    int[] solve(int players, int targets, IntBinaryOperator cost);
+
+    /**
+     * As {@link #solve(int, int, IntBinaryOperator)}, but a solver that only considers each player's nearest targets
+     * may ask for them instead of trying every target. Solvers that need every cost ignore it.
+     */
+    default int[] solve(final int players, final int targets, final IntBinaryOperator cost,
+                        final NearestTargets nearest) {
+        return solve(players, targets, cost);
+    }
+
+    /**
+     * Lists the targets nearest a player, usually from a {@link SpatialIndex}, as candidates for the cheapest.
+     */
+    @FunctionalInterface
+    interface NearestTargets {
+        /**
+         * @param targets filled with up to {@code k} target indices, nearest first
+         * @return how many targets were found
+         */
+        int nearest(int player, int k, int[] targets);
+    }
+}
@@ -0,0 +1,16 @@
+package com.contestantbots.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The maps that ship with the game engine, as passed to {@code Arena.load} and {@code GameEngine.create}.
+ */
+public final class BundledMaps {
+    public static final List<String> NAMES = Collections.unmodifiableList(Arrays.asList(
+            "VeryEasy", "Easy", "Medium", "LargeMedium", "Hard"));
+
+    private BundledMaps() {
+    }
+}
@@ -0,0 +1,219 @@
+package com.contestantbots.util;
+
+import com.scottlogic.hackathon.game.GameMap;
+import com.scottlogic.hackathon.game.Position;
+
+import java.util.List;
+
+/**
+ * Where collectables have been seen to spawn, for sending idle players to wait where the next ones are likely.
+ * <p>
+ * The engine spawns each collectable on a random free tile that is more than
+ * {@code minCollectableDistanceFromSpawn} (8 by default) from every spawn point, so tiles that close to a known spawn
+ * point are never hot. A collectable counts as spawned only if it appears on a tile that was already in view last
+ * phase, rather than one that has just come into view. Each tile's heat is the number of spawns seen there, with
+ * every spawn counting for {@code decay} times less each phase after it. The decay is applied lazily when a tile is
+ * read or heated again, so a phase costs time only for the collectables in view and the tiles that have been hot.
+ * <p>
+ * Under the engine's uniform spawning the heat mostly shows where we have been watching, so {@link #isClustered} tells
+ * whether spawns come back to warm tiles more often than chance before the hot spots are worth acting on.
+ */
+public class CollectableHeatmap {
+    public static final int DEFAULT_EXCLUSION_RADIUS = 8;
+    public static final float DEFAULT_DECAY = 0.99f;
+
+    /**
+     * Heat below which a tile is forgotten, about 460 phases after a single spawn at the default decay.
+     */
+    private static final float MIN_HEAT = 0.01f;
+
+    /**
+     * Repeat spawns needed, and how many standard deviations above what uniform spawning would give, before the heat
+     * counts as a signal. The expected count is a Poisson mean, so its standard deviation is its square root.
+     */
+    private static final int MIN_REPEAT_SPAWNS = 8;
+    private static final double CLUSTER_Z = 3;
+
+    private final PositionTable positions;
+    private final int exclusionRadius;
+    private final double logDecay;
+    private final float[] heat;
+    private final int[] heatedAt;
+    private final PositionSet hotTiles;
+    private final PositionSet previousCollectables;
+    private int[] previousTiles = new int[16];
+    private int previousCount;
+    private final SmallestK hottest = new SmallestK();
+    private int phase;
+    private int spawnsSeen;
+    private int repeatSpawns;
+    private double expectedRepeatSpawns;
+
+    public CollectableHeatmap(final GameMap map) {
+        this(map, DEFAULT_EXCLUSION_RADIUS, DEFAULT_DECAY);
+    }
+
+    public CollectableHeatmap(final GameMap map, final int exclusionRadius, final float decay) {
+        if (decay <= 0 || decay > 1) {
+            throw new IllegalArgumentException("decay must be in (0, 1]");
+        }
+        this.positions = PositionTable.forMap(map);
+        this.exclusionRadius = exclusionRadius;
+        this.logDecay = Math.log(decay);
+        this.heat = new float[positions.size()];
+        this.heatedAt = new int[positions.size()];
+        this.hotTiles = new PositionSet(map);
+        this.previousCollectables = new PositionSet(map);
+    }
+
+    /**
+     * Heats the tiles of collectables that spawned in view since last phase. Call it after the world model has been
+     * updated.
+     */
+    public void update(final WorldModel world) {
+        phase = world.getPhase();
+        // a player moves one step a phase, so anything this close to one of them was in view last phase too
+        int viewedLastPhase = world.getFogOfWar().getViewDistance() - 1;
+        List<Position> collectables = world.getCollectables();
+        double repeatChance = -1;
+        for (Position collectable : collectables) {
+            int tile = positions.index(collectable);
+            if (!previousCollectables.contains(tile) && world.distanceToOwnPlayer(tile) <= viewedLastPhase) {
+                if (repeatChance < 0) {
+                    repeatChance = repeatChance(world, viewedLastPhase);
+                }
+                expectedRepeatSpawns += repeatChance;
+                repeatSpawns += heat(tile) >= MIN_HEAT ? 1 : 0;
+                heat[tile] = heat(tile) + 1;
+                heatedAt[tile] = phase;
+                hotTiles.add(tile);
+                spawnsSeen++;
+            }
+        }
+
+        for (int i = 0; i < previousCount; i++) {
+            previousCollectables.remove(previousTiles[i]);
+        }
+        if (previousTiles.length < collectables.size()) {
+            previousTiles = new int[Math.max(collectables.size(), previousTiles.length * 2)];
+        }
+        previousCount = 0;
+        for (Position collectable : collectables) {
+            int tile = positions.index(collectable);
+            previousCollectables.add(tile);
+            previousTiles[previousCount++] = tile;
+        }
+    }
+
+    /**
+     * @return the decayed number of collectables seen to spawn on the tile
+     */
+    public float heat(final int tile) {
+        if (!hotTiles.contains(tile)) {
+            return 0;
+        }
+        return (float) (heat[tile] * Math.exp(logDecay * (phase - heatedAt[tile])));
+    }
+
+    public float heat(final Position position) {
+        return heat(positions.index(position));
+    }
+
+    /**
+     * @return the number of collectables seen to spawn so far, without decay
+     */
+    public int getSpawnsSeen() {
+        return spawnsSeen;
+    }
+
+    /**
+     * @return how many of the spawns seen were on a tile that was still warm from an earlier one
+     */
+    public int getRepeatSpawns() {
+        return repeatSpawns;
+    }
+
+    /**
+     * @return how many repeat spawns there would have been, on average, if every tile in view were as likely as any
+     * other
+     */
+    public double getExpectedRepeatSpawns() {
+        return expectedRepeatSpawns;
+    }
+
+    /**
+     * Whether the heat says more than where we happened to be watching: collectables have come back to warm tiles
+     * significantly more often than they would if every tile in view were as likely, which is how the engine spawns
+     * them by default. Until then {@link #hotSpots} are no better than any other tile in view.
+     */
+    public boolean isClustered() {
+        return repeatSpawns >= MIN_REPEAT_SPAWNS
+                && repeatSpawns > expectedRepeatSpawns + CLUSTER_Z * Math.sqrt(expectedRepeatSpawns);
+    }
+
+    /**
+     * @return {@code true} if the tile is too close to one of the world model's spawn points for a collectable to
+     * spawn there
+     */
+    public boolean isExcluded(final int tile, final WorldModel world) {
+        for (Position spawnPoint : world.getOwnSpawnPoints()) {
+            if (positions.distance(tile, positions.index(spawnPoint)) <= exclusionRadius) {
+                return true;
+            }
+        }
+        return world.getEnemySpawnPointIndex().countWithin(tile, exclusionRadius) > 0;
+    }
+
+    /**
+     * Finds the hottest tiles where a collectable could still spawn, forgetting tiles that have cooled off.
+     *
+     * @param tiles filled with up to {@code k} tiles, indexed like {@link PositionSet}, hottest first
+     * @param minHeat the least heat a tile needs to be returned
+     * @return how many tiles were found
+     */
+    public int hotSpots(final int k, final float minHeat, final int[] tiles, final WorldModel world) {
+        if (k <= 0) {
+            return 0;
+        }
+        hottest.reset(k);
+        for (int tile = hotTiles.nextIndex(0); tile >= 0; tile = hotTiles.nextIndex(tile + 1)) {
+            float tileHeat = heat(tile);
+            if (tileHeat < MIN_HEAT) {
+                hotTiles.remove(tile);
+                continue;
+            }
+            if (tileHeat < minHeat || isExcluded(tile, world)) {
+                continue;
+            }
+            // non-negative floats order the same as their bits, so hotter tiles pack to smaller keys
+            hottest.offer(((long) (Integer.MAX_VALUE - Float.floatToIntBits(tileHeat)) << 32) | tile);
+        }
+        for (int i = 0; i < hottest.size(); i++) {
+            tiles[i] = hottest.id(i);
+        }
+        return hottest.size();
+    }
+
+    /**
+     * @return the chance that a collectable spawning uniformly where it would be counted lands on a warm tile. Spawns
+     * only count within {@code viewedLastPhase} of a player, so the tiles in view are scaled down to that square's
+     * share of a lone player's view. Overlapping views have a larger share, so that part never overstates the area.
+     * Tiles where nothing can spawn, out of bounds or near spawn points, still count, which the margin in
+     * {@link #isClustered} has to allow for
+     */
+    private double repeatChance(final WorldModel world, final int viewedLastPhase) {
+        int viewDistance = world.getFogOfWar().getViewDistance();
+        double share = Math.pow((2.0 * viewedLastPhase + 1) / (2.0 * viewDistance + 1), 2);
+        double counted = world.getFogOfWar().getVisibleCount() * share;
+        if (counted < 1) {
+            return 0;
+        }
+        int warm = 0;
+        for (int tile = hotTiles.nextIndex(0); tile >= 0; tile = hotTiles.nextIndex(tile + 1)) {
+            if (heat(tile) >= MIN_HEAT && world.distanceToOwnPlayer(tile) <= viewedLastPhase) {
+                warm++;
+            }
+        }
+        return Math.min(1, warm / counted);
+    }
+}
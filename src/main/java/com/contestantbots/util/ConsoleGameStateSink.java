@@ -0,0 +1,161 @@
+package com.contestantbots.util;
+
+import com.scottlogic.hackathon.game.Player;
+import com.scottlogic.hackathon.game.SpawnPoint;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Renders snapshots as the human-readable report {@link GameStateLogger} has always printed.
+ */
+public class ConsoleGameStateSink implements GameStateSink {
+    private final UUID botId;
+    private final PrintStream out;
+
+    public ConsoleGameStateSink(UUID botId) {
+        this(botId, System.out);
+    }
+
+    public ConsoleGameStateSink(UUID botId, PrintStream out) {
+        this.botId = botId;
+        this.out = out;
+    }
+
+    @Override
+    public void write(GameStateSnapshot snapshot) {
+        StringBuilder output = new StringBuilder();
+        if (snapshot.getLevel() == GameStateLogger.Level.SUMMARY) {
+            renderSummary(snapshot, output);
+        } else {
+            render(snapshot, output);
+        }
+        out.print(output);
+    }
+
+    private void renderSummary(GameStateSnapshot snapshot, StringBuilder output) {
+        long friendlyPlayers = Arrays.stream(snapshot.getPlayers())
+                .filter(player -> player.getOwner().equals(botId))
+                .count();
+        long friendlySpawnPoints = Arrays.stream(snapshot.getSpawnPoints())
+                .filter(spawnPoint -> spawnPoint.getOwner().equals(botId))
+                .count();
+        output.append("turn: ").append(snapshot.getPhase())
+                .append(" | players: ").append(friendlyPlayers).append(" friendly, ")
+                .append(snapshot.getPlayerCount() - friendlyPlayers).append(" enemy, ")
+                .append(snapshot.getRemovedPlayers().length).append(" removed")
+                .append(" | spawn points: ").append(friendlySpawnPoints).append(" friendly, ")
+                .append(snapshot.getSpawnPoints().length - friendlySpawnPoints).append(" enemy")
+                .append(" | collectables: ").append(snapshot.getCollectableCount())
+                .append(" | out of bounds: ").append(snapshot.getOutOfBoundsCount())
+                .append("\n");
+    }
+
+    private void render(GameStateSnapshot snapshot, StringBuilder output) {
+        renderSeparator(output, true);
+        output.append("turn: ").append(snapshot.getPhase()).append("\n")
+                .append("map: ").append(snapshot.getWidth()).append(" wide by ").append(snapshot.getHeight()).append(" high\n");
+        renderSeparator(output, true);
+
+        output.append("Out of Bounds");
+        if (snapshot.getOutOfBounds().length == 0) {
+            output.append(": none visible");
+        } else {
+            Arrays.stream(snapshot.getOutOfBounds()).forEach(outOfBound -> output.append("\n").append(outOfBound));
+        }
+        output.append("\n");
+        renderSeparator(output, true);
+
+        renderSpawnPoints(snapshot, output);
+        renderPlayers(snapshot, output);
+
+        output.append("Collectables");
+        if (snapshot.getCollectables().length == 0) {
+            output.append(": none visible");
+        } else {
+            Arrays.stream(snapshot.getCollectables()).forEach(collectable -> output.append("\n").append(collectable));
+        }
+        output.append("\n");
+        renderSeparator(output, true);
+        output.append("\n\n");
+    }
+
+    private void renderSpawnPoints(GameStateSnapshot snapshot, StringBuilder output) {
+        List<SpawnPoint> friendlySpawnPoints = Arrays.stream(snapshot.getSpawnPoints())
+                .filter(spawnPoint -> spawnPoint.getOwner().equals(botId))
+                .collect(Collectors.toList());
+        List<SpawnPoint> enemySpawnPoints = Arrays.stream(snapshot.getSpawnPoints())
+                .filter(spawnPoint -> !spawnPoint.getOwner().equals(botId))
+                .collect(Collectors.toList());
+        SpawnPoint[] removedSpawnPoints = snapshot.getRemovedSpawnPoints();
+
+        output.append("SpawnPoints\n");
+        output.append("Friendly");
+        if (friendlySpawnPoints.isEmpty()) {
+            output.append(": none");
+        } else {
+            friendlySpawnPoints.forEach(spawnPoint -> output.append("\n").append(spawnPoint));
+        }
+        output.append("\n");
+        renderSeparator(output, false);
+        output.append("Enemy");
+        if (enemySpawnPoints.isEmpty()) {
+            output.append(": none visible");
+        } else {
+            enemySpawnPoints.forEach(spawnPoint -> output.append("\n").append(spawnPoint));
+        }
+        output.append("\n");
+        renderSeparator(output, false);
+        output.append("Removed");
+        if (removedSpawnPoints.length == 0) {
+            output.append(": none");
+        } else {
+            Arrays.stream(removedSpawnPoints).forEach(spawnPoint -> output.append("\n").append(spawnPoint));
+        }
+        output.append("\n");
+        renderSeparator(output, true);
+    }
+
+    private void renderPlayers(GameStateSnapshot snapshot, StringBuilder output) {
+        List<Player> friendlyPlayers = Arrays.stream(snapshot.getPlayers())
+                .filter(player -> player.getOwner().equals(botId))
+                .collect(Collectors.toList());
+        List<Player> enemyPlayers = Arrays.stream(snapshot.getPlayers())
+                .filter(player -> !player.getOwner().equals(botId))
+                .collect(Collectors.toList());
+        Player[] removedPlayers = snapshot.getRemovedPlayers();
+
+        output.append("Players\n");
+        output.append("Friendly");
+        friendlyPlayers.forEach(player -> output.append("\n").append(player));
+        output.append("\n");
+        renderSeparator(output, false);
+        output.append("Enemy");
+        if (enemyPlayers.isEmpty()) {
+            output.append(": none visible");
+        } else {
+            enemyPlayers.forEach(player -> output.append("\n").append(player));
+        }
+        output.append("\n");
+        renderSeparator(output, false);
+        output.append("Removed");
+        if (removedPlayers.length == 0) {
+            output.append(": none");
+        } else {
+            Arrays.stream(removedPlayers).forEach(player -> output.append("\n").append(player));
+        }
+        output.append("\n");
+        renderSeparator(output, true);
+    }
+
+    private void renderSeparator(StringBuilder output, boolean section) {
+        if (section) {
+            output.append("====================================================================================================\n");
+        } else {
+            output.append("----------------------------------------------------------------------------------------------------\n");
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.contestantbots.util;
+
+import com.scottlogic.hackathon.game.Direction;
+import com.scottlogic.hackathon.game.GameMap;
+import com.scottlogic.hackathon.game.Position;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Obstacle-aware distances between map positions.
+ * <p>
+ * Each destination gets a breadth-first distance table over the whole (wrapped) map, computed the first time it is
+ * asked for and kept in a bounded cache, so repeated {@link #distance} and {@link #firstStep} queries are O(1).
+ * Tiles that have not been seen yet are assumed to be passable; feed newly visible out-of-bounds positions in with
+ * {@link #addOutOfBounds(Collection)}, which drops any tables they invalidate.
+ */
+public class DistanceField {
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private static final int DEFAULT_MAX_CACHED_FIELDS = 256;
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final int width;
+    private final int height;
+    private final int[] neighbours;
+    private final PositionSet outOfBounds;
+    private final int[] queue;
+    private final Map<Integer, short[]> fields;
+
+    public DistanceField(final GameMap map, final Collection<Position> outOfBounds) {
+        this(map, outOfBounds, DEFAULT_MAX_CACHED_FIELDS);
+    }
+
+    public DistanceField(final GameMap map, final Collection<Position> outOfBounds, final int maxCachedFields) {
+        this.width = map.getWidth();
+        this.height = map.getHeight();
+        this.neighbours = new int[width * height * DIRECTIONS.length];
+        this.outOfBounds = new PositionSet(width, height);
+        this.queue = new int[width * height];
+        this.fields = new LinkedHashMap<Integer, short[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Integer, short[]> eldest) {
+                return size() > maxCachedFields;
+            }
+        };
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int index = y * width + x;
+                for (Direction direction : DIRECTIONS) {
+                    int nx = Math.floorMod(x + (direction.isEastward() ? 1 : direction.isWestward() ? -1 : 0), width);
+                    int ny = Math.floorMod(y + (direction.isSouthward() ? 1 : direction.isNorthward() ? -1 : 0), height);
+                    neighbours[index * DIRECTIONS.length + direction.ordinal()] = ny * width + nx;
+                }
+            }
+        }
+        addOutOfBounds(outOfBounds);
+    }
+
+    /**
+     * Records newly visible out-of-bounds positions.
+     *
+     * @return {@code true} if any of the positions were not already known, in which case cached tables are discarded
+     */
+    public boolean addOutOfBounds(final Collection<Position> positions) {
+        boolean changed = outOfBounds.addAll(positions);
+        if (changed) {
+            fields.clear();
+        }
+        return changed;
+    }
+
+    /**
+     * Computes the tables for the given destinations up front, e.g. from {@code Bot.initialise}.
+     */
+    public void prepare(final Collection<Position> destinations) {
+        destinations.forEach(this::field);
+    }
+
+    /**
+     * @return the number of moves needed to get from one position to another, or {@link #UNREACHABLE}
+     */
+    public int distance(final Position from, final Position to) {
+        short distance = field(to)[index(from)];
+        return distance < 0 ? UNREACHABLE : distance;
+    }
+
+    /**
+     * @return the first direction of a shortest route between the positions, or empty if already there or unreachable
+     */
+    public Optional<Direction> firstStep(final Position from, final Position to) {
+        short[] field = field(to);
+        int index = index(from);
+        int distance = field[index];
+        if (distance <= 0) {
+            return Optional.empty();
+        }
+        for (Direction direction : DIRECTIONS) {
+            if (field[neighbours[index * DIRECTIONS.length + direction.ordinal()]] == distance - 1) {
+                return Optional.of(direction);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private short[] field(final Position destination) {
+        int target = index(destination);
+        short[] field = fields.get(target);
+        if (field == null) {
+            field = search(target);
+            fields.put(target, field);
+        }
+        return field;
+    }
+
+    private short[] search(final int target) {
+        short[] field = new short[width * height];
+        Arrays.fill(field, (short) -1);
+        field[target] = 0;
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = target;
+        while (head < tail) {
+            int current = queue[head++];
+            short next = (short) (field[current] + 1);
+            int offset = current * DIRECTIONS.length;
+            for (int i = 0; i < DIRECTIONS.length; i++) {
+                int neighbour = neighbours[offset + i];
+                if (field[neighbour] < 0 && !outOfBounds.contains(neighbour)) {
+                    field[neighbour] = next;
+                    queue[tail++] = neighbour;
+                }
+            }
+        }
+        return field;
+    }
+
+    private int index(final Position position) {
+        return position.getY() * width + position.getX();
+    }
+}
@@ -0,0 +1,273 @@
+package com.contestantbots.util;
+
+import com.scottlogic.hackathon.game.Direction;
+import com.scottlogic.hackathon.game.GameMap;
+import com.scottlogic.hackathon.game.Position;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Distance from every tile to the nearest of a set of targets, and the direction to step to get there.
+ * <p>
+ * The field is built with one breadth-first search from all targets at once, so any number of players can read their
+ * next move in O(1). When {@link #setTargets} adds a target, the search is continued from it only as far as it
+ * improves on existing distances. When a target is removed, only the tiles that led to it are cleared and refilled
+ * from the tiles around them. Newly found out-of-bounds tiles can lengthen any route, so they cause a full rebuild
+ * the next time the field is read. A tile equally near several targets goes to the one with the lowest index, so the
+ * field comes out the same however it was reached.
+ * <p>
+ * Subclasses that keep something per tile in step with the field can override {@link #changed} to hear about every
+ * tile whose distance or nearest target is written.
+ */
+public class FlowField {
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final byte NONE = -1;
+
+    private final PositionSet outOfBounds;
+    private final PositionSet targets;
+    private final PositionSet wanted;
+    private final int[] distance;
+    private final int[] source;
+    private final byte[] direction;
+    private final int[] queue;
+    private final int[] seeds;
+    private final int[] queuedIn;
+    private int expansion;
+    private boolean stale;
+
+    public FlowField(final GameMap map) {
+        int area = map.getWidth() * map.getHeight();
+        this.outOfBounds = new PositionSet(map);
+        this.targets = new PositionSet(map);
+        this.wanted = new PositionSet(map);
+        this.distance = new int[area];
+        this.source = new int[area];
+        this.direction = new byte[area];
+        this.queue = new int[area];
+        this.seeds = new int[area];
+        this.queuedIn = new int[area];
+        Arrays.fill(distance, -1);
+        Arrays.fill(direction, NONE);
+    }
+
+    /**
+     * Records newly visible out-of-bounds positions.
+     *
+     * @return {@code true} if any of the positions were not already known
+     */
+    public boolean addOutOfBounds(final Collection<Position> positions) {
+        boolean changed = outOfBounds.addAll(positions);
+        stale |= changed;
+        return changed;
+    }
+
+    /**
+     * Replaces the targets, updating only the part of the field affected by the ones that were added or removed.
+     */
+    public void setTargets(final Collection<Position> positions) {
+        wanted.clear();
+        wanted.addAll(positions);
+        for (int target = targets.nextIndex(0); target >= 0; target = targets.nextIndex(target + 1)) {
+            if (!wanted.contains(target)) {
+                targets.remove(target);
+                if (!stale) {
+                    removeSource(target);
+                }
+            }
+        }
+        for (int target = wanted.nextIndex(0); target >= 0; target = wanted.nextIndex(target + 1)) {
+            if (targets.add(target) && !stale) {
+                addSource(target);
+            }
+        }
+    }
+
+    public int getTargetCount() {
+        return targets.size();
+    }
+
+    /**
+     * @return the number of moves from the position to the nearest target, or {@link #UNREACHABLE}
+     */
+    public int distance(final Position from) {
+        refresh();
+        int d = distance[outOfBounds.index(from)];
+        return d < 0 ? UNREACHABLE : d;
+    }
+
+    /**
+     * @return the first step towards the nearest target, or empty if there is none or the position is a target
+     */
+    public Optional<Direction> direction(final Position from) {
+        refresh();
+        byte d = direction[outOfBounds.index(from)];
+        return d == NONE ? Optional.empty() : Optional.of(DIRECTIONS[d]);
+    }
+
+    /**
+     * @return the nearest target, or empty if none can be reached
+     */
+    public Optional<Position> nearestTarget(final Position from) {
+        refresh();
+        int index = outOfBounds.index(from);
+        return distance[index] < 0 ? Optional.empty() : Optional.of(outOfBounds.position(source[index]));
+    }
+
+    /**
+     * @return the tile index of the nearest target to the tile, or -1 if none can be reached
+     */
+    protected int sourceOf(final int tile) {
+        refresh();
+        return distance[tile] < 0 ? -1 : source[tile];
+    }
+
+    /**
+     * Called whenever the tile's distance or nearest target is written, including when it is cleared. A full rebuild
+     * only reports the tiles that can still be reached.
+     */
+    protected void changed(final int tile) {
+    }
+
+    /**
+     * Rebuilds the whole field if out-of-bounds tiles were added since it was last read.
+     */
+    protected void refresh() {
+        if (!stale) {
+            return;
+        }
+        stale = false;
+        Arrays.fill(distance, -1);
+        Arrays.fill(direction, NONE);
+        int tail = 0;
+        for (int target = targets.nextIndex(0); target >= 0; target = targets.nextIndex(target + 1)) {
+            seed(target);
+            queue[tail++] = target;
+        }
+        expand(0, tail, 0);
+    }
+
+    private void addSource(final int target) {
+        if (distance[target] == 0) {
+            return;
+        }
+        seed(target);
+        queue[0] = target;
+        expand(0, 1, 0);
+    }
+
+    private void removeSource(final int target) {
+        if (distance[target] != 0 || source[target] != target) {
+            return;
+        }
+
+        // clear every tile whose nearest target was this one; each is reached from it through tiles that were too
+        int tail = 0;
+        queue[tail++] = target;
+        distance[target] = -1;
+        direction[target] = NONE;
+        changed(target);
+        for (int head = 0; head < tail; head++) {
+            int current = queue[head];
+            for (Direction step : DIRECTIONS) {
+                int neighbour = outOfBounds.neighbour(current, step);
+                if (distance[neighbour] > 0 && source[neighbour] == target) {
+                    distance[neighbour] = -1;
+                    direction[neighbour] = NONE;
+                    changed(neighbour);
+                    queue[tail++] = neighbour;
+                }
+            }
+        }
+
+        // refill them from the reachable tiles around the cleared area, nearest first, taking each tile once
+        int stamp = nextExpansion();
+        int seedCount = 0;
+        for (int i = 0; i < tail; i++) {
+            for (Direction step : DIRECTIONS) {
+                int neighbour = outOfBounds.neighbour(queue[i], step);
+                if (distance[neighbour] >= 0 && queuedIn[neighbour] != stamp) {
+                    queuedIn[neighbour] = stamp;
+                    seeds[seedCount++] = neighbour;
+                }
+            }
+        }
+        sortByDistance(seeds, seedCount);
+        System.arraycopy(seeds, 0, queue, 0, seedCount);
+        expand(0, seedCount, seedCount);
+    }
+
+    private void seed(final int target) {
+        distance[target] = 0;
+        source[target] = target;
+        direction[target] = NONE;
+        changed(target);
+    }
+
+    /**
+     * Breadth-first search from the tiles in {@code queue[head..tail)}. The first {@code sortedSeeds} entries are
+     * seeds at various distances, sorted nearest first; they are merged with the tiles found by the search so that
+     * tiles are still expanded in order of distance.
+     */
+    private void expand(final int head, final int tail, final int sortedSeeds) {
+        nextExpansion();
+        for (int i = head; i < tail; i++) {
+            queuedIn[queue[i]] = expansion;
+        }
+        int seed = head;
+        int frontHead = sortedSeeds;
+        int frontTail = tail;
+        while (seed < sortedSeeds || frontHead < frontTail) {
+            int current;
+            if (frontHead == frontTail
+                    || (seed < sortedSeeds && distance[queue[seed]] <= distance[queue[frontHead]])) {
+                current = queue[seed++];
+            } else {
+                current = queue[frontHead++];
+            }
+            int next = distance[current] + 1;
+            for (Direction step : DIRECTIONS) {
+                int neighbour = outOfBounds.neighbour(current, step);
+                int known = distance[neighbour];
+                if ((known < 0 || known > next || (known == next && source[current] < source[neighbour]))
+                        && !outOfBounds.contains(neighbour)) {
+                    distance[neighbour] = next;
+                    source[neighbour] = source[current];
+                    direction[neighbour] = (byte) step.getOpposite().ordinal();
+                    changed(neighbour);
+                    // a tile already waiting to be expanded only needed relabelling
+                    if (queuedIn[neighbour] != expansion) {
+                        queuedIn[neighbour] = expansion;
+                        queue[frontTail++] = neighbour;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return a fresh stamp for {@code queuedIn}, which no tile carries yet
+     */
+    private int nextExpansion() {
+        if (++expansion == Integer.MAX_VALUE) {
+            Arrays.fill(queuedIn, 0);
+            expansion = 1;
+        }
+        return expansion;
+    }
+
+    private void sortByDistance(final int[] tiles, final int count) {
+        // distances fit in 16 bits and tile indices in 32, so sort (distance, tile) pairs packed into longs
+        long[] packed = new long[count];
+        for (int i = 0; i < count; i++) {
+            packed[i] = (long) distance[tiles[i]] << 32 | tiles[i];
+        }
+        Arrays.sort(packed);
+        for (int i = 0; i < count; i++) {
+            tiles[i] = (int) packed[i];
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.contestantbots.util;
+
+import com.scottlogic.hackathon.game.Direction;
+import com.scottlogic.hackathon.game.GameMap;
+import com.scottlogic.hackathon.game.GameState;
+import com.scottlogic.hackathon.game.Player;
+import com.scottlogic.hackathon.game.Position;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Which tiles a bot can see, has seen, and when it last saw them.
+ * <p>
+ * Each tile counts how many of the bot's players currently have it in view. Players only move one step per phase, so
+ * instead of recomputing everyone's view square, {@link #update} only walks the row and column strips that enter and
+ * leave the view of each player that moved, and full squares for players that appeared or were removed. The frontier
+ * (unseen tiles next to seen ones) is kept up to date as tiles are first seen, which gives exploration a small target
+ * set without scanning the map.
+ */
+public class FogOfWar {
+    public static final int DEFAULT_VIEW_DISTANCE = 6;
+    public static final int NEVER = -1;
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final int width;
+    private final int height;
+    private final int viewDistance;
+    private final int[] viewCount;
+    private final int[] lastSeen;
+    private final PositionSet seen;
+    private final PositionSet frontier;
+    private final Map<UUID, Integer> viewers = new HashMap<>();
+    private final Map<UUID, Integer> current = new HashMap<>();
+    private int visibleCount;
+    private int phase;
+
+    public FogOfWar(final GameMap map) {
+        this(map, DEFAULT_VIEW_DISTANCE);
+    }
+
+    public FogOfWar(final GameMap map, final int viewDistance) {
+        this.width = map.getWidth();
+        this.height = map.getHeight();
+        this.viewDistance = viewDistance;
+        this.viewCount = new int[width * height];
+        this.lastSeen = new int[width * height];
+        this.seen = new PositionSet(width, height);
+        this.frontier = new PositionSet(width, height);
+        Arrays.fill(lastSeen, NEVER);
+    }
+
+    /**
+     * Moves each of the bot's players' view to where it is this phase.
+     */
+    public void update(final GameState gameState, final UUID botId) {
+        List<Player> ownPlayers = new ArrayList<>();
+        for (Player player : gameState.getPlayers()) {
+            if (player.getOwner().equals(botId)) {
+                ownPlayers.add(player);
+            }
+        }
+        update(gameState.getPhase(), ownPlayers);
+    }
+
+    /**
+     * Moves each of the bot's players' view to where it is this phase, given only the bot's own players.
+     */
+    public void update(final int phase, final Collection<Player> ownPlayers) {
+        this.phase = phase;
+        current.clear();
+        for (Player player : ownPlayers) {
+            current.put(player.getId(), seen.index(player.getPosition()));
+        }
+
+        for (Iterator<Map.Entry<UUID, Integer>> iterator = viewers.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<UUID, Integer> viewer = iterator.next();
+            Integer to = current.get(viewer.getKey());
+            if (to == null) {
+                square(viewer.getValue(), -1);
+                iterator.remove();
+            } else if (!to.equals(viewer.getValue())) {
+                move(viewer.getValue(), to);
+                viewer.setValue(to);
+            }
+        }
+        for (Map.Entry<UUID, Integer> player : current.entrySet()) {
+            if (viewers.putIfAbsent(player.getKey(), player.getValue()) == null) {
+                square(player.getValue(), 1);
+            }
+        }
+    }
+
+    public int getViewDistance() {
+        return viewDistance;
+    }
+
+    public boolean isVisible(final Position position) {
+        return viewCount[seen.index(position)] > 0;
+    }
+
+    public boolean isSeen(final Position position) {
+        return seen.contains(position);
+    }
+
+    /**
+     * @return the last phase the tile was in view, the current phase if it is in view now, or {@link #NEVER}
+     */
+    public int lastSeen(final Position position) {
+        int index = seen.index(position);
+        return viewCount[index] > 0 ? phase : lastSeen[index];
+    }
+
+    /**
+     * @return the tiles that have never been seen but are next to one that has; callers must not modify it
+     */
+    public PositionSet getFrontier() {
+        return frontier;
+    }
+
+    public int getSeenCount() {
+        return seen.size();
+    }
+
+    /**
+     * @return how many tiles are in view this phase
+     */
+    public int getVisibleCount() {
+        return visibleCount;
+    }
+
+    private void move(final int from, final int to) {
+        int dx = delta(seen.x(from), seen.x(to), width);
+        int dy = delta(seen.y(from), seen.y(to), height);
+        if (Math.abs(dx) > 1 || Math.abs(dy) > 1) {
+            square(from, -1);
+            square(to, 1);
+            return;
+        }
+        strips(to, dx, dy, 1);
+        strips(from, -dx, -dy, -1);
+    }
+
+    /**
+     * Adjusts the view counts of the tiles on the edge of a view square that faces in the direction (dx, dy).
+     */
+    private void strips(final int centre, final int dx, final int dy, final int change) {
+        int cx = seen.x(centre);
+        int cy = seen.y(centre);
+        if (dx != 0) {
+            int x = cx + dx * viewDistance;
+            for (int y = cy - viewDistance; y <= cy + viewDistance; y++) {
+                view(seen.index(x, y), change);
+            }
+        }
+        if (dy != 0) {
+            int y = cy + dy * viewDistance;
+            for (int x = cx - viewDistance; x <= cx + viewDistance; x++) {
+                if (dx == 0 || x != cx + dx * viewDistance) {
+                    view(seen.index(x, y), change);
+                }
+            }
+        }
+    }
+
+    private void square(final int centre, final int change) {
+        int cx = seen.x(centre);
+        int cy = seen.y(centre);
+        for (int y = cy - viewDistance; y <= cy + viewDistance; y++) {
+            for (int x = cx - viewDistance; x <= cx + viewDistance; x++) {
+                view(seen.index(x, y), change);
+            }
+        }
+    }
+
+    private void view(final int index, final int change) {
+        int count = viewCount[index] += change;
+        if (change < 0 && count == 0) {
+            lastSeen[index] = phase - 1;
+            visibleCount--;
+        } else if (change > 0 && count == 1) {
+            lastSeen[index] = phase;
+            visibleCount++;
+            if (seen.add(index)) {
+                frontier.remove(index);
+                for (Direction direction : DIRECTIONS) {
+                    int neighbour = seen.neighbour(index, direction);
+                    if (!seen.contains(neighbour)) {
+                        frontier.add(neighbour);
+                    }
+                }
+            }
+        }
+    }
+
+    private static int delta(final int from, final int to, final int size) {
+        int delta = Math.floorMod(to - from, size);
+        return delta > size / 2 ? delta - size : delta;
+    }
+}
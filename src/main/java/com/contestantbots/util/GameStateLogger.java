@@ -1,132 +1,114 @@
 package com.contestantbots.util;
 
-import com.scottlogic.hackathon.game.Collectable;
 import com.scottlogic.hackathon.game.GameState;
-import com.scottlogic.hackathon.game.Player;
-import com.scottlogic.hackathon.game.Position;
-import com.scottlogic.hackathon.game.SpawnPoint;
 
-import java.util.List;
-import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Logs the state each bot receives at the start of a phase.
+ * <p>
+ * By default the full report is printed synchronously every phase. Alternatively the logger can be given a queue
+ * capacity, in which case {@link #process(GameState)} only takes a {@link GameStateSnapshot} and hands it to a
+ * background writer thread; if the writer falls behind and the queue is full, the snapshot is dropped rather than
+ * delaying the bot's moves.
+ */
 public class GameStateLogger {
-    private UUID botId;
-
-    public GameStateLogger(UUID botId) {
-        this.botId = botId;
+    public enum Level {
+        OFF,
+        SUMMARY,
+        FULL
     }
 
-    public void process(GameState gameState) {
-        renderSeparator(true);
-        System.out.println("turn: " + gameState.getPhase() + "\n" +
-                "map: " + gameState.getMap().getWidth() + " wide by " + gameState.getMap().getHeight() + " high");
-        renderSeparator(true);
+    private final Level level;
+    private final int samplePeriod;
+    private final GameStateSink sink;
+    private final BlockingQueue<GameStateSnapshot> queue;
+    private final AtomicLong dropped = new AtomicLong();
+    private Thread writer;
 
-        StringBuilder outOfBoundsOutput = new StringBuilder("Out of Bounds");
-        Set<Position> outOfBounds = gameState.getOutOfBoundsPositions();
-        if (outOfBounds.isEmpty()) {
-            outOfBoundsOutput.append(": none visible");
-        } else {
-            outOfBounds.forEach(outOfBound -> outOfBoundsOutput.append("\n").append(outOfBound));
-        }
-        System.out.println(outOfBoundsOutput);
-        renderSeparator(true);
+    public GameStateLogger(UUID botId) {
+        this(botId, Level.FULL, 1, 0);
+    }
 
-        renderSpawnPoints(gameState);
-        renderPlayers(gameState);
+    /**
+     * @param samplePeriod  only log every n-th phase
+     * @param queueCapacity number of snapshots that may wait for the background writer, or 0 to log synchronously
+     */
+    public GameStateLogger(UUID botId, Level level, int samplePeriod, int queueCapacity) {
+        this(level, samplePeriod, queueCapacity, new ConsoleGameStateSink(botId));
+    }
 
-        StringBuilder collectablesOutput = new StringBuilder("Collectables");
-        Set<Collectable> collectables = gameState.getCollectables();
-        if (collectables.isEmpty()) {
-            collectablesOutput.append(": none visible");
-        } else {
-            collectables.forEach(collectable -> collectablesOutput.append("\n").append(collectable));
+    public GameStateLogger(Level level, int samplePeriod, int queueCapacity, GameStateSink sink) {
+        if (samplePeriod < 1) {
+            throw new IllegalArgumentException("samplePeriod must be >= 1");
         }
-        System.out.println(collectablesOutput);
-        renderSeparator(true);
-        System.out.println();
-        System.out.println();
+        this.level = level;
+        this.samplePeriod = samplePeriod;
+        this.sink = sink;
+        this.queue = queueCapacity > 0 ? new ArrayBlockingQueue<>(queueCapacity) : null;
     }
 
-    private void renderSpawnPoints(GameState gameState) {
-        List<SpawnPoint> friendlySpawnPoints = gameState.getSpawnPoints()
-                .stream()
-                .filter(spawnPoint -> spawnPoint.getOwner().equals(botId))
-                .collect(Collectors.toList());
-        List<SpawnPoint> enemySpawnPoints = gameState.getSpawnPoints()
-                .stream()
-                .filter(spawnPoint -> !spawnPoint.getOwner().equals(botId))
-                .collect(Collectors.toList());
-        Set<SpawnPoint> removedSpawnPoints = gameState.getRemovedSpawnPoints();
-
-        System.out.println("SpawnPoints");
-        StringBuilder friendly = new StringBuilder("Friendly");
-        if (friendlySpawnPoints.isEmpty()) {
-            friendly.append(": none");
-        } else {
-            friendlySpawnPoints.forEach(spawnPoint -> friendly.append("\n").append(spawnPoint));
+    public void process(GameState gameState) {
+        if (level == Level.OFF || gameState.getPhase() % samplePeriod != 0) {
+            return;
         }
-        System.out.println(friendly);
-        renderSeparator(false);
-        StringBuilder enemy = new StringBuilder("Enemy");
-        if (enemySpawnPoints.isEmpty()) {
-            enemy.append(": none visible");
-        } else {
-            enemySpawnPoints.forEach(spawnPoint -> enemy.append("\n").append(spawnPoint));
+        GameStateSnapshot snapshot = new GameStateSnapshot(gameState, level);
+        if (queue == null) {
+            sink.write(snapshot);
+            return;
         }
-        System.out.println(enemy);
-        renderSeparator(false);
-        StringBuilder removed = new StringBuilder("Removed");
-        if (removedSpawnPoints.isEmpty()) {
-            removed.append(": none");
-        } else {
-            removedSpawnPoints.forEach(spawnPoint -> removed.append("\n").append(spawnPoint));
+        startWriter();
+        if (!queue.offer(snapshot)) {
+            dropped.incrementAndGet();
         }
-        System.out.println(removed);
-        renderSeparator(true);
     }
 
-    private void renderPlayers(GameState gameState) {
-        List<Player> friendlyPlayers = gameState.getPlayers()
-                .stream()
-                .filter(player -> player.getOwner().equals(botId))
-                .collect(Collectors.toList());
-        List<Player> enemyPlayers = gameState.getPlayers()
-                .stream()
-                .filter(player -> !player.getOwner().equals(botId))
-                .collect(Collectors.toList());
-        Set<Player> removedPlayers = gameState.getRemovedPlayers();
+    /**
+     * @return the number of snapshots discarded because the background writer's queue was full
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
 
-        System.out.println("Players");
-        StringBuilder friendly = new StringBuilder("Friendly");
-        friendlyPlayers.forEach(player -> friendly.append("\n").append(player));
-        System.out.println(friendly);
-        renderSeparator(false);
-        StringBuilder enemy = new StringBuilder("Enemy");
-        if (enemyPlayers.isEmpty()) {
-            enemy.append(": none visible");
-        } else {
-            enemyPlayers.forEach(player -> enemy.append("\n").append(player));
+    /**
+     * Writes out any queued snapshots and stops the background writer, waiting at most the given time.
+     */
+    public void close(long timeout, TimeUnit unit) throws InterruptedException {
+        Thread thread;
+        synchronized (this) {
+            thread = writer;
+            writer = null;
         }
-        System.out.println(enemy);
-        renderSeparator(false);
-        StringBuilder removed = new StringBuilder("Removed");
-        if (removedPlayers.isEmpty()) {
-            removed.append(": none");
-        } else {
-            removedPlayers.forEach(player -> removed.append("\n").append(player));
+        if (thread != null) {
+            thread.interrupt();
+            thread.join(unit.toMillis(timeout));
         }
-        System.out.println(removed);
-        renderSeparator(true);
     }
 
-    private void renderSeparator(boolean section) {
-        if (section) {
-            System.out.println("====================================================================================================");
-        } else {
-            System.out.println("----------------------------------------------------------------------------------------------------");
+    private synchronized void startWriter() {
+        if (writer != null) {
+            return;
+        }
+        writer = new Thread(this::drain, "game-state-logger");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private void drain() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                sink.write(queue.take());
+            }
+        } catch (InterruptedException e) {
+            // fall through and flush whatever is left
+        }
+        GameStateSnapshot snapshot;
+        while ((snapshot = queue.poll()) != null) {
+            sink.write(snapshot);
         }
     }
 }
@@ -0,0 +1,8 @@
+package com.contestantbots.util;
+
+/**
+ * Destination for the snapshots taken by {@link GameStateLogger}.
+ */
+public interface GameStateSink {
+    void write(GameStateSnapshot snapshot);
+}
@@ -0,0 +1,113 @@
+package com.contestantbots.util;
+
+import com.scottlogic.hackathon.game.Collectable;
+import com.scottlogic.hackathon.game.GameState;
+import com.scottlogic.hackathon.game.Player;
+import com.scottlogic.hackathon.game.Position;
+import com.scottlogic.hackathon.game.SpawnPoint;
+
+/**
+ * The parts of a {@link GameState} that the logger renders, copied cheaply so they can be rendered on another thread.
+ * <p>
+ * Only references are copied: the engine's players, spawn points and collectables are immutable value objects.
+ * At {@link GameStateLogger.Level#SUMMARY} the players, removed players and spawn points are still copied, since the
+ * summary splits them into friendly and enemy counts by owner, but the out-of-bounds positions and collectables are
+ * only counted.
+ */
+public class GameStateSnapshot {
+    private static final Position[] NO_POSITIONS = new Position[0];
+    private static final Player[] NO_PLAYERS = new Player[0];
+    private static final SpawnPoint[] NO_SPAWN_POINTS = new SpawnPoint[0];
+    private static final Collectable[] NO_COLLECTABLES = new Collectable[0];
+
+    private final GameStateLogger.Level level;
+    private final int phase;
+    private final int width;
+    private final int height;
+    private final int outOfBoundsCount;
+    private final int playerCount;
+    private final int collectableCount;
+    private final Position[] outOfBounds;
+    private final SpawnPoint[] spawnPoints;
+    private final SpawnPoint[] removedSpawnPoints;
+    private final Player[] players;
+    private final Player[] removedPlayers;
+    private final Collectable[] collectables;
+
+    GameStateSnapshot(final GameState gameState, final GameStateLogger.Level level) {
+        this.level = level;
+        this.phase = gameState.getPhase();
+        this.width = gameState.getMap().getWidth();
+        this.height = gameState.getMap().getHeight();
+        this.outOfBoundsCount = gameState.getOutOfBoundsPositions().size();
+        this.playerCount = gameState.getPlayers().size();
+        this.collectableCount = gameState.getCollectables().size();
+        if (level == GameStateLogger.Level.FULL) {
+            this.outOfBounds = gameState.getOutOfBoundsPositions().toArray(NO_POSITIONS);
+            this.spawnPoints = gameState.getSpawnPoints().toArray(NO_SPAWN_POINTS);
+            this.removedSpawnPoints = gameState.getRemovedSpawnPoints().toArray(NO_SPAWN_POINTS);
+            this.players = gameState.getPlayers().toArray(NO_PLAYERS);
+            this.removedPlayers = gameState.getRemovedPlayers().toArray(NO_PLAYERS);
+            this.collectables = gameState.getCollectables().toArray(NO_COLLECTABLES);
+        } else {
+            this.outOfBounds = NO_POSITIONS;
+            this.spawnPoints = gameState.getSpawnPoints().toArray(NO_SPAWN_POINTS);
+            this.removedSpawnPoints = NO_SPAWN_POINTS;
+            this.players = gameState.getPlayers().toArray(NO_PLAYERS);
+            this.removedPlayers = gameState.getRemovedPlayers().toArray(NO_PLAYERS);
+            this.collectables = NO_COLLECTABLES;
+        }
+    }
+
+    public GameStateLogger.Level getLevel() {
+        return level;
+    }
+
+    public int getPhase() {
+        return phase;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getOutOfBoundsCount() {
+        return outOfBoundsCount;
+    }
+
+    public int getPlayerCount() {
+        return playerCount;
+    }
+
+    public int getCollectableCount() {
+        return collectableCount;
+    }
+
+    public Position[] getOutOfBounds() {
+        return outOfBounds;
+    }
+
+    public SpawnPoint[] getSpawnPoints() {
+        return spawnPoints;
+    }
+
+    public SpawnPoint[] getRemovedSpawnPoints() {
+        return removedSpawnPoints;
+    }
+
+    public Player[] getPlayers() {
+        return players;
+    }
+
+    public Player[] getRemovedPlayers() {
+        return removedPlayers;
+    }
+
+    public Collectable[] getCollectables() {
+        return collectables;
+    }
+}
@@ -0,0 +1,114 @@
+package com.contestantbots.util;
+
+import java.util.Arrays;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Approximate assignment for large sets: each player only considers its k cheapest targets, and the resulting
+ * candidate pairs are matched cheapest-first. Players whose candidates were all taken by someone closer are then
+ * matched against whatever targets are left.
+ * <p>
+ * Given {@link NearestTargets}, each player's cheapest targets are looked for among its nearest few instead of among
+ * every target, so the first pass no longer grows with the number of targets.
+ */
+public class GreedyNearestSolver implements AssignmentSolver {
+    private static final int MAX_INDEX = 0xFFFF;
+    private static final int NEAREST_SPARE = 2;
+
+    private final int nearest;
+
+    public GreedyNearestSolver(final int nearest) {
+        if (nearest < 1) {
+            throw new IllegalArgumentException("nearest must be >= 1");
+        }
+        this.nearest = nearest;
+    }
+
+    @Override
+    public int[] solve(final int players, final int targets, final IntBinaryOperator cost) {
+        return solve(players, targets, cost, null);
+    }
+
+    @Override
+    public int[] solve(final int players, final int targets, final IntBinaryOperator cost,
+                      final NearestTargets nearestTargets) {
+        if (players > MAX_INDEX || targets > MAX_INDEX) {
+            throw new IllegalArgumentException("too many players or targets");
+        }
+        int[] assignment = new int[players];
+        Arrays.fill(assignment, UNASSIGNED);
+        if (players == 0 || targets == 0) {
+            return assignment;
+        }
+
+        int k = Math.min(nearest, targets);
+        long[] candidates = new long[players * k];
+        int candidateCount = 0;
+        int[] bestCosts = new int[k];
+        int[] bestTargets = new int[k];
+        // the nearest targets are not always the cheapest, so look at a few more than are kept
+        int[] nearby = nearestTargets != null ? new int[Math.min(k * NEAREST_SPARE, targets)] : null;
+        for (int player = 0; player < players; player++) {
+            int found = 0;
+            int candidateTargets = nearby != null ? nearestTargets.nearest(player, nearby.length, nearby) : targets;
+            for (int i = 0; i < candidateTargets; i++) {
+                int target = nearby != null ? nearby[i] : i;
+                int value = cost.applyAsInt(player, target);
+                if (value == FORBIDDEN || (found == k && value >= bestCosts[k - 1])) {
+                    continue;
+                }
+                int slot = found < k ? found++ : k - 1;
+                while (slot > 0 && bestCosts[slot - 1] > value) {
+                    bestCosts[slot] = bestCosts[slot - 1];
+                    bestTargets[slot] = bestTargets[slot - 1];
+                    slot--;
+                }
+                bestCosts[slot] = value;
+                bestTargets[slot] = target;
+            }
+            for (int i = 0; i < found; i++) {
+                candidates[candidateCount++] = pack(bestCosts[i], player, bestTargets[i]);
+            }
+        }
+
+        Arrays.sort(candidates, 0, candidateCount);
+        boolean[] taken = new boolean[targets];
+        int assigned = 0;
+        for (int i = 0; i < candidateCount && assigned < targets; i++) {
+            int player = (int) (candidates[i] >>> 16) & MAX_INDEX;
+            int target = (int) candidates[i] & MAX_INDEX;
+            if (assignment[player] == UNASSIGNED && !taken[target]) {
+                assignment[player] = target;
+                taken[target] = true;
+                assigned++;
+            }
+        }
+
+        for (int player = 0; player < players && assigned < targets; player++) {
+            if (assignment[player] != UNASSIGNED) {
+                continue;
+            }
+            int bestTarget = UNASSIGNED;
+            int bestCost = FORBIDDEN;
+            for (int target = 0; target < targets; target++) {
+                if (!taken[target]) {
+                    int value = cost.applyAsInt(player, target);
+                    if (value < bestCost) {
+                        bestCost = value;
+                        bestTarget = target;
+                    }
+                }
+            }
+            if (bestTarget != UNASSIGNED) {
+                assignment[player] = bestTarget;
+                taken[bestTarget] = true;
+                assigned++;
+            }
+        }
+        return assignment;
+    }
+
+    private static long pack(final int cost, final int player, final int target) {
+        return ((long) cost << 32) | ((long) player << 16) | target;
+    }
+}
@@ -0,0 +1,93 @@
+package com.contestantbots.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts of non-negative values (usually nanoseconds or bytes) in logarithmic buckets, for percentiles without
+ * keeping the values.
+ * <p>
+ * Each power of two is split into {@code 2^SUB_BUCKET_BITS} equal buckets, so a percentile is never off by more than
+ * an eighth of its value, and the whole range of {@code long} fits in under 500 counters. Recording is a few atomic
+ * increments and never blocks, so any number of threads can record into the same histogram.
+ */
+public class Histogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = SUB_BUCKETS + (Long.SIZE - 1 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * @param value the value to count; negative values are counted as 0
+     */
+    public void record(final long value) {
+        long clamped = Math.max(0, value);
+        counts.incrementAndGet(bucket(clamped));
+        count.increment();
+        sum.add(clamped);
+        if (clamped > max.get()) {
+            max.accumulateAndGet(clamped, Math::max);
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = getCount();
+        return n == 0 ? 0 : (double) getSum() / n;
+    }
+
+    /**
+     * @param quantile between 0 and 1, e.g. 0.99 for the 99th percentile
+     * @return the upper bound of the bucket holding the value at that quantile, at most the largest value recorded,
+     * or 0 if nothing has been recorded
+     */
+    public long percentile(final double quantile) {
+        long n = getCount();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * n));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank) {
+                return Math.min(upperBound(bucket), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    private static int bucket(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBound(final int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowerBound = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+}
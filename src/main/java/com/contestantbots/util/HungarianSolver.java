@@ -0,0 +1,93 @@
+package com.contestantbots.util;
+
+import java.util.Arrays;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Minimum total cost assignment using the Hungarian algorithm with potentials.
+ * <p>
+ * Runs in O(n<sup>2</sup>m) for n = min(players, targets) and m = max(players, targets), so it is meant for the
+ * small-to-medium sets that {@link TargetAssigner} hands it.
+ */
+public class HungarianSolver implements AssignmentSolver {
+    private static final long INFINITY = Long.MAX_VALUE / 4;
+    private static final int FORBIDDEN_COST = 1 << 24;
+
+    @Override
+    public int[] solve(final int players, final int targets, final IntBinaryOperator cost) {
+        int[] assignment = new int[players];
+        Arrays.fill(assignment, UNASSIGNED);
+        if (players == 0 || targets == 0) {
+            return assignment;
+        }
+
+        boolean transposed = players > targets;
+        int n = transposed ? targets : players;
+        int m = transposed ? players : targets;
+        int[] matrix = new int[n * m];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < m; j++) {
+                int value = transposed ? cost.applyAsInt(j, i) : cost.applyAsInt(i, j);
+                matrix[i * m + j] = value == FORBIDDEN ? FORBIDDEN_COST : Math.min(value, FORBIDDEN_COST - 1);
+            }
+        }
+
+        long[] u = new long[n + 1];
+        long[] v = new long[m + 1];
+        int[] match = new int[m + 1];
+        int[] way = new int[m + 1];
+        long[] minimum = new long[m + 1];
+        boolean[] used = new boolean[m + 1];
+        for (int i = 1; i <= n; i++) {
+            match[0] = i;
+            int column = 0;
+            Arrays.fill(minimum, INFINITY);
+            Arrays.fill(used, false);
+            do {
+                used[column] = true;
+                int row = match[column];
+                long delta = INFINITY;
+                int next = 0;
+                for (int j = 1; j <= m; j++) {
+                    if (!used[j]) {
+                        long reduced = matrix[(row - 1) * m + j - 1] - u[row] - v[j];
+                        if (reduced < minimum[j]) {
+                            minimum[j] = reduced;
+                            way[j] = column;
+                        }
+                        if (minimum[j] < delta) {
+                            delta = minimum[j];
+                            next = j;
+                        }
+                    }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (used[j]) {
+                        u[match[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minimum[j] -= delta;
+                    }
+                }
+                column = next;
+            } while (match[column] != 0);
+            do {
+                int previous = way[column];
+                match[column] = match[previous];
+                column = previous;
+            } while (column != 0);
+        }
+
+        for (int j = 1; j <= m; j++) {
+            int i = match[j];
+            if (i != 0 && matrix[(i - 1) * m + j - 1] != FORBIDDEN_COST) {
+                if (transposed) {
+                    assignment[j - 1] = i - 1;
+                } else {
+                    assignment[i - 1] = j - 1;
+                }
+            }
+        }
+        return assignment;
+    }
+}
@@ -0,0 +1,411 @@
+package com.contestantbots.util;
+
+import com.scottlogic.hackathon.game.Direction;
+import com.scottlogic.hackathon.game.GameState;
+import com.scottlogic.hackathon.game.Player;
+import com.scottlogic.hackathon.game.Position;
+import com.scottlogic.hackathon.game.SpawnPoint;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * What a whole map looks like before a game starts: every out-of-bounds tile, the spawn points, and the narrow
+ * passages between them.
+ * <p>
+ * For the maps that ship with the engine, {@link MapKnowledgePrecompute} writes it to a file per map ahead of time, and
+ * {@link #forGame} memory-maps the one that matches the game instead of computing it in {@code Bot.initialise}. A bot
+ * only sees the map around its own players, so a file matches if it has the same dimensions, the bot's spawn point is
+ * one of its spawn points, and it agrees with every tile in view. For any other map the analysis is computed from what
+ * is visible, which is less useful but keeps the same interface.
+ * <pre>
+ * header:        int MAGIC, short VERSION, int width, int height, long fingerprint
+ * out of bounds: long[(width * height + 63) / 64] bitset, one bit per tile index
+ * spawn points:  int count, int tile...
+ * chokepoints:   int count, int tile...
+ * </pre>
+ * The fingerprint hashes the dimensions and the out-of-bounds tiles. Walking distances and which spawn point reaches
+ * each tile first are left out: once the obstacles are known, {@link DistanceField} and {@link Territory} work them
+ * out exactly, and the territories also follow spawn points being destroyed.
+ */
+public class MapKnowledge {
+    public static final String DIRECTORY_PROPERTY = "contestantbots.mapknowledge.dir";
+    public static final String RESOURCE_DIRECTORY = "/mapknowledge/";
+    public static final String FILE_EXTENSION = ".mapknowledge";
+
+    static final int MAGIC = 0x4D41504B;
+    static final short VERSION = 2;
+
+    private static final int CHOKEPOINT_RADIUS = 3;
+    private static final int VIEW_DISTANCE = FogOfWar.DEFAULT_VIEW_DISTANCE;
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final ByteBuffer buffer;
+    private final boolean precomputed;
+    private final PositionSet tiles;
+    private final long fingerprint;
+    private final int outOfBoundsOffset;
+    private final int[] spawnPoints;
+    private final int[] chokepoints;
+
+    private MapKnowledge(final ByteBuffer buffer, final boolean precomputed) throws IOException {
+        this.buffer = buffer;
+        this.precomputed = precomputed;
+        if (buffer.remaining() < 4 + 2 + 4 + 4 + 8 || buffer.getInt(0) != MAGIC) {
+            throw new IOException("not a map knowledge file");
+        }
+        if (buffer.getShort(4) != VERSION) {
+            throw new IOException("unsupported map knowledge version " + buffer.getShort(4));
+        }
+        this.tiles = new PositionSet(buffer.getInt(6), buffer.getInt(10));
+        this.fingerprint = buffer.getLong(14);
+        int area = tiles.getWidth() * tiles.getHeight();
+        this.outOfBoundsOffset = 22;
+
+        int offset = outOfBoundsOffset + 8 * ((area + 63) / 64);
+        this.spawnPoints = readInts(offset);
+        offset += 4 + 4 * spawnPoints.length;
+        this.chokepoints = readInts(offset);
+    }
+
+    /**
+     * Finds the precomputed knowledge for the map being played, or computes what it can from the initial game state
+     * if there is none, or if more than one map looks the same from the bot's spawn point.
+     *
+     * @see #candidates
+     */
+    public static MapKnowledge forGame(final GameState initialGameState, final UUID botId) {
+        List<MapKnowledge> candidates = candidates(initialGameState, botId);
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+
+        List<Position> ownSpawnPoints = new ArrayList<>();
+        for (SpawnPoint spawnPoint : initialGameState.getSpawnPoints()) {
+            if (spawnPoint.getOwner().equals(botId)) {
+                ownSpawnPoints.add(spawnPoint.getPosition());
+            }
+        }
+        return compute(initialGameState.getMap().getWidth(), initialGameState.getMap().getHeight(),
+                initialGameState.getOutOfBoundsPositions(), ownSpawnPoints, false);
+    }
+
+    /**
+     * Finds every precomputed map that {@link #matches} the game: the files in the directory given by the
+     * {@value #DIRECTORY_PROPERTY} system property if it is set, or otherwise the ones the build packages on the
+     * classpath under {@value #RESOURCE_DIRECTORY}. Several maps can look the same around a spawn point; a bot can
+     * narrow them down with {@link #matches} as it sees more of the map.
+     */
+    public static List<MapKnowledge> candidates(final GameState gameState, final UUID botId) {
+        List<MapKnowledge> candidates = new ArrayList<>();
+        String directory = System.getProperty(DIRECTORY_PROPERTY);
+        if (directory != null) {
+            try (DirectoryStream<Path> listing = Files.newDirectoryStream(Paths.get(directory),
+                    "*" + FILE_EXTENSION)) {
+                for (Path file : listing) {
+                    addIfMatches(candidates, () -> map(file), gameState, botId);
+                }
+            } catch (IOException e) {
+                // an unreadable directory is no worse than none: every map is unknown
+            }
+            return candidates;
+        }
+
+        for (String name : BundledMaps.NAMES) {
+            URL resource = MapKnowledge.class.getResource(RESOURCE_DIRECTORY + name + FILE_EXTENSION);
+            if (resource != null) {
+                addIfMatches(candidates, () -> load(resource), gameState, botId);
+            }
+        }
+        return candidates;
+    }
+
+    private static void addIfMatches(final List<MapKnowledge> candidates, final Loader loader,
+                                     final GameState gameState, final UUID botId) {
+        try {
+            MapKnowledge knowledge = loader.load();
+            if (knowledge.matches(gameState, botId)) {
+                candidates.add(knowledge);
+            }
+        } catch (IOException | IndexOutOfBoundsException e) {
+            // a corrupt or truncated file is skipped, as if the map were unknown
+        }
+    }
+
+    /**
+     * Memory-maps a resource from a classes directory, as when run from the build. A resource inside a jar may be
+     * compressed, so that one is read onto the heap instead.
+     */
+    private static MapKnowledge load(final URL resource) throws IOException {
+        if ("file".equals(resource.getProtocol())) {
+            try {
+                return map(Paths.get(resource.toURI()));
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+        }
+        try (InputStream in = resource.openStream()) {
+            return new MapKnowledge(ByteBuffer.wrap(readAll(in)), true);
+        }
+    }
+
+    /**
+     * Memory-maps a file written by {@link #write}.
+     */
+    public static MapKnowledge map(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new MapKnowledge(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), true);
+        }
+    }
+
+    /**
+     * Analyses a map whose out-of-bounds tiles and spawn points are all known.
+     */
+    public static MapKnowledge compute(final int width, final int height, final Collection<Position> outOfBounds,
+                                       final List<Position> spawnPoints) {
+        return compute(width, height, outOfBounds, spawnPoints, true);
+    }
+
+    public void write(final Path file) throws IOException {
+        ByteBuffer contents = buffer.duplicate();
+        contents.clear();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (contents.hasRemaining()) {
+                channel.write(contents);
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} if this was loaded from a precomputed file, so it covers the whole map rather than only
+     * what was visible at the start
+     */
+    public boolean isPrecomputed() {
+        return precomputed;
+    }
+
+    public int getWidth() {
+        return tiles.getWidth();
+    }
+
+    public int getHeight() {
+        return tiles.getHeight();
+    }
+
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    public boolean isOutOfBounds(final Position position) {
+        return isOutOfBounds(tiles.index(position));
+    }
+
+    public Set<Position> getOutOfBoundsPositions() {
+        Set<Position> positions = new HashSet<>();
+        for (int tile = 0; tile < tiles.getWidth() * tiles.getHeight(); tile++) {
+            if (isOutOfBounds(tile)) {
+                positions.add(tiles.position(tile));
+            }
+        }
+        return positions;
+    }
+
+    public List<Position> getSpawnPoints() {
+        return positions(spawnPoints);
+    }
+
+    /**
+     * @return the tiles in passages at most five tiles across
+     */
+    public List<Position> getChokepoints() {
+        return positions(chokepoints);
+    }
+
+    /**
+     * @return {@code true} if this map agrees with every tile in view of the bot's players, and each of the bot's spawn
+     * points is one of its spawn points. A spawn point gives no view of its own, so once the players have left it the
+     * tiles around it are no longer checked.
+     */
+    public boolean matches(final GameState gameState, final UUID botId) {
+        if (gameState.getMap().getWidth() != getWidth() || gameState.getMap().getHeight() != getHeight()) {
+            return false;
+        }
+        PositionSet visibleOutOfBounds = new PositionSet(getWidth(), getHeight());
+        visibleOutOfBounds.addAll(gameState.getOutOfBoundsPositions());
+        Set<Integer> spawnTiles = new HashSet<>();
+        for (int spawnPoint : spawnPoints) {
+            spawnTiles.add(spawnPoint);
+        }
+        for (SpawnPoint spawnPoint : gameState.getSpawnPoints()) {
+            if (spawnPoint.getOwner().equals(botId)) {
+                if (!spawnTiles.contains(tiles.index(spawnPoint.getPosition()))) {
+                    return false;
+                }
+            }
+        }
+        for (Player player : gameState.getPlayers()) {
+            if (player.getOwner().equals(botId)
+                    && !agreesAround(tiles.index(player.getPosition()), visibleOutOfBounds)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean agreesAround(final int centre, final PositionSet visibleOutOfBounds) {
+        for (int dy = -VIEW_DISTANCE; dy <= VIEW_DISTANCE; dy++) {
+            for (int dx = -VIEW_DISTANCE; dx <= VIEW_DISTANCE; dx++) {
+                int tile = tiles.index(tiles.x(centre) + dx, tiles.y(centre) + dy);
+                if (isOutOfBounds(tile) != visibleOutOfBounds.contains(tile)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean isOutOfBounds(final int tile) {
+        return (buffer.getLong(outOfBoundsOffset + 8 * (tile >>> 6)) & (1L << tile)) != 0;
+    }
+
+    private int[] readInts(final int offset) {
+        int[] values = new int[buffer.getInt(offset)];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = buffer.getInt(offset + 4 + 4 * i);
+        }
+        return values;
+    }
+
+    private List<Position> positions(final int[] indices) {
+        List<Position> positions = new ArrayList<>(indices.length);
+        for (int index : indices) {
+            positions.add(tiles.position(index));
+        }
+        return Collections.unmodifiableList(positions);
+    }
+
+    private static byte[] readAll(final InputStream in) throws IOException {
+        byte[] bytes = new byte[1 << 16];
+        int length = 0;
+        for (int read; (read = in.read(bytes, length, bytes.length - length)) >= 0; ) {
+            length += read;
+            if (length == bytes.length) {
+                bytes = Arrays.copyOf(bytes, 2 * bytes.length);
+            }
+        }
+        return Arrays.copyOf(bytes, length);
+    }
+
+    private static MapKnowledge compute(final int width, final int height, final Collection<Position> outOfBounds,
+                                        final List<Position> spawnPoints, final boolean precomputed) {
+        PositionSet tiles = new PositionSet(width, height);
+        PositionSet blocked = new PositionSet(width, height);
+        blocked.addAll(outOfBounds);
+        int area = width * height;
+
+        int[] chokepoints = chokepoints(tiles, blocked);
+
+        int size = 4 + 2 + 4 + 4 + 8 + 8 * ((area + 63) / 64) + 4 + 4 * spawnPoints.size() + 4 + 4 * chokepoints.length;
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC).putShort(VERSION).putInt(width).putInt(height)
+                .putLong(fingerprint(width, height, blocked));
+        for (int word = 0; word < (area + 63) / 64; word++) {
+            long bits = 0;
+            for (int bit = 0; bit < 64 && word * 64 + bit < area; bit++) {
+                if (blocked.contains(word * 64 + bit)) {
+                    bits |= 1L << bit;
+                }
+            }
+            buffer.putLong(bits);
+        }
+        buffer.putInt(spawnPoints.size());
+        for (Position spawnPoint : spawnPoints) {
+            buffer.putInt(tiles.index(spawnPoint));
+        }
+        buffer.putInt(chokepoints.length);
+        for (int chokepoint : chokepoints) {
+            buffer.putInt(chokepoint);
+        }
+        buffer.flip();
+        try {
+            return new MapKnowledge(buffer, precomputed);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A hash of the dimensions and the out-of-bounds tiles, to tell maps apart.
+     */
+    static long fingerprint(final int width, final int height, final PositionSet outOfBounds) {
+        long hash = 0xcbf29ce484222325L;
+        hash = (hash ^ width) * 0x100000001b3L;
+        hash = (hash ^ height) * 0x100000001b3L;
+        for (int tile = outOfBounds.nextIndex(0); tile >= 0; tile = outOfBounds.nextIndex(tile + 1)) {
+            hash = (hash ^ tile) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Finds the tiles in passages narrow enough to be held by a few players: those with out-of-bounds tiles within
+     * {@link #CHOKEPOINT_RADIUS} on both sides along a row, column or diagonal. The maps are open enough that there are
+     * no single tiles whose loss would split them, so narrowness is the useful measure.
+     */
+    private static int[] chokepoints(final PositionSet tiles, final PositionSet blocked) {
+        int area = tiles.getWidth() * tiles.getHeight();
+        int[] points = new int[area];
+        int count = 0;
+        for (int tile = 0; tile < area; tile++) {
+            if (blocked.contains(tile)) {
+                continue;
+            }
+            for (int axis = 0; axis < DIRECTIONS.length / 2; axis++) {
+                Direction direction = DIRECTIONS[axis];
+                if (blockedWithin(tiles, blocked, tile, direction)
+                        && blockedWithin(tiles, blocked, tile, direction.getOpposite())) {
+                    points[count++] = tile;
+                    break;
+                }
+            }
+        }
+        return Arrays.copyOf(points, count);
+    }
+
+    private static boolean blockedWithin(final PositionSet tiles, final PositionSet blocked, final int from,
+                                         final Direction direction) {
+        int tile = from;
+        for (int step = 0; step < CHOKEPOINT_RADIUS; step++) {
+            tile = tiles.neighbour(tile, direction);
+            if (blocked.contains(tile)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Opens a file or resource, for {@link #candidates} to skip it the same way whichever it is if it cannot be read.
+     */
+    private interface Loader {
+        MapKnowledge load() throws IOException;
+    }
+}
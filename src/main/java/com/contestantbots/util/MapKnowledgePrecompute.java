@@ -0,0 +1,47 @@
+package com.contestantbots.util;
+
+import com.scottlogic.hackathon.game.Position;
+import com.scottlogic.hackathon.game.engine.maps.Arena;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Writes a {@link MapKnowledge} file for each of the maps that ship with the engine.
+ * <p>
+ * Run it with {@code gradlew precomputeMapKnowledge}, or {@code gradlew run
+ * -PmainClass=com.contestantbots.util.MapKnowledgePrecompute --args="[output directory] [map...]"}. The output
+ * directory defaults to {@value #DEFAULT_DIRECTORY}; the build packages the files the task writes onto the classpath,
+ * where {@link MapKnowledge#forGame} finds them, and a bot run some other way can be pointed at a directory with the
+ * {@value MapKnowledge#DIRECTORY_PROPERTY} system property.
+ */
+public class MapKnowledgePrecompute {
+    public static final String DEFAULT_DIRECTORY = "build/mapknowledge";
+
+    public static void main(String[] args) throws Exception {
+        Path directory = Paths.get(args.length > 0 ? args[0] : DEFAULT_DIRECTORY);
+        List<String> maps = args.length > 1 ? Arrays.asList(args).subList(1, args.length) : BundledMaps.NAMES;
+        Files.createDirectories(directory);
+
+        for (String name : maps) {
+            long start = System.nanoTime();
+            Arena arena = Arena.load(name);
+            List<Position> spawnPoints = arena.getSpawnPointPositions().stream()
+                    .sorted(Comparator.comparingInt(Position::getY).thenComparingInt(Position::getX))
+                    .collect(Collectors.toList());
+            MapKnowledge knowledge = MapKnowledge.compute(arena.getWidth(), arena.getHeight(),
+                    arena.getOutOfBoundsPositions(), spawnPoints);
+            Path file = directory.resolve(name + MapKnowledge.FILE_EXTENSION);
+            knowledge.write(file);
+            System.out.printf("%-12s %dx%d fingerprint %016x, %d spawn points, %d chokepoints, %d bytes in %d ms%n",
+                    name, arena.getWidth(), arena.getHeight(), knowledge.getFingerprint(),
+                    knowledge.getSpawnPoints().size(), knowledge.getChokepoints().size(), Files.size(file),
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+}
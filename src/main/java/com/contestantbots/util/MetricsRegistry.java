@@ -0,0 +1,271 @@
+package com.contestantbots.util;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Named timers, counters and gauges for one bot in one game, written out as JSON so that the stages of
+ * {@code makeMoves} can be compared against each other and against the engine's timeout.
+ * <p>
+ * Timers keep a {@link Histogram} of their durations and, where the JVM can count them, of the bytes the timing
+ * thread allocated meanwhile. Everything is safe to update from any thread without locking. Metrics are created the
+ * first time they are asked for, so callers should look them up once and keep them.
+ */
+public class MetricsRegistry {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetricsRegistry.class);
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean ALLOCATION_SUPPORTED = isAllocationSupported();
+    /**
+     * Registries still waiting to be written, held weakly so that a bot whose game is over can be collected even if
+     * nothing ever flushed it.
+     */
+    private static final Set<MetricsRegistry> UNWRITTEN = Collections.newSetFromMap(new WeakHashMap<>());
+    private static boolean shutdownHookAdded;
+
+    private final String name;
+    private final Map<String, Timer> timers = new ConcurrentSkipListMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentSkipListMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentSkipListMap<>();
+    private volatile Path output;
+
+    public MetricsRegistry(final String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Timer timer(final String name) {
+        return timers.computeIfAbsent(name, key -> new Timer());
+    }
+
+    public LongAdder counter(final String name) {
+        return counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    /**
+     * Reports the supplier's value whenever the metrics are written, e.g. a configured limit to compare timers with.
+     */
+    public void gauge(final String name, final LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    /**
+     * Writes the metrics to the file on {@link #flush}, or when the JVM exits if nothing flushes them first. The engine
+     * does not tell bots when their game is over, so whatever runs the game should flush them; one shutdown hook
+     * covers every registry that is still reachable then, without keeping any of them alive.
+     */
+    public void writeOnGameOver(final Path file) {
+        output = file;
+        synchronized (UNWRITTEN) {
+            UNWRITTEN.add(this);
+            if (!shutdownHookAdded) {
+                Runtime.getRuntime().addShutdownHook(new Thread(MetricsRegistry::flushAll, "metrics"));
+                shutdownHookAdded = true;
+            }
+        }
+    }
+
+    /**
+     * Writes the metrics to the file given to {@link #writeOnGameOver}, if they have not been written yet.
+     */
+    public void flush() {
+        Path file = output;
+        boolean unwritten;
+        synchronized (UNWRITTEN) {
+            unwritten = UNWRITTEN.remove(this);
+        }
+        if (file == null || !unwritten) {
+            return;
+        }
+        try {
+            writeJson(file);
+        } catch (UncheckedIOException e) {
+            LOGGER.warn("Could not write metrics to {}", file, e.getCause());
+        }
+    }
+
+    private static void flushAll() {
+        List<MetricsRegistry> registries;
+        synchronized (UNWRITTEN) {
+            registries = new ArrayList<>(UNWRITTEN);
+        }
+        registries.forEach(MetricsRegistry::flush);
+    }
+
+    public void writeJson(final Path file) {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            writeJson(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes every metric as one JSON object, with durations in milliseconds. The stream is left open.
+     */
+    public void writeJson(final OutputStream out) throws IOException {
+        JsonGenerator json = new JsonFactory().createGenerator(out, JsonEncoding.UTF8);
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        json.useDefaultPrettyPrinter();
+        json.writeStartObject();
+        json.writeStringField("name", name);
+
+        json.writeObjectFieldStart("timers");
+        for (Map.Entry<String, Timer> timer : timers.entrySet()) {
+            json.writeObjectFieldStart(timer.getKey());
+            Histogram durations = timer.getValue().durations;
+            json.writeNumberField("count", durations.getCount());
+            json.writeNumberField("totalMillis", durations.getSum() / NANOS_PER_MILLI);
+            json.writeNumberField("meanMillis", durations.getMean() / NANOS_PER_MILLI);
+            json.writeNumberField("p50Millis", durations.percentile(0.5) / NANOS_PER_MILLI);
+            json.writeNumberField("p99Millis", durations.percentile(0.99) / NANOS_PER_MILLI);
+            json.writeNumberField("maxMillis", durations.getMax() / NANOS_PER_MILLI);
+            if (ALLOCATION_SUPPORTED) {
+                Histogram allocations = timer.getValue().allocations;
+                json.writeNumberField("allocatedBytes", allocations.getSum());
+                json.writeNumberField("p50AllocatedBytes", allocations.percentile(0.5));
+                json.writeNumberField("p99AllocatedBytes", allocations.percentile(0.99));
+            }
+            json.writeEndObject();
+        }
+        json.writeEndObject();
+
+        json.writeObjectFieldStart("counters");
+        for (Map.Entry<String, LongAdder> counter : counters.entrySet()) {
+            json.writeNumberField(counter.getKey(), counter.getValue().sum());
+        }
+        json.writeEndObject();
+
+        json.writeObjectFieldStart("gauges");
+        for (Map.Entry<String, LongSupplier> gauge : gauges.entrySet()) {
+            json.writeNumberField(gauge.getKey(), gauge.getValue().getAsLong());
+        }
+        json.writeEndObject();
+
+        json.writeEndObject();
+        json.flush();
+    }
+
+    /**
+     * @return the bytes the current thread has allocated so far, or 0 if the JVM does not count them
+     */
+    private static long allocatedBytes() {
+        return ALLOCATION_SUPPORTED
+                ? ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId())
+                : 0;
+    }
+
+    private static boolean isAllocationSupported() {
+        try {
+            return THREADS instanceof com.sun.management.ThreadMXBean
+                    && ((com.sun.management.ThreadMXBean) THREADS).isThreadAllocatedMemorySupported()
+                    && ((com.sun.management.ThreadMXBean) THREADS).isThreadAllocatedMemoryEnabled();
+        } catch (NoClassDefFoundError | UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * How long something takes each time it runs, and how much it allocates.
+     */
+    public static final class Timer {
+        private final Histogram durations = new Histogram();
+        private final Histogram allocations = new Histogram();
+
+        /**
+         * Starts timing on the current thread; close the sample on the same thread. Prefer {@link #time} unless the
+         * sample is needed while it runs, as for its elapsed time, or the timed code throws checked exceptions.
+         */
+        public Sample start() {
+            return new Sample(this, System.nanoTime(), allocatedBytes());
+        }
+
+        /**
+         * Runs the action on the current thread and records how long it took, even if it throws.
+         */
+        public void time(final Runnable action) {
+            Sample sample = start();
+            try {
+                action.run();
+            } finally {
+                sample.close();
+            }
+        }
+
+        /**
+         * Gets the value on the current thread and records how long it took, even if it throws.
+         */
+        public <T> T time(final Supplier<T> action) {
+            Sample sample = start();
+            try {
+                return action.get();
+            } finally {
+                sample.close();
+            }
+        }
+
+        public void record(final long nanos, final long allocatedBytes) {
+            durations.record(nanos);
+            allocations.record(allocatedBytes);
+        }
+
+        public Histogram getDurations() {
+            return durations;
+        }
+
+        public Histogram getAllocations() {
+            return allocations;
+        }
+    }
+
+    /**
+     * One run of a {@link Timer}, recorded when it is closed.
+     */
+    public static final class Sample implements AutoCloseable {
+        private final Timer timer;
+        private final long startNanos;
+        private final long startBytes;
+
+        Sample(final Timer timer, final long startNanos, final long startBytes) {
+            this.timer = timer;
+            this.startNanos = startNanos;
+            this.startBytes = startBytes;
+        }
+
+        /**
+         * @return the nanoseconds since the sample was started
+         */
+        public long elapsedNanos() {
+            return System.nanoTime() - startNanos;
+        }
+
+        @Override
+        public void close() {
+            timer.record(elapsedNanos(), allocatedBytes() - startBytes);
+        }
+    }
+}
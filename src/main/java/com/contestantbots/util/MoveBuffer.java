@@ -0,0 +1,98 @@
+package com.contestantbots.util;
+
+import com.scottlogic.hackathon.game.Direction;
+import com.scottlogic.hackathon.game.Move;
+import com.scottlogic.hackathon.game.Player;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The moves being planned for one phase, held as a direction per player slot rather than as {@link Move} objects.
+ * <p>
+ * Players are given slots {@code 0..size-1} by {@link #reset} in the order they were passed in. Planning code sets
+ * and overwrites directions by slot, and {@link #toMoves} turns the result into shared moves from a {@link MoveTable}
+ * only once the plan is finished. The arrays grow as needed and are reused, so planning a phase does not allocate.
+ */
+public class MoveBuffer {
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final byte NONE = -1;
+
+    private final MoveTable moveTable;
+    private Player[] players = new Player[16];
+    private byte[] directions = new byte[16];
+    private int size;
+
+    public MoveBuffer(final MoveTable moveTable) {
+        this.moveTable = moveTable;
+    }
+
+    /**
+     * Clears every move and gives the players slots in iteration order.
+     */
+    public void reset(final Iterable<Player> slotPlayers) {
+        Arrays.fill(players, 0, size, null);
+        size = 0;
+        for (Player player : slotPlayers) {
+            if (size == players.length) {
+                players = Arrays.copyOf(players, size * 2);
+                directions = Arrays.copyOf(directions, size * 2);
+            }
+            players[size] = player;
+            directions[size] = NONE;
+            size++;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Player player(final int slot) {
+        return players[slot];
+    }
+
+    public boolean hasMove(final int slot) {
+        return directions[slot] != NONE;
+    }
+
+    /**
+     * @return the direction planned for the slot, or {@code null} if it has none yet
+     */
+    public Direction direction(final int slot) {
+        return directions[slot] == NONE ? null : DIRECTIONS[directions[slot]];
+    }
+
+    public void set(final int slot, final Direction direction) {
+        directions[slot] = (byte) direction.ordinal();
+    }
+
+    public void clear(final int slot) {
+        directions[slot] = NONE;
+    }
+
+    /**
+     * @return how many slots have a move
+     */
+    public int moveCount() {
+        int count = 0;
+        for (int slot = 0; slot < size; slot++) {
+            count += directions[slot] == NONE ? 0 : 1;
+        }
+        return count;
+    }
+
+    /**
+     * @return a move for every slot that has one, in slot order
+     */
+    public List<Move> toMoves() {
+        List<Move> moves = new ArrayList<>(size);
+        for (int slot = 0; slot < size; slot++) {
+            if (directions[slot] != NONE) {
+                moves.add(moveTable.get(players[slot].getId(), DIRECTIONS[directions[slot]]));
+            }
+        }
+        return moves;
+    }
+}
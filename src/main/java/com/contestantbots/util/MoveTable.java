@@ -0,0 +1,78 @@
+package com.contestantbots.util;
+
+import com.scottlogic.hackathon.game.Direction;
+import com.scottlogic.hackathon.game.Move;
+import com.scottlogic.hackathon.game.Player;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Immutable {@link Move}s shared between phases: each player gets one move per direction the first time it is asked
+ * for, and the same instances are handed out for the rest of its life.
+ * <p>
+ * Call {@link #forget} with {@code GameState.getRemovedPlayers()} each phase so the table only holds players that are
+ * still alive. Not thread-safe; keep one per bot.
+ */
+public class MoveTable {
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final Map<UUID, Move[]> moves = new HashMap<>();
+
+    public Move get(final UUID player, final Direction direction) {
+        Move[] playerMoves = moves.get(player);
+        if (playerMoves == null) {
+            playerMoves = new Move[DIRECTIONS.length];
+            for (Direction each : DIRECTIONS) {
+                playerMoves[each.ordinal()] = new MoveImpl(player, each);
+            }
+            moves.put(player, playerMoves);
+        }
+        return playerMoves[direction.ordinal()];
+    }
+
+    public Move get(final Player player, final Direction direction) {
+        return get(player.getId(), direction);
+    }
+
+    public void forget(final Collection<Player> removedPlayers) {
+        for (Player player : removedPlayers) {
+            moves.remove(player.getId());
+        }
+    }
+
+    public int size() {
+        return moves.size();
+    }
+
+    public void clear() {
+        moves.clear();
+    }
+
+    private static final class MoveImpl implements Move {
+        private final UUID playerId;
+        private final Direction direction;
+
+        MoveImpl(final UUID playerId, final Direction direction) {
+            this.playerId = playerId;
+            this.direction = direction;
+        }
+
+        @Override
+        public UUID getPlayer() {
+            return playerId;
+        }
+
+        @Override
+        public Direction getDirection() {
+            return direction;
+        }
+
+        @Override
+        public String toString() {
+            return playerId + " " + direction;
+        }
+    }
+}
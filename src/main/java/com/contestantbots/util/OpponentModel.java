@@ -0,0 +1,309 @@
+package com.contestantbots.util;
+
+import com.scottlogic.hackathon.game.Direction;
+import com.scottlogic.hackathon.game.GameMap;
+import com.scottlogic.hackathon.game.GameState;
+import com.scottlogic.hackathon.game.Player;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * How each opposing bot moves its players, learned from where its players have been, and where each visible enemy
+ * is likely to step next.
+ * <p>
+ * Every enemy gets a slot holding a ring buffer of its last few tiles. Slots are freed when the engine reports the
+ * player removed (or, for players lost from view, once their history is too old to be of use) and reused by the next
+ * enemy seen, so memory is bounded by the most enemies alive at once and a phase allocates nothing once the slots
+ * have grown to fit. Each step an enemy is seen to take counts towards its owner's {@link Pattern}: whether it closed
+ * on our nearest player, backed away, kept its heading, or none of those more often than chance. Counts decay so the
+ * pattern follows a bot that changes strategy. The prediction for an enemy is the step its owner's pattern makes
+ * most likely, or staying put when the owner looks random.
+ */
+public class OpponentModel {
+    public static final int DEFAULT_HISTORY = 8;
+    public static final int NONE = -1;
+
+    /**
+     * How an opposing bot's players tend to move.
+     */
+    public enum Pattern {
+        /**
+         * Not enough steps seen yet.
+         */
+        UNKNOWN,
+        /**
+         * No tendency stronger than chance, like the engine's Default bot.
+         */
+        RANDOM,
+        /**
+         * Keeps heading the same way.
+         */
+        MOMENTUM,
+        /**
+         * Closes on our players.
+         */
+        AGGRESSIVE,
+        /**
+         * Keeps away from our players.
+         */
+        EVASIVE
+    }
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final int STAY = DIRECTIONS.length;
+    private static final double DECAY = 0.98;
+    private static final double MIN_STEPS = 12;
+    /**
+     * The share of steps a tendency needs before it is believed: well above what random steps would give it.
+     */
+    private static final double TOWARD_THRESHOLD = 0.55;
+    private static final double MOMENTUM_THRESHOLD = 0.45;
+    private static final int STALE_PHASES = 32;
+
+    private final PositionTable positions;
+    private final int history;
+    private final Map<UUID, Integer> slots = new HashMap<>();
+    private final Map<UUID, OwnerStats> owners = new HashMap<>();
+    private UUID[] slotIds = new UUID[0];
+    private OwnerStats[] slotOwners = new OwnerStats[0];
+    private int[] tiles = new int[0];
+    private int[] phases = new int[0];
+    private int[] heads = new int[0];
+    private int[] lengths = new int[0];
+    private int[] predicted = new int[0];
+    private int[] freeSlots = new int[0];
+    private int freeCount;
+    private int slotCount;
+    private int phase;
+
+    public OpponentModel(final GameMap map) {
+        this(map, DEFAULT_HISTORY);
+    }
+
+    public OpponentModel(final GameMap map, final int history) {
+        if (history < 2) {
+            throw new IllegalArgumentException("history must be >= 2");
+        }
+        this.positions = PositionTable.forMap(map);
+        this.history = history;
+    }
+
+    /**
+     * Records where every visible enemy is this phase and predicts its next tile. Call it after the world model has
+     * been updated.
+     */
+    public void update(final GameState gameState, final WorldModel world) {
+        phase = world.getPhase();
+        for (Player removed : gameState.getRemovedPlayers()) {
+            Integer slot = slots.remove(removed.getId());
+            if (slot != null) {
+                release(slot);
+            }
+        }
+
+        for (Player enemy : world.getVisibleEnemies()) {
+            int slot = slot(enemy);
+            int tile = positions.index(enemy.getPosition());
+            observe(slot, tile, world);
+            push(slot, tile);
+            predicted[slot] = predict(slot, tile, world);
+        }
+
+        if (phase % STALE_PHASES == 0) {
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (slotIds[slot] != null && phase - lastPhase(slot) > STALE_PHASES) {
+                    slots.remove(slotIds[slot]);
+                    release(slot);
+                }
+            }
+        }
+    }
+
+    public Pattern getPattern(final UUID owner) {
+        OwnerStats stats = owners.get(owner);
+        return stats == null ? Pattern.UNKNOWN : stats.pattern;
+    }
+
+    /**
+     * @return the tile the enemy is most likely to be on next phase, indexed like {@link PositionSet}, or
+     * {@link #NONE} if it was not seen this phase
+     */
+    public int predictedTile(final UUID enemy) {
+        Integer slot = slots.get(enemy);
+        return slot == null || lastPhase(slot) != phase ? NONE : predicted[slot];
+    }
+
+    /**
+     * @return the tile the enemy is most likely to be on next phase, or where it is now if it was not seen this phase
+     */
+    public int predictedTile(final Player enemy) {
+        int tile = predictedTile(enemy.getId());
+        return tile != NONE ? tile : positions.index(enemy.getPosition());
+    }
+
+    /**
+     * @return how many enemies are being tracked
+     */
+    public int size() {
+        return slots.size();
+    }
+
+    /**
+     * Counts the step the enemy took since it was last seen, if it was seen last phase, towards its owner's pattern.
+     */
+    private void observe(final int slot, final int tile, final WorldModel world) {
+        if (lengths[slot] == 0 || lastPhase(slot) != phase - 1) {
+            return;
+        }
+        int from = tileAgo(slot, 0);
+        int step = step(from, tile);
+        if (step == NONE) {
+            return;
+        }
+        int previousStep = lengths[slot] >= 2 && phases[cell(slot, 1)] == phase - 2
+                ? step(tileAgo(slot, 1), from) : NONE;
+        int before = world.distanceToOwnPlayer(from);
+        int after = world.distanceToOwnPlayer(tile);
+        OwnerStats stats = slotOwners[slot];
+        stats.observe(step != STAY && after < before, step != STAY && after > before,
+                step != STAY && step == previousStep, previousStep != NONE && previousStep != STAY);
+    }
+
+    private int predict(final int slot, final int tile, final WorldModel world) {
+        OwnerStats stats = slotOwners[slot];
+        switch (stats.pattern) {
+            case MOMENTUM:
+                int lastStep = lengths[slot] >= 2 && phases[cell(slot, 1)] == phase - 1
+                        ? step(tileAgo(slot, 1), tile) : NONE;
+                return lastStep == NONE || lastStep == STAY ? tile
+                        : positions.neighbour(tile, DIRECTIONS[lastStep]);
+            case AGGRESSIVE:
+            case EVASIVE:
+                boolean closer = stats.pattern == Pattern.AGGRESSIVE;
+                int best = tile;
+                int bestDistance = world.distanceToOwnPlayer(tile);
+                for (Direction direction : DIRECTIONS) {
+                    int next = positions.neighbour(tile, direction);
+                    int distance = world.distanceToOwnPlayer(next);
+                    if (closer ? distance < bestDistance : distance > bestDistance) {
+                        best = next;
+                        bestDistance = distance;
+                    }
+                }
+                return best;
+            default:
+                return tile;
+        }
+    }
+
+    /**
+     * @return the {@link Direction} ordinal of the step between two tiles, {@link #STAY}, or {@link #NONE} if they
+     * are not neighbours
+     */
+    private int step(final int from, final int to) {
+        if (from == to) {
+            return STAY;
+        }
+        for (Direction direction : DIRECTIONS) {
+            if (positions.neighbour(from, direction) == to) {
+                return direction.ordinal();
+            }
+        }
+        return NONE;
+    }
+
+    private void push(final int slot, final int tile) {
+        heads[slot] = (heads[slot] + 1) % history;
+        tiles[slot * history + heads[slot]] = tile;
+        phases[slot * history + heads[slot]] = phase;
+        lengths[slot] = Math.min(lengths[slot] + 1, history);
+    }
+
+    /**
+     * @return the index of the entry {@code ago} entries before the newest one
+     */
+    private int cell(final int slot, final int ago) {
+        return slot * history + Math.floorMod(heads[slot] - ago, history);
+    }
+
+    private int tileAgo(final int slot, final int ago) {
+        return tiles[cell(slot, ago)];
+    }
+
+    private int lastPhase(final int slot) {
+        return lengths[slot] == 0 ? NONE : phases[cell(slot, 0)];
+    }
+
+    private int slot(final Player enemy) {
+        Integer existing = slots.get(enemy.getId());
+        if (existing != null) {
+            return existing;
+        }
+        int slot = freeCount > 0 ? freeSlots[--freeCount] : slotCount++;
+        ensureCapacity(slotCount);
+        slots.put(enemy.getId(), slot);
+        slotIds[slot] = enemy.getId();
+        slotOwners[slot] = owners.computeIfAbsent(enemy.getOwner(), owner -> new OwnerStats());
+        heads[slot] = 0;
+        lengths[slot] = 0;
+        return slot;
+    }
+
+    private void release(final int slot) {
+        slotIds[slot] = null;
+        slotOwners[slot] = null;
+        lengths[slot] = 0;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, Math.max(16, freeCount * 2));
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (slotIds.length < capacity) {
+            int length = Math.max(capacity, Math.max(16, slotIds.length * 2));
+            slotIds = Arrays.copyOf(slotIds, length);
+            slotOwners = Arrays.copyOf(slotOwners, length);
+            tiles = Arrays.copyOf(tiles, length * history);
+            phases = Arrays.copyOf(phases, length * history);
+            heads = Arrays.copyOf(heads, length);
+            lengths = Arrays.copyOf(lengths, length);
+            predicted = Arrays.copyOf(predicted, length);
+        }
+    }
+
+    /**
+     * Decaying counts of the kinds of step one opposing bot's players have been seen to take.
+     */
+    private static final class OwnerStats {
+        private double steps;
+        private double toward;
+        private double away;
+        private double moving;
+        private double sameHeading;
+        private Pattern pattern = Pattern.UNKNOWN;
+
+        void observe(final boolean closer, final boolean further, final boolean kept, final boolean wasMoving) {
+            steps = steps * DECAY + 1;
+            toward = toward * DECAY + (closer ? 1 : 0);
+            away = away * DECAY + (further ? 1 : 0);
+            moving = moving * DECAY + (wasMoving ? 1 : 0);
+            sameHeading = sameHeading * DECAY + (kept ? 1 : 0);
+
+            if (steps < MIN_STEPS) {
+                pattern = Pattern.UNKNOWN;
+            } else if (toward / steps >= TOWARD_THRESHOLD) {
+                pattern = Pattern.AGGRESSIVE;
+            } else if (away / steps >= TOWARD_THRESHOLD) {
+                pattern = Pattern.EVASIVE;
+            } else if (moving >= MIN_STEPS / 2 && sameHeading / moving >= MOMENTUM_THRESHOLD) {
+                pattern = Pattern.MOMENTUM;
+            } else {
+                pattern = Pattern.RANDOM;
+            }
+        }
+    }
+}
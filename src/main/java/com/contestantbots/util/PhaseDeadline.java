@@ -0,0 +1,31 @@
+package com.contestantbots.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The point in time by which a bot has to hand back its moves for the current phase.
+ */
+public class PhaseDeadline {
+    private final long start;
+    private final long deadline;
+
+    public PhaseDeadline(final long time, final TimeUnit unit) {
+        this.start = System.nanoTime();
+        this.deadline = start + unit.toNanos(time);
+    }
+
+    public boolean isExpired() {
+        return System.nanoTime() - deadline >= 0;
+    }
+
+    /**
+     * @return the time left before the deadline, or 0 if it has passed
+     */
+    public long remaining(final TimeUnit unit) {
+        return unit.convert(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    public long elapsed(final TimeUnit unit) {
+        return unit.convert(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,358 @@
+package com.contestantbots.util;
+
+import com.scottlogic.hackathon.game.Collectable;
+import com.scottlogic.hackathon.game.Direction;
+import com.scottlogic.hackathon.game.GameMap;
+import com.scottlogic.hackathon.game.GameState;
+import com.scottlogic.hackathon.game.Move;
+import com.scottlogic.hackathon.game.Player;
+import com.scottlogic.hackathon.game.SpawnPoint;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Predicts the next phase of the game from a {@link SimulatedState}, applying the engine's rules in the engine's order.
+ * <p>
+ * After everyone moves, players on out-of-bounds tiles are removed, then every player sharing a tile with another of
+ * the same owner. Battles are resolved simultaneously: a player is removed if any enemy within the battle radius has
+ * no more enemies in range than it has. Spawn points with an enemy standing on them are destroyed, collectables are
+ * picked up and queue a player at the collector's spawn point, and each spawn point spawns at most one queued player.
+ * Collectables the engine spawns at random are not predicted, and only the out-of-bounds tiles known to the state are
+ * treated as such.
+ * <p>
+ * A simulator keeps its own scratch buffers, so {@link #step} does not allocate once they have grown to fit the game;
+ * use one simulator per thread.
+ */
+public class PhaseSimulator {
+    public static final int DEFAULT_BATTLE_RADIUS = 2;
+    public static final int DEFAULT_SPAWN_PHASES = 8;
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final int NONE = -1;
+
+    private final PositionSet tiles;
+    private final int width;
+    private final int height;
+    private final int radius;
+    private final int spawnPhases;
+    private final int[] head;
+    private final int[] rows;
+    private final int[] columns;
+    private final int cellColumnCount;
+    private final int[] cellColumns;
+    private final int[] cellRows;
+    private final int[] cellOwners;
+    private int[] next = new int[0];
+    private int[] enemies = new int[0];
+    private boolean[] removed = new boolean[0];
+
+    public PhaseSimulator(final GameMap map) {
+        this(map, DEFAULT_BATTLE_RADIUS, DEFAULT_SPAWN_PHASES);
+    }
+
+    public PhaseSimulator(final GameMap map, final int battleRadius, final int spawnPhases) {
+        this.tiles = new PositionSet(map);
+        this.width = map.getWidth();
+        this.height = map.getHeight();
+        this.radius = battleRadius;
+        this.spawnPhases = spawnPhases;
+        this.head = new int[width * height];
+        this.rows = new int[2 * battleRadius + 1];
+        this.columns = new int[2 * battleRadius + 1];
+        Arrays.fill(head, NONE);
+
+        // the last cell in each row and column takes the remainder, so every cell is at least the battle radius wide
+        int cellSize = 2 * battleRadius + 1;
+        this.cellColumnCount = Math.max(1, width / cellSize);
+        int cellRowCount = Math.max(1, height / cellSize);
+        this.cellColumns = new int[width];
+        this.cellRows = new int[height];
+        for (int x = 0; x < width; x++) {
+            cellColumns[x] = Math.min(x / cellSize, cellColumnCount - 1);
+        }
+        for (int y = 0; y < height; y++) {
+            cellRows[y] = Math.min(y / cellSize, cellRowCount - 1) * cellColumnCount;
+        }
+        this.cellOwners = new int[cellColumnCount * cellRowCount];
+    }
+
+    /**
+     * Copies what the bot can see of the game into a new state, with every player staying where it is. Spawn points
+     * are assumed to have only their initial players still queued, since the players queued by collecting are not
+     * visible.
+     *
+     * @param outOfBounds the out-of-bounds tiles known so far; the state reads it but never modifies it
+     */
+    public SimulatedState load(final GameState gameState, final UUID botId, final PositionSet outOfBounds) {
+        Map<UUID, Integer> owners = new HashMap<>();
+        List<UUID> ownerIds = new ArrayList<>();
+        owners.put(botId, 0);
+        ownerIds.add(botId);
+        for (Player player : gameState.getPlayers()) {
+            owner(player.getOwner(), owners, ownerIds);
+        }
+        for (SpawnPoint spawnPoint : gameState.getSpawnPoints()) {
+            owner(spawnPoint.getOwner(), owners, ownerIds);
+        }
+
+        SimulatedState state = new SimulatedState(ownerIds.toArray(new UUID[0]), outOfBounds,
+                gameState.getPlayers().size() + 16, gameState.getSpawnPoints().size(),
+                gameState.getCollectables().size());
+        state.phase = gameState.getPhase();
+        for (Player player : gameState.getPlayers()) {
+            state.addPlayer(player.getId(), tiles.index(player.getPosition()), owners.get(player.getOwner()));
+        }
+        int queued = Math.max(0, spawnPhases - 1 - gameState.getPhase());
+        for (SpawnPoint spawnPoint : gameState.getSpawnPoints()) {
+            int i = state.spawnPointCount++;
+            state.spawnPointTiles[i] = tiles.index(spawnPoint.getPosition());
+            state.spawnPointOwners[i] = owners.get(spawnPoint.getOwner());
+            state.spawnPointQueues[i] = queued;
+        }
+        for (Collectable collectable : gameState.getCollectables()) {
+            state.collectableTiles[state.collectableCount++] = tiles.index(collectable.getPosition());
+        }
+        return state;
+    }
+
+    /**
+     * Sets the moves of the players in the state by id; players without a move stay where they are.
+     */
+    public void setMoves(final SimulatedState state, final Collection<Move> moves) {
+        Map<UUID, Direction> directions = new HashMap<>();
+        for (Move move : moves) {
+            directions.put(move.getPlayer(), move.getDirection());
+        }
+        for (int i = 0; i < state.playerCount; i++) {
+            Direction direction = directions.get(state.playerIds[i]);
+            state.moves[i] = direction == null ? SimulatedState.STAY : direction.ordinal();
+        }
+    }
+
+    /**
+     * Plays one phase with the moves set on the state, updating it in place. The surviving players keep their
+     * relative order, players spawned this phase are appended, and all moves are reset to stay.
+     */
+    public void step(final SimulatedState state) {
+        ensureCapacity(state.playerCount + state.spawnPointCount);
+
+        for (int i = 0; i < state.playerCount; i++) {
+            if (state.moves[i] != SimulatedState.STAY) {
+                state.playerTiles[i] = tiles.neighbour(state.playerTiles[i], DIRECTIONS[state.moves[i]]);
+            }
+            removed[i] = state.outOfBounds.contains(state.playerTiles[i]);
+        }
+        compact(state);
+
+        occupy(state);
+        for (int i = 0; i < state.playerCount; i++) {
+            for (int j = head[state.playerTiles[i]]; j != NONE; j = next[j]) {
+                if (j != i && state.playerOwners[j] == state.playerOwners[i]) {
+                    removed[i] = true;
+                    break;
+                }
+            }
+        }
+        vacate(state);
+        compact(state);
+
+        battle(state);
+        compact(state);
+
+        occupy(state);
+        captureSpawnPoints(state);
+        collect(state);
+        vacate(state);
+
+        for (int i = 0; i < state.spawnPointCount; i++) {
+            if (state.spawnPointQueues[i] > 0) {
+                state.spawnPointQueues[i]--;
+                state.addPlayer(null, state.spawnPointTiles[i], state.spawnPointOwners[i]);
+            }
+        }
+        state.clearMoves();
+        state.phase++;
+    }
+
+    /**
+     * Most players have no enemy anywhere near them, so before counting anyone's enemies tile by tile, each owner's
+     * presence is marked on a coarse grid of cells at least the battle radius wide: a player can only have enemies in
+     * range if some other owner is in its own or a neighbouring cell.
+     */
+    private void battle(final SimulatedState state) {
+        occupy(state);
+        boolean coarse = state.owners.length <= Integer.SIZE;
+        if (coarse) {
+            for (int i = 0; i < state.playerCount; i++) {
+                int tile = state.playerTiles[i];
+                cellOwners[cellRows[tile / width] + cellColumns[tile % width]] |= 1 << state.playerOwners[i];
+            }
+        }
+        for (int i = 0; i < state.playerCount; i++) {
+            int owner = state.playerOwners[i];
+            if (coarse && (nearbyOwners(state.playerTiles[i]) & ~(1 << owner)) == 0) {
+                enemies[i] = 0;
+                continue;
+            }
+            int count = 0;
+            window(state.playerTiles[i]);
+            for (int row : rows) {
+                for (int column : columns) {
+                    for (int j = head[row + column]; j != NONE; j = next[j]) {
+                        if (state.playerOwners[j] != owner) {
+                            count++;
+                        }
+                    }
+                }
+            }
+            enemies[i] = count;
+        }
+        for (int i = 0; i < state.playerCount; i++) {
+            if (enemies[i] > 0) {
+                removed[i] = losesBattle(state, i);
+            }
+        }
+        vacate(state);
+        if (coarse) {
+            for (int i = 0; i < state.playerCount; i++) {
+                int tile = state.playerTiles[i];
+                cellOwners[cellRows[tile / width] + cellColumns[tile % width]] = 0;
+            }
+        }
+    }
+
+    private int nearbyOwners(final int tile) {
+        int column = cellColumns[tile % width];
+        int row = cellRows[tile / width];
+        int west = column == 0 ? cellColumnCount - 1 : column - 1;
+        int east = column == cellColumnCount - 1 ? 0 : column + 1;
+        int north = row == 0 ? cellOwners.length - cellColumnCount : row - cellColumnCount;
+        int south = row == cellOwners.length - cellColumnCount ? 0 : row + cellColumnCount;
+        return cellOwners[north + west] | cellOwners[north + column] | cellOwners[north + east]
+                | cellOwners[row + west] | cellOwners[row + column] | cellOwners[row + east]
+                | cellOwners[south + west] | cellOwners[south + column] | cellOwners[south + east];
+    }
+
+    private boolean losesBattle(final SimulatedState state, final int player) {
+        int owner = state.playerOwners[player];
+        window(state.playerTiles[player]);
+        for (int row : rows) {
+            for (int column : columns) {
+                for (int j = head[row + column]; j != NONE; j = next[j]) {
+                    if (state.playerOwners[j] != owner && enemies[j] <= enemies[player]) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private void captureSpawnPoints(final SimulatedState state) {
+        int kept = 0;
+        for (int i = 0; i < state.spawnPointCount; i++) {
+            boolean captured = false;
+            for (int j = head[state.spawnPointTiles[i]]; j != NONE && !captured; j = next[j]) {
+                captured = state.playerOwners[j] != state.spawnPointOwners[i];
+            }
+            if (!captured) {
+                state.spawnPointTiles[kept] = state.spawnPointTiles[i];
+                state.spawnPointOwners[kept] = state.spawnPointOwners[i];
+                state.spawnPointQueues[kept] = state.spawnPointQueues[i];
+                kept++;
+            }
+        }
+        state.spawnPointCount = kept;
+    }
+
+    private void collect(final SimulatedState state) {
+        int kept = 0;
+        for (int i = 0; i < state.collectableCount; i++) {
+            int collector = head[state.collectableTiles[i]];
+            if (collector == NONE) {
+                state.collectableTiles[kept++] = state.collectableTiles[i];
+                continue;
+            }
+            // the collectable is used up even if the collector has no spawn point left to queue a player at
+            for (int j = 0; j < state.spawnPointCount; j++) {
+                if (state.spawnPointOwners[j] == state.playerOwners[collector]) {
+                    state.spawnPointQueues[j]++;
+                    break;
+                }
+            }
+        }
+        state.collectableCount = kept;
+    }
+
+    private void occupy(final SimulatedState state) {
+        for (int i = 0; i < state.playerCount; i++) {
+            int tile = state.playerTiles[i];
+            next[i] = head[tile];
+            head[tile] = i;
+        }
+    }
+
+    private void vacate(final SimulatedState state) {
+        for (int i = 0; i < state.playerCount; i++) {
+            head[state.playerTiles[i]] = NONE;
+        }
+    }
+
+    private void compact(final SimulatedState state) {
+        int kept = 0;
+        while (kept < state.playerCount && !removed[kept]) {
+            kept++;
+        }
+        for (int i = kept; i < state.playerCount; i++) {
+            if (removed[i]) {
+                removed[i] = false;
+            } else {
+                state.playerIds[kept] = state.playerIds[i];
+                state.playerTiles[kept] = state.playerTiles[i];
+                state.playerOwners[kept] = state.playerOwners[i];
+                state.moves[kept] = state.moves[i];
+                kept++;
+            }
+        }
+        Arrays.fill(state.playerIds, kept, state.playerCount, null);
+        state.playerCount = kept;
+    }
+
+    /**
+     * Sets {@link #rows} and {@link #columns} to the wrapped row offsets and columns of the battle square around a tile.
+     */
+    private void window(final int tile) {
+        int x = tile % width - radius;
+        int y = tile / width - radius;
+        for (int d = 0; d < columns.length; d++) {
+            columns[d] = wrap(x + d, width);
+            rows[d] = wrap(y + d, height) * width;
+        }
+    }
+
+    private static int wrap(final int coordinate, final int size) {
+        return coordinate < 0 ? coordinate + size : coordinate >= size ? coordinate - size : coordinate;
+    }
+
+    private void ensureCapacity(final int players) {
+        if (next.length < players) {
+            int length = Math.max(players, next.length * 2);
+            next = new int[length];
+            enemies = new int[length];
+            removed = new boolean[length];
+        }
+    }
+
+    private static int owner(final UUID id, final Map<UUID, Integer> owners, final List<UUID> ownerIds) {
+        return owners.computeIfAbsent(id, key -> {
+            ownerIds.add(key);
+            return ownerIds.size() - 1;
+        });
+    }
+}
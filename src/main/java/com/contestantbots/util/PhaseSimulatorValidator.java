@@ -0,0 +1,178 @@
+package com.contestantbots.util;
+
+import com.scottlogic.hackathon.game.GameState;
+import com.scottlogic.hackathon.game.Player;
+import com.scottlogic.hackathon.game.Position;
+import com.scottlogic.hackathon.game.SpawnPoint;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Checks {@link PhaseSimulator} against games recorded by {@link ReplayRecorder}: each recorded phase is simulated with
+ * the moves the bot made, and the bot's predicted players are compared with where the engine actually put them in the
+ * next phase.
+ * <p>
+ * Only the bot's own moves are recorded, so every other player is simulated as staying still. Phases where no enemy
+ * was close enough to the bot's players or spawn point to interact are reported separately, since every prediction in
+ * them should be exact. Run it with {@code gradlew run -PmainClass=com.contestantbots.util.PhaseSimulatorValidator
+ * --args="<replay file or directory>..."}.
+ */
+public class PhaseSimulatorValidator {
+    private final Counts quiet = new Counts();
+    private final Counts contested = new Counts();
+
+    public void validate(final ReplayReader replay) {
+        UUID botId = replay.getBotId();
+        PhaseSimulator simulator = new PhaseSimulator(replay.getMap());
+        PositionSet outOfBounds = new PositionSet(replay.getMap());
+        int interactionDistance = PhaseSimulator.DEFAULT_BATTLE_RADIUS + 2;
+
+        ReplayReader.RecordedPhase phase = replay.getPhase(0);
+        for (int i = 0; i + 1 < replay.getPhaseCount(); i++) {
+            GameState before = phase.getGameState();
+            outOfBounds.addAll(before.getOutOfBoundsPositions());
+            SimulatedState state = simulator.load(before, botId, outOfBounds);
+            simulator.setMoves(state, phase.getMoves());
+            simulator.step(state);
+
+            phase = replay.getPhase(i + 1);
+            Map<UUID, Position> actual = new HashMap<>();
+            for (Player player : phase.getGameState().getPlayers()) {
+                if (player.getOwner().equals(botId)) {
+                    actual.put(player.getId(), player.getPosition());
+                }
+            }
+
+            List<Position> ours = new ArrayList<>();
+            List<Position> theirs = new ArrayList<>();
+            for (Player player : before.getPlayers()) {
+                (player.getOwner().equals(botId) ? ours : theirs).add(player.getPosition());
+            }
+            for (SpawnPoint spawnPoint : before.getSpawnPoints()) {
+                if (spawnPoint.getOwner().equals(botId)) {
+                    ours.add(spawnPoint.getPosition());
+                }
+            }
+            boolean interacting = theirs.stream().anyMatch(enemy -> ours.stream()
+                    .anyMatch(own -> replay.getMap().distance(own, enemy) <= interactionDistance));
+            (interacting ? contested : quiet).add(state, outOfBounds, before, actual, botId);
+        }
+    }
+
+    public Counts getQuiet() {
+        return quiet;
+    }
+
+    public Counts getContested() {
+        return contested;
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (String arg : args.length == 0 ? new String[] {"."} : args) {
+            Path path = Paths.get(arg);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> listing = Files.list(path)) {
+                    files.addAll(listing.filter(file -> file.toString().endsWith(".replay"))
+                            .sorted()
+                            .collect(Collectors.toList()));
+                }
+            } else {
+                files.add(path);
+            }
+        }
+
+        PhaseSimulatorValidator validator = new PhaseSimulatorValidator();
+        for (Path file : files) {
+            try (ReplayReader replay = new ReplayReader(file)) {
+                validator.validate(replay);
+            }
+        }
+        System.out.printf("%d replays%n", files.size());
+        System.out.println(validator.quiet.format("Quiet"));
+        System.out.println(validator.contested.format("Contested"));
+    }
+
+    /**
+     * How many phases and players were predicted exactly. A phase is exact if every one of the bot's players was
+     * predicted to survive or be removed correctly, and every survivor was predicted on the right tile.
+     */
+    public static class Counts {
+        private int phases;
+        private int exactPhases;
+        private int players;
+        private int exactPlayers;
+        private int spawned;
+        private int predictedSpawned;
+
+        void add(final SimulatedState predicted, final PositionSet tiles, final GameState before,
+                 final Map<UUID, Position> actual, final UUID botId) {
+            Map<UUID, Integer> survivors = new HashMap<>();
+            int spawns = 0;
+            for (int i = 0; i < predicted.getPlayerCount(); i++) {
+                if (predicted.getPlayerOwner(i) == 0) {
+                    if (predicted.getPlayerId(i) == null) {
+                        spawns++;
+                    } else {
+                        survivors.put(predicted.getPlayerId(i), predicted.getPlayerTile(i));
+                    }
+                }
+            }
+
+            boolean exact = true;
+            for (Player player : before.getPlayers()) {
+                if (player.getOwner().equals(botId)) {
+                    Integer tile = survivors.get(player.getId());
+                    Position position = actual.get(player.getId());
+                    boolean correct = tile == null ? position == null : position != null && tiles.index(position) == tile;
+                    players++;
+                    exactPlayers += correct ? 1 : 0;
+                    exact &= correct;
+                }
+            }
+            phases++;
+            exactPhases += exact ? 1 : 0;
+            predictedSpawned += spawns;
+            spawned += (int) actual.keySet().stream()
+                    .filter(id -> before.getPlayers().stream().noneMatch(player -> player.getId().equals(id)))
+                    .count();
+        }
+
+        public int getPhases() {
+            return phases;
+        }
+
+        public int getExactPhases() {
+            return exactPhases;
+        }
+
+        public int getPlayers() {
+            return players;
+        }
+
+        public int getExactPlayers() {
+            return exactPlayers;
+        }
+
+        String format(final String name) {
+            return String.format("%-10s phases %6d exact %6d (%5.1f%%)  players %7d exact %7d (%5.1f%%)  "
+                            + "spawned %5d predicted %5d",
+                    name, phases, exactPhases, percent(exactPhases, phases), players, exactPlayers,
+                    percent(exactPlayers, players), spawned, predictedSpawned);
+        }
+
+        private static double percent(final int count, final int total) {
+            return total == 0 ? 100 : 100.0 * count / total;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.contestantbots.util;
+
+import com.scottlogic.hackathon.game.Direction;
+import com.scottlogic.hackathon.game.GameMap;
+import com.scottlogic.hackathon.game.Position;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A set of map positions backed by a bitset indexed by {@code y * width + x}.
+ * <p>
+ * Membership checks, insertion and wrap-aware neighbour lookups are constant-time and allocation-free, so one instance
+ * can be cleared and reused every phase for things like out-of-bounds tiles, reserved next positions or visited tiles.
+ * Positions and neighbours come from the shared {@link PositionTable} for the map's size.
+ */
+public class PositionSet {
+    private final int width;
+    private final int height;
+    private final PositionTable table;
+    private final long[] bits;
+    private int size;
+
+    public PositionSet(final GameMap map) {
+        this(map.getWidth(), map.getHeight());
+    }
+
+    public PositionSet(final int width, final int height) {
+        this.width = width;
+        this.height = height;
+        this.table = PositionTable.forSize(width, height);
+        this.bits = new long[(width * height + 63) >>> 6];
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int index(final Position position) {
+        return position.getY() * width + position.getX();
+    }
+
+    public int index(final int x, final int y) {
+        return Math.floorMod(y, height) * width + Math.floorMod(x, width);
+    }
+
+    public int x(final int index) {
+        return index % width;
+    }
+
+    public int y(final int index) {
+        return index / width;
+    }
+
+    public Position position(final int index) {
+        return table.position(index);
+    }
+
+    /**
+     * @return the index of the tile one step from the given one, wrapping around the edges of the map
+     */
+    public int neighbour(final int index, final Direction direction) {
+        return table.neighbour(index, direction);
+    }
+
+    public int neighbour(final Position position, final Direction direction) {
+        return neighbour(index(position), direction);
+    }
+
+    public boolean contains(final int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    public boolean contains(final Position position) {
+        return contains(index(position));
+    }
+
+    public boolean containsNeighbour(final Position position, final Direction direction) {
+        return contains(neighbour(index(position), direction));
+    }
+
+    /**
+     * @return {@code true} if the tile was not already in the set
+     */
+    public boolean add(final int index) {
+        long mask = 1L << index;
+        long word = bits[index >>> 6];
+        if ((word & mask) != 0) {
+            return false;
+        }
+        bits[index >>> 6] = word | mask;
+        size++;
+        return true;
+    }
+
+    public boolean add(final Position position) {
+        return add(index(position));
+    }
+
+    /**
+     * @return {@code true} if any of the positions were not already in the set
+     */
+    public boolean addAll(final Collection<Position> positions) {
+        boolean changed = false;
+        for (Position position : positions) {
+            changed |= add(index(position));
+        }
+        return changed;
+    }
+
+    public boolean remove(final int index) {
+        long mask = 1L << index;
+        long word = bits[index >>> 6];
+        if ((word & mask) == 0) {
+            return false;
+        }
+        bits[index >>> 6] = word & ~mask;
+        size--;
+        return true;
+    }
+
+    public boolean remove(final Position position) {
+        return remove(index(position));
+    }
+
+    /**
+     * @return the first index in the set at or after {@code fromIndex}, or -1 if there is none
+     */
+    public int nextIndex(final int fromIndex) {
+        int word = fromIndex >>> 6;
+        if (word >= bits.length) {
+            return -1;
+        }
+        long remaining = bits[word] & (-1L << fromIndex);
+        while (true) {
+            if (remaining != 0) {
+                int index = (word << 6) + Long.numberOfTrailingZeros(remaining);
+                return index < width * height ? index : -1;
+            }
+            if (++word == bits.length) {
+                return -1;
+            }
+            remaining = bits[word];
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(bits, 0L);
+        size = 0;
+    }
+}
@@ -0,0 +1,109 @@
+package com.contestantbots.util;
+
+import com.scottlogic.hackathon.game.Direction;
+import com.scottlogic.hackathon.game.GameMap;
+import com.scottlogic.hackathon.game.Position;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One canonical {@link Position} for every tile of a map, indexed by {@code y * width + x}, and the index of each
+ * tile's neighbour in every direction with the wrap-around already applied.
+ * <p>
+ * Tables are immutable and shared between every bot and helper playing on a map of the same size, so looking up a
+ * position or stepping to a neighbour never allocates.
+ */
+public final class PositionTable {
+    private static final Map<Long, PositionTable> TABLES = new ConcurrentHashMap<>();
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final int width;
+    private final int height;
+    private final Position[] positions;
+    private final int[] neighbours;
+
+    private PositionTable(final int width, final int height) {
+        this.width = width;
+        this.height = height;
+        this.positions = new Position[width * height];
+        this.neighbours = new int[width * height * DIRECTIONS.length];
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int index = y * width + x;
+                positions[index] = new Position(x, y);
+                for (Direction direction : DIRECTIONS) {
+                    int nx = direction.isEastward() ? x + 1 : direction.isWestward() ? x - 1 : x;
+                    int ny = direction.isSouthward() ? y + 1 : direction.isNorthward() ? y - 1 : y;
+                    neighbours[index * DIRECTIONS.length + direction.ordinal()] =
+                            Math.floorMod(ny, height) * width + Math.floorMod(nx, width);
+                }
+            }
+        }
+    }
+
+    public static PositionTable forMap(final GameMap map) {
+        return forSize(map.getWidth(), map.getHeight());
+    }
+
+    public static PositionTable forSize(final int width, final int height) {
+        return TABLES.computeIfAbsent(((long) width << 32) | height, key -> new PositionTable(width, height));
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int size() {
+        return positions.length;
+    }
+
+    public int index(final Position position) {
+        return position.getY() * width + position.getX();
+    }
+
+    public int index(final int x, final int y) {
+        return Math.floorMod(y, height) * width + Math.floorMod(x, width);
+    }
+
+    public Position position(final int index) {
+        return positions[index];
+    }
+
+    public Position position(final int x, final int y) {
+        return positions[index(x, y)];
+    }
+
+    /**
+     * @return the shared instance equal to the given position, so it can be compared by identity or kept without
+     * holding on to a copy made by the engine
+     */
+    public Position canonical(final Position position) {
+        return positions[index(position)];
+    }
+
+    /**
+     * @return the index of the tile one step from the given one, wrapping around the edges of the map
+     */
+    public int neighbour(final int index, final Direction direction) {
+        return neighbours[index * DIRECTIONS.length + direction.ordinal()];
+    }
+
+    public Position neighbour(final Position position, final Direction direction) {
+        return positions[neighbour(index(position), direction)];
+    }
+
+    /**
+     * @return the engine's distance between two tiles: the larger of the wrapped x and y distances
+     */
+    public int distance(final int from, final int to) {
+        int dx = Math.abs(from % width - to % width);
+        int dy = Math.abs(from / width - to / width);
+        return Math.max(Math.min(dx, width - dx), Math.min(dy, height - dy));
+    }
+}
@@ -0,0 +1,250 @@
+package com.contestantbots.util;
+
+import com.scottlogic.hackathon.game.Collectable;
+import com.scottlogic.hackathon.game.Direction;
+import com.scottlogic.hackathon.game.GameMap;
+import com.scottlogic.hackathon.game.GameState;
+import com.scottlogic.hackathon.game.Move;
+import com.scottlogic.hackathon.game.Player;
+import com.scottlogic.hackathon.game.Position;
+import com.scottlogic.hackathon.game.SpawnPoint;
+
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A self-contained {@link GameState} that can be built outside the engine, e.g. from a replay file or as a fixture.
+ */
+public class RecordedGameState implements GameState {
+    private final int phase;
+    private final GameMap map;
+    private final Set<Position> outOfBoundsPositions;
+    private final Set<Player> players;
+    private final Set<Player> removedPlayers;
+    private final Set<SpawnPoint> spawnPoints;
+    private final Set<SpawnPoint> removedSpawnPoints;
+    private final Set<Collectable> collectables;
+
+    public RecordedGameState(final int phase, final GameMap map, final Set<Position> outOfBoundsPositions,
+                             final Set<Player> players, final Set<Player> removedPlayers,
+                             final Set<SpawnPoint> spawnPoints, final Set<SpawnPoint> removedSpawnPoints,
+                             final Set<Collectable> collectables) {
+        this.phase = phase;
+        this.map = map;
+        this.outOfBoundsPositions = outOfBoundsPositions;
+        this.players = players;
+        this.removedPlayers = removedPlayers;
+        this.spawnPoints = spawnPoints;
+        this.removedSpawnPoints = removedSpawnPoints;
+        this.collectables = collectables;
+    }
+
+    @Override
+    public int getPhase() {
+        return phase;
+    }
+
+    @Override
+    public GameMap getMap() {
+        return map;
+    }
+
+    @Override
+    public Set<Position> getOutOfBoundsPositions() {
+        return outOfBoundsPositions;
+    }
+
+    @Override
+    public Set<Player> getPlayers() {
+        return players;
+    }
+
+    @Override
+    public Set<Player> getRemovedPlayers() {
+        return removedPlayers;
+    }
+
+    @Override
+    public Set<SpawnPoint> getSpawnPoints() {
+        return spawnPoints;
+    }
+
+    @Override
+    public Set<SpawnPoint> getRemovedSpawnPoints() {
+        return removedSpawnPoints;
+    }
+
+    @Override
+    public Set<Collectable> getCollectables() {
+        return collectables;
+    }
+
+    public static class RecordedPlayer implements Player {
+        private final UUID id;
+        private final UUID owner;
+        private final Position position;
+
+        public RecordedPlayer(final UUID id, final UUID owner, final Position position) {
+            this.id = id;
+            this.owner = owner;
+            this.position = position;
+        }
+
+        @Override
+        public UUID getId() {
+            return id;
+        }
+
+        @Override
+        public UUID getOwner() {
+            return owner;
+        }
+
+        @Override
+        public Position getPosition() {
+            return position;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return obj instanceof RecordedPlayer && id.equals(((RecordedPlayer) obj).id);
+        }
+
+        @Override
+        public int hashCode() {
+            return id.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Id %s - Owner %s - %s", id, owner, position);
+        }
+    }
+
+    public static class RecordedSpawnPoint implements SpawnPoint {
+        private final UUID id;
+        private final UUID owner;
+        private final Position position;
+
+        public RecordedSpawnPoint(final UUID id, final UUID owner, final Position position) {
+            this.id = id;
+            this.owner = owner;
+            this.position = position;
+        }
+
+        @Override
+        public UUID getId() {
+            return id;
+        }
+
+        @Override
+        public UUID getOwner() {
+            return owner;
+        }
+
+        @Override
+        public Position getPosition() {
+            return position;
+        }
+
+        @Override
+        public void queuePlayer() {
+            throw new UnsupportedOperationException("recorded spawn points are read-only");
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return obj instanceof RecordedSpawnPoint && id.equals(((RecordedSpawnPoint) obj).id);
+        }
+
+        @Override
+        public int hashCode() {
+            return id.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Id %s - Owner %s - %s", id, owner, position);
+        }
+    }
+
+    public static class RecordedCollectable implements Collectable {
+        private final UUID id;
+        private final Type type;
+        private final Position position;
+
+        public RecordedCollectable(final UUID id, final Type type, final Position position) {
+            this.id = id;
+            this.type = type;
+            this.position = position;
+        }
+
+        @Override
+        public UUID getId() {
+            return id;
+        }
+
+        @Override
+        public Type getType() {
+            return type;
+        }
+
+        @Override
+        public Position getPosition() {
+            return position;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return obj instanceof RecordedCollectable && id.equals(((RecordedCollectable) obj).id);
+        }
+
+        @Override
+        public int hashCode() {
+            return id.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Id %s - Type %s - %s", id, type, position);
+        }
+    }
+
+    public static class RecordedMove implements Move {
+        private final UUID player;
+        private final Direction direction;
+
+        public RecordedMove(final UUID player, final Direction direction) {
+            this.player = player;
+            this.direction = direction;
+        }
+
+        @Override
+        public UUID getPlayer() {
+            return player;
+        }
+
+        @Override
+        public Direction getDirection() {
+            return direction;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return obj instanceof RecordedMove
+                    && player.equals(((RecordedMove) obj).player)
+                    && direction == ((RecordedMove) obj).direction;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(player, direction);
+        }
+
+        @Override
+        public String toString() {
+            return player + " " + direction;
+        }
+    }
+}
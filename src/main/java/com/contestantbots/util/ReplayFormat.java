@@ -0,0 +1,44 @@
+package com.contestantbots.util;
+
+/**
+ * Layout of the files written by {@link ReplayRecorder} and read by {@link ReplayReader}.
+ * <pre>
+ * header:   int MAGIC, short VERSION, int width, int height
+ * records:  byte tag, then
+ *   ID:     long mostSignificantBits, long leastSignificantBits   (the next interned UUID index)
+ *   PHASE:  int phase,
+ *           out-of-bounds positions added and removed since the previous phase (int count, int position...) x2,
+ *           players, removed players, spawn points, removed spawn points (int count, {int id, int owner, int position}...),
+ *           collectables (int count, {int id, byte type, int position}...),
+ *           moves returned (int count, {int player, byte direction}...)
+ *   END:    no payload; the rest of the file is unused
+ * </pre>
+ * Positions are packed as {@code x << 16 | y} and UUIDs are written once and then referred to by their index. The
+ * first interned UUID is always the id of the bot that was recorded.
+ */
+final class ReplayFormat {
+    static final int MAGIC = 0x534C4352;
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 4 + 2 + 4 + 4;
+
+    static final byte END = 0;
+    static final byte ID = 1;
+    static final byte PHASE = 2;
+
+    static final int BOT_ID = 0;
+
+    private ReplayFormat() {
+    }
+
+    static int pack(final int x, final int y) {
+        return (x << 16) | y;
+    }
+
+    static int x(final int packed) {
+        return packed >>> 16;
+    }
+
+    static int y(final int packed) {
+        return packed & 0xFFFF;
+    }
+}
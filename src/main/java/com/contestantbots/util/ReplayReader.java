@@ -0,0 +1,205 @@
+package com.contestantbots.util;
+
+import com.scottlogic.hackathon.game.Bot;
+import com.scottlogic.hackathon.game.Collectable;
+import com.scottlogic.hackathon.game.Direction;
+import com.scottlogic.hackathon.game.GameMap;
+import com.scottlogic.hackathon.game.GameState;
+import com.scottlogic.hackathon.game.Move;
+import com.scottlogic.hackathon.game.Player;
+import com.scottlogic.hackathon.game.Position;
+import com.scottlogic.hackathon.game.SpawnPoint;
+import com.scottlogic.hackathon.game.engine.models.GameMapImpl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Reads back a file written by {@link ReplayRecorder}, so any recorded phase can be inspected or fed to a bot again.
+ */
+public class ReplayReader implements Closeable {
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final Collectable.Type[] COLLECTABLE_TYPES = Collectable.Type.values();
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final GameMap map;
+    private final List<UUID> ids = new ArrayList<>();
+    private final List<Integer> phaseOffsets = new ArrayList<>();
+    private final Set<Position> outOfBounds = new HashSet<>();
+    private int nextPhase;
+
+    public ReplayReader(final Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        if (buffer.remaining() < ReplayFormat.HEADER_SIZE || buffer.getInt() != ReplayFormat.MAGIC) {
+            throw new IOException("not a replay file: " + file);
+        }
+        short version = buffer.getShort();
+        if (version != ReplayFormat.VERSION) {
+            throw new IOException("unsupported replay version " + version + ": " + file);
+        }
+        this.map = new GameMapImpl(buffer.getInt(), buffer.getInt());
+        index();
+    }
+
+    public GameMap getMap() {
+        return map;
+    }
+
+    public int getPhaseCount() {
+        return phaseOffsets.size();
+    }
+
+    public RecordedPhase getPhase(final int index) {
+        if (index < nextPhase) {
+            outOfBounds.clear();
+            nextPhase = 0;
+        }
+        RecordedPhase phase = null;
+        while (nextPhase <= index) {
+            phase = read(phaseOffsets.get(nextPhase++));
+        }
+        return phase;
+    }
+
+    public UUID getBotId() {
+        return ids.get(ReplayFormat.BOT_ID);
+    }
+
+    /**
+     * Plays the recording up to and including the given phase into a fresh bot, e.g. to step through a bad decision in
+     * a debugger. The recorded bot's players are handed over to the new bot, which sees every earlier phase first so
+     * that any state it builds up matches the original game.
+     *
+     * @return the moves the bot makes in the given phase
+     */
+    public List<Move> replay(final Bot bot, final int index) {
+        UUID recordedId = ids.set(ReplayFormat.BOT_ID, bot.getId());
+        try {
+            bot.initialise(getPhase(0).getGameState());
+            List<Move> moves = Collections.emptyList();
+            for (int i = 0; i <= index; i++) {
+                moves = bot.makeMoves(getPhase(i).getGameState());
+            }
+            return moves;
+        } finally {
+            ids.set(ReplayFormat.BOT_ID, recordedId);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void index() throws IOException {
+        while (buffer.hasRemaining()) {
+            byte tag = buffer.get();
+            if (tag == ReplayFormat.END) {
+                return;
+            } else if (tag == ReplayFormat.ID) {
+                ids.add(new UUID(buffer.getLong(), buffer.getLong()));
+            } else if (tag == ReplayFormat.PHASE) {
+                phaseOffsets.add(buffer.position());
+                skipPhase();
+            } else {
+                throw new IOException("corrupt replay file: unknown record " + tag + " at " + (buffer.position() - 1));
+            }
+        }
+    }
+
+    private void skipPhase() {
+        buffer.getInt();
+        skip(4);
+        skip(4);
+        for (int i = 0; i < 4; i++) {
+            skip(12);
+        }
+        skip(9);
+        skip(5);
+    }
+
+    private void skip(final int elementSize) {
+        int count = buffer.getInt();
+        buffer.position(buffer.position() + elementSize * count);
+    }
+
+    private RecordedPhase read(final int offset) {
+        ByteBuffer record = buffer.duplicate();
+        record.position(offset);
+        int phase = record.getInt();
+        for (int i = record.getInt(); i > 0; i--) {
+            outOfBounds.add(position(record.getInt()));
+        }
+        for (int i = record.getInt(); i > 0; i--) {
+            outOfBounds.remove(position(record.getInt()));
+        }
+        Set<Player> players = readPlayers(record);
+        Set<Player> removedPlayers = readPlayers(record);
+        Set<SpawnPoint> spawnPoints = readSpawnPoints(record);
+        Set<SpawnPoint> removedSpawnPoints = readSpawnPoints(record);
+        Set<Collectable> collectables = new HashSet<>();
+        for (int i = record.getInt(); i > 0; i--) {
+            collectables.add(new RecordedGameState.RecordedCollectable(ids.get(record.getInt()),
+                    COLLECTABLE_TYPES[record.get()], position(record.getInt())));
+        }
+        List<Move> moves = new ArrayList<>();
+        for (int i = record.getInt(); i > 0; i--) {
+            moves.add(new RecordedGameState.RecordedMove(ids.get(record.getInt()), DIRECTIONS[record.get()]));
+        }
+        GameState gameState = new RecordedGameState(phase, map, new HashSet<>(outOfBounds),
+                players, removedPlayers, spawnPoints, removedSpawnPoints, collectables);
+        return new RecordedPhase(gameState, Collections.unmodifiableList(moves));
+    }
+
+    private Set<Player> readPlayers(final ByteBuffer record) {
+        Set<Player> players = new HashSet<>();
+        for (int i = record.getInt(); i > 0; i--) {
+            players.add(new RecordedGameState.RecordedPlayer(ids.get(record.getInt()), ids.get(record.getInt()),
+                    position(record.getInt())));
+        }
+        return players;
+    }
+
+    private Set<SpawnPoint> readSpawnPoints(final ByteBuffer record) {
+        Set<SpawnPoint> spawnPoints = new HashSet<>();
+        for (int i = record.getInt(); i > 0; i--) {
+            spawnPoints.add(new RecordedGameState.RecordedSpawnPoint(ids.get(record.getInt()), ids.get(record.getInt()),
+                    position(record.getInt())));
+        }
+        return spawnPoints;
+    }
+
+    private static Position position(final int packed) {
+        return new Position(ReplayFormat.x(packed), ReplayFormat.y(packed));
+    }
+
+    public static class RecordedPhase {
+        private final GameState gameState;
+        private final List<Move> moves;
+
+        RecordedPhase(final GameState gameState, final List<Move> moves) {
+            this.gameState = gameState;
+            this.moves = moves;
+        }
+
+        public GameState getGameState() {
+            return gameState;
+        }
+
+        public List<Move> getMoves() {
+            return moves;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.contestantbots.util;
+
+import com.scottlogic.hackathon.game.Collectable;
+import com.scottlogic.hackathon.game.GameMap;
+import com.scottlogic.hackathon.game.GameState;
+import com.scottlogic.hackathon.game.Move;
+import com.scottlogic.hackathon.game.Player;
+import com.scottlogic.hackathon.game.Position;
+import com.scottlogic.hackathon.game.SpawnPoint;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Appends every {@link GameState} a bot receives, together with the moves it returned, to a compact binary file that
+ * {@link ReplayReader} can play back offline. See {@link ReplayFormat} for the layout.
+ * <p>
+ * Records are written straight into a memory-mapped region of the file, which is extended a chunk at a time, so
+ * recording a phase costs little more than copying the ids and positions.
+ */
+public class ReplayRecorder implements Closeable {
+    private static final int CHUNK_SIZE = 4 << 20;
+    private static final int ID_RECORD_SIZE = 1 + 8 + 8;
+    private static final int ENTITY_SIZE = 4 + 4 + 4;
+    private static final int COLLECTABLE_SIZE = 4 + 1 + 4;
+    private static final int MOVE_SIZE = 4 + 1;
+
+    private final FileChannel channel;
+    private final Map<UUID, Integer> ids = new HashMap<>();
+    private PositionSet previousOutOfBounds;
+    private PositionSet currentOutOfBounds;
+    private MappedByteBuffer buffer;
+    private long mappedOffset;
+
+    public ReplayRecorder(final Path file, final GameMap map, final UUID botId) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.previousOutOfBounds = new PositionSet(map);
+        this.currentOutOfBounds = new PositionSet(map);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, CHUNK_SIZE);
+        buffer.putInt(ReplayFormat.MAGIC);
+        buffer.putShort(ReplayFormat.VERSION);
+        buffer.putInt(map.getWidth());
+        buffer.putInt(map.getHeight());
+        intern(botId);
+    }
+
+    public void record(final GameState gameState, final List<Move> moves) {
+        try {
+            internAll(gameState, moves);
+
+            PositionSet swap = previousOutOfBounds;
+            previousOutOfBounds = currentOutOfBounds;
+            currentOutOfBounds = swap;
+            currentOutOfBounds.clear();
+            currentOutOfBounds.addAll(gameState.getOutOfBoundsPositions());
+            int added = 0;
+            for (int i = currentOutOfBounds.nextIndex(0); i >= 0; i = currentOutOfBounds.nextIndex(i + 1)) {
+                if (!previousOutOfBounds.contains(i)) {
+                    added++;
+                }
+            }
+            int removed = 0;
+            for (int i = previousOutOfBounds.nextIndex(0); i >= 0; i = previousOutOfBounds.nextIndex(i + 1)) {
+                if (!currentOutOfBounds.contains(i)) {
+                    removed++;
+                }
+            }
+
+            ensureCapacity(1 + 4
+                    + 4 + 4 * added + 4 + 4 * removed
+                    + 4 + ENTITY_SIZE * gameState.getPlayers().size()
+                    + 4 + ENTITY_SIZE * gameState.getRemovedPlayers().size()
+                    + 4 + ENTITY_SIZE * gameState.getSpawnPoints().size()
+                    + 4 + ENTITY_SIZE * gameState.getRemovedSpawnPoints().size()
+                    + 4 + COLLECTABLE_SIZE * gameState.getCollectables().size()
+                    + 4 + MOVE_SIZE * moves.size());
+            buffer.put(ReplayFormat.PHASE);
+            buffer.putInt(gameState.getPhase());
+            putOutOfBoundsDelta(currentOutOfBounds, previousOutOfBounds, added);
+            putOutOfBoundsDelta(previousOutOfBounds, currentOutOfBounds, removed);
+            putPlayers(gameState.getPlayers());
+            putPlayers(gameState.getRemovedPlayers());
+            putSpawnPoints(gameState.getSpawnPoints());
+            putSpawnPoints(gameState.getRemovedSpawnPoints());
+            buffer.putInt(gameState.getCollectables().size());
+            for (Collectable collectable : gameState.getCollectables()) {
+                buffer.putInt(ids.get(collectable.getId()));
+                buffer.put((byte) collectable.getType().ordinal());
+                buffer.putInt(pack(collectable.getPosition()));
+            }
+            buffer.putInt(moves.size());
+            for (Move move : moves) {
+                buffer.putInt(ids.get(move.getPlayer()));
+                buffer.put((byte) move.getDirection().ordinal());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (buffer == null) {
+            return;
+        }
+        long length = mappedOffset + buffer.position();
+        buffer.force();
+        buffer = null;
+        try {
+            channel.truncate(length);
+        } catch (IOException e) {
+            // some platforms refuse to truncate a file that is still mapped; the reader stops at the zeroed tail
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void internAll(final GameState gameState, final List<Move> moves) throws IOException {
+        for (Player player : gameState.getPlayers()) {
+            intern(player.getId());
+            intern(player.getOwner());
+        }
+        for (Player player : gameState.getRemovedPlayers()) {
+            intern(player.getId());
+            intern(player.getOwner());
+        }
+        for (SpawnPoint spawnPoint : gameState.getSpawnPoints()) {
+            intern(spawnPoint.getId());
+            intern(spawnPoint.getOwner());
+        }
+        for (SpawnPoint spawnPoint : gameState.getRemovedSpawnPoints()) {
+            intern(spawnPoint.getId());
+            intern(spawnPoint.getOwner());
+        }
+        for (Collectable collectable : gameState.getCollectables()) {
+            intern(collectable.getId());
+        }
+        for (Move move : moves) {
+            intern(move.getPlayer());
+        }
+    }
+
+    private void intern(final UUID id) throws IOException {
+        if (ids.containsKey(id)) {
+            return;
+        }
+        ids.put(id, ids.size());
+        ensureCapacity(ID_RECORD_SIZE);
+        buffer.put(ReplayFormat.ID);
+        buffer.putLong(id.getMostSignificantBits());
+        buffer.putLong(id.getLeastSignificantBits());
+    }
+
+    private void putOutOfBoundsDelta(final PositionSet from, final PositionSet excluding, final int count) {
+        buffer.putInt(count);
+        for (int i = from.nextIndex(0); i >= 0; i = from.nextIndex(i + 1)) {
+            if (!excluding.contains(i)) {
+                buffer.putInt(ReplayFormat.pack(from.x(i), from.y(i)));
+            }
+        }
+    }
+
+    private void putPlayers(final Collection<Player> players) {
+        buffer.putInt(players.size());
+        for (Player player : players) {
+            buffer.putInt(ids.get(player.getId()));
+            buffer.putInt(ids.get(player.getOwner()));
+            buffer.putInt(pack(player.getPosition()));
+        }
+    }
+
+    private void putSpawnPoints(final Collection<SpawnPoint> spawnPoints) {
+        buffer.putInt(spawnPoints.size());
+        for (SpawnPoint spawnPoint : spawnPoints) {
+            buffer.putInt(ids.get(spawnPoint.getId()));
+            buffer.putInt(ids.get(spawnPoint.getOwner()));
+            buffer.putInt(pack(spawnPoint.getPosition()));
+        }
+    }
+
+    private void ensureCapacity(final int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        mappedOffset += buffer.position();
+        buffer.force();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, mappedOffset, Math.max(CHUNK_SIZE, bytes));
+    }
+
+    private static int pack(final Position position) {
+        return ReplayFormat.pack(position.getX(), position.getY());
+    }
+}
@@ -0,0 +1,159 @@
+package com.contestantbots.util;
+
+import com.scottlogic.hackathon.game.Direction;
+import com.scottlogic.hackathon.game.GameMap;
+
+import java.util.Arrays;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Moves a team of players a few phases ahead without any two of them ending a phase on the same tile or stepping
+ * through each other.
+ * <p>
+ * Each phase of the horizon is planned with priority inheritance: players are taken in order of urgency, and each
+ * tries its tiles from cheapest to dearest, skipping any already claimed in the {@link ReservationTable}. A player
+ * that wants a tile held by a teammate who has not moved yet pushes that teammate to plan next, with the pusher's
+ * tile ruled out for it. If the teammate cannot get out of the way, the pusher tries its next tile. A player with
+ * nowhere to go stays put, which is always possible because nobody else can claim its tile without moving it first.
+ * Every player is planned once per phase, so the cost is close to linear in the size of the team.
+ */
+public class ReservationPlanner {
+    public static final int DEFAULT_HORIZON = 3;
+    public static final int STAY = -1;
+    /**
+     * The cost of a tile a player must not step onto.
+     */
+    public static final int BLOCKED = Integer.MAX_VALUE;
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final int STAY_CANDIDATE = DIRECTIONS.length;
+    private static final int CANDIDATES = DIRECTIONS.length + 1;
+
+    private final PositionTable positions;
+    private final ReservationTable reservations;
+    private final int horizon;
+    private IntBinaryOperator cost;
+    private int[] tiles = new int[0];
+    private int[] next = new int[0];
+    private int[] firstMoves = new int[0];
+    private long[] order = new long[0];
+    private long[] candidates = new long[0];
+
+    public ReservationPlanner(final GameMap map) {
+        this(map, DEFAULT_HORIZON);
+    }
+
+    public ReservationPlanner(final GameMap map, final int horizon) {
+        this.positions = PositionTable.forMap(map);
+        this.reservations = new ReservationTable(map, horizon);
+        this.horizon = horizon;
+    }
+
+    /**
+     * Plans every player's moves for the horizon, leaving the reservations in {@link #getReservations()}.
+     *
+     * @param count   the number of players, in slots {@code 0..count-1}
+     * @param start   the tile each slot is on now
+     * @param urgency how urgently each slot needs its preferred tile; higher goes first
+     * @param cost    the cost of a slot ending a phase on a tile, or {@link #BLOCKED}; staying put is always allowed
+     * @return the first move of each slot as a {@link Direction} ordinal, or {@link #STAY}. The array is reused by
+     * the next call.
+     */
+    public int[] plan(final int count, final int[] start, final int[] urgency, final IntBinaryOperator cost) {
+        ensureCapacity(count);
+        this.cost = cost;
+        reservations.clear();
+        for (int slot = 0; slot < count; slot++) {
+            tiles[slot] = start[slot];
+            reservations.reserve(start[slot], 0, slot);
+            order[slot] = ((long) -urgency[slot] << 32) | slot;
+        }
+        Arrays.sort(order, 0, count);
+
+        for (int time = 0; time < horizon; time++) {
+            Arrays.fill(next, 0, count, ReservationTable.FREE);
+            for (int i = 0; i < count; i++) {
+                int slot = (int) order[i];
+                if (next[slot] == ReservationTable.FREE) {
+                    push(slot, ReservationTable.FREE, time, 0);
+                }
+            }
+            for (int slot = 0; slot < count; slot++) {
+                if (time == 0) {
+                    firstMoves[slot] = direction(tiles[slot], next[slot]);
+                }
+                tiles[slot] = next[slot];
+            }
+        }
+        this.cost = null;
+        return firstMoves;
+    }
+
+    public ReservationTable getReservations() {
+        return reservations;
+    }
+
+    public int getHorizon() {
+        return horizon;
+    }
+
+    /**
+     * @return {@code true} if the slot moved, {@code false} if it had to stay put
+     */
+    private boolean push(final int slot, final int parent, final int time, final int depth) {
+        int from = tiles[slot];
+        int base = depth * CANDIDATES;
+        int size = 0;
+        for (Direction direction : DIRECTIONS) {
+            int tileCost = cost.applyAsInt(slot, positions.neighbour(from, direction));
+            if (tileCost != BLOCKED) {
+                candidates[base + size++] = ((long) tileCost << 4) | direction.ordinal();
+            }
+        }
+        candidates[base + size++] = ((long) cost.applyAsInt(slot, from) << 4) | STAY_CANDIDATE;
+        Arrays.sort(candidates, base, base + size);
+
+        for (int i = base; i < base + size; i++) {
+            int candidate = (int) (candidates[i] & 0xF);
+            int to = candidate == STAY_CANDIDATE ? from : positions.neighbour(from, DIRECTIONS[candidate]);
+            if (reservations.isReserved(to, time + 1)
+                    || (parent != ReservationTable.FREE && to == tiles[parent])
+                    || reservations.isSwap(from, to, time)) {
+                continue;
+            }
+            next[slot] = to;
+            reservations.reserve(to, time + 1, slot);
+            int occupant = reservations.occupant(to, time);
+            if (occupant != ReservationTable.FREE && occupant != slot && next[occupant] == ReservationTable.FREE
+                    && !push(occupant, slot, time, depth + 1)) {
+                // the occupant stayed and took its tile back
+                continue;
+            }
+            return candidate != STAY_CANDIDATE;
+        }
+
+        next[slot] = from;
+        reservations.reserve(from, time + 1, slot);
+        return false;
+    }
+
+    private int direction(final int from, final int to) {
+        for (Direction direction : DIRECTIONS) {
+            if (positions.neighbour(from, direction) == to) {
+                return direction.ordinal();
+            }
+        }
+        return STAY;
+    }
+
+    private void ensureCapacity(final int count) {
+        if (tiles.length < count) {
+            int capacity = Math.max(count, tiles.length * 2);
+            tiles = new int[capacity];
+            next = new int[capacity];
+            firstMoves = new int[capacity];
+            order = new long[capacity];
+            candidates = new long[(capacity + 1) * CANDIDATES];
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.contestantbots.util;
+
+import com.scottlogic.hackathon.game.GameMap;
+
+import java.util.Arrays;
+
+/**
+ * Which player slot has claimed each tile at each of the next few phases.
+ * <p>
+ * Layer 0 is where players are now and layer {@code t} is where they have been planned to be {@code t} phases from
+ * now. Each layer is a flat array indexed like {@link PositionSet}, and every entry is stamped with the generation
+ * it was written in, so {@link #clear} is O(1) however large the map is.
+ */
+public class ReservationTable {
+    public static final int FREE = -1;
+
+    private final int area;
+    private final int depth;
+    private final int[] occupants;
+    private final int[] stamps;
+    private int generation = 1;
+
+    public ReservationTable(final GameMap map, final int depth) {
+        this(map.getWidth() * map.getHeight(), depth);
+    }
+
+    public ReservationTable(final int area, final int depth) {
+        this.area = area;
+        this.depth = depth;
+        this.occupants = new int[area * (depth + 1)];
+        this.stamps = new int[area * (depth + 1)];
+    }
+
+    /**
+     * @return how many phases ahead can be reserved
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return the slot holding the tile at phase {@code time}, or {@link #FREE}
+     */
+    public int occupant(final int tile, final int time) {
+        int cell = time * area + tile;
+        return stamps[cell] == generation ? occupants[cell] : FREE;
+    }
+
+    public boolean isReserved(final int tile, final int time) {
+        return occupant(tile, time) != FREE;
+    }
+
+    /**
+     * Claims the tile at phase {@code time}, replacing any earlier claim on it.
+     */
+    public void reserve(final int tile, final int time, final int slot) {
+        int cell = time * area + tile;
+        occupants[cell] = slot;
+        stamps[cell] = generation;
+    }
+
+    public void release(final int tile, final int time) {
+        stamps[time * area + tile] = 0;
+    }
+
+    /**
+     * @return {@code true} if a step from {@code from} to {@code to} between phases {@code time} and {@code time + 1}
+     * would pass through a different player making the opposite step
+     */
+    public boolean isSwap(final int from, final int to, final int time) {
+        int other = occupant(to, time);
+        return other != FREE && from != to && occupant(from, time + 1) == other;
+    }
+
+    public void clear() {
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+    }
+}
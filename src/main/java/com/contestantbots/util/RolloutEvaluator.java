@@ -0,0 +1,407 @@
+package com.contestantbots.util;
+
+import com.scottlogic.hackathon.game.Direction;
+import com.scottlogic.hackathon.game.GameMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Improves the moves of players in contact with the enemy by Monte Carlo rollouts on a {@link PhaseSimulator}.
+ * <p>
+ * Our players with an enemy close enough to fight this phase are grouped into clusters whose fights can affect each
+ * other. For each cluster, random variations of the planned moves are sampled, and each candidate is scored over a few
+ * simulated phases in which everyone else plays random moves. Rollouts run in rounds on a {@link ForkJoinPool} until
+ * the deadline, so the more cores there are, the more rollouts each candidate gets. Each pool thread has its own
+ * simulator and scratch state, and every task gets its own seed, so the rollouts share nothing mutable.
+ * <p>
+ * Rounds stop early once every cluster's choice has settled: the leading candidate's lead over each of the others,
+ * measured round by round, is either larger than its confidence interval or too small to matter.
+ * <p>
+ * The random moves are derived from a hash of the rollout's seed and the player's tile rather than drawn in sequence,
+ * so rollouts with the same seed play out identically wherever the candidates make no difference. Differences between
+ * candidates are then measured against the same background, which needs far fewer rollouts than independent samples.
+ */
+public class RolloutEvaluator {
+    public static final int DEFAULT_DEPTH = 3;
+    public static final int DEFAULT_CANDIDATES = 12;
+
+    private static final int ROLLOUTS_PER_TASK = 4;
+    private static final int MAX_CHANGES = 3;
+    private static final int SPAWN_POINT_VALUE = 10;
+    private static final int OPTIONS = Direction.values().length + 1;
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final int MIN_ROUNDS = 8;
+    /**
+     * Standard errors either side of a mean difference for about 95% confidence.
+     */
+    private static final double CONFIDENCE_Z = 2;
+    /**
+     * The difference in mean score, about a tenth of a player, below which two candidates are as good as each other.
+     */
+    private static final double RESOLUTION = 0.1;
+
+    private final ForkJoinPool pool;
+    private final int depth;
+    private final int candidatesPerCluster;
+    private final int interactionDistance;
+    private final ThreadLocal<Worker> workers;
+    private final SplittableRandom random = new SplittableRandom();
+    private long lastRolloutCount;
+
+    public RolloutEvaluator(final GameMap map) {
+        this(map, ForkJoinPool.commonPool(), DEFAULT_DEPTH, DEFAULT_CANDIDATES, PhaseSimulator.DEFAULT_BATTLE_RADIUS);
+    }
+
+    public RolloutEvaluator(final GameMap map, final ForkJoinPool pool, final int depth,
+                            final int candidatesPerCluster, final int battleRadius) {
+        this.pool = pool;
+        this.depth = depth;
+        this.candidatesPerCluster = candidatesPerCluster;
+        this.interactionDistance = battleRadius + 2;
+        this.workers = ThreadLocal.withInitial(() -> new Worker(map, battleRadius));
+    }
+
+    /**
+     * Searches for better moves for the contested players until the deadline. Not thread-safe: one caller at a time.
+     *
+     * @param root the current state, with the planned moves set on it
+     * @return the best moves found, indexed by player slot as in the state; the planned moves if no player is in
+     * contact with the enemy
+     */
+    public int[] evaluate(final SimulatedState root, final PhaseDeadline deadline) {
+        int[] best = Arrays.copyOf(root.moves, root.playerCount);
+        lastRolloutCount = 0;
+        List<int[]> clusters = findClusters(root);
+        if (clusters.isEmpty()) {
+            return best;
+        }
+
+        List<Candidate> candidates = new ArrayList<>();
+        for (int[] members : clusters) {
+            candidates.add(new Candidate(members, root.moves));
+            for (int i = 1; i < candidatesPerCluster; i++) {
+                candidates.add(new Candidate(members, root.moves, random));
+            }
+        }
+        Candidate[] all = candidates.toArray(new Candidate[0]);
+
+        double[] totals = new double[2 * all.length];
+        double[] differences = new double[2 * all.length * candidatesPerCluster];
+        int rounds = 0;
+        while (!deadline.isExpired()) {
+            double[] round = pool.invoke(new RolloutTask(root, all, 0, all.length, random.nextLong(), deadline));
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] += round[i];
+            }
+            if (addDifferences(round, differences) && ++rounds >= MIN_ROUNDS
+                    && hasSettled(totals, differences, rounds)) {
+                break;
+            }
+        }
+
+        for (int from = 0; from < all.length; from += candidatesPerCluster) {
+            for (int i = from; i < from + candidatesPerCluster; i++) {
+                lastRolloutCount += (long) totals[2 * i + 1];
+            }
+            Candidate candidate = all[leader(totals, from)];
+            for (int k = 0; k < candidate.members.length; k++) {
+                best[candidate.members[k]] = candidate.directions[k];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return the number of rollouts played by the last call to {@link #evaluate}
+     */
+    public long getLastRolloutCount() {
+        return lastRolloutCount;
+    }
+
+    private static double mean(final double[] totals, final int candidate) {
+        double rollouts = totals[2 * candidate + 1];
+        return rollouts == 0 ? Double.NEGATIVE_INFINITY : totals[2 * candidate] / rollouts;
+    }
+
+    /**
+     * @return the best candidate of the cluster starting at {@code from}; the planned moves come first, so they are
+     * kept unless something did strictly better
+     */
+    private int leader(final double[] totals, final int from) {
+        int chosen = from;
+        for (int i = from + 1; i < from + candidatesPerCluster; i++) {
+            if (mean(totals, i) > mean(totals, chosen)) {
+                chosen = i;
+            }
+        }
+        return chosen;
+    }
+
+    /**
+     * Adds the round's difference in mean score between every pair of candidates in the same cluster, and its square,
+     * to {@code differences}. Every candidate plays a round on the same seeds, so the differences are paired and
+     * much less noisy than the scores.
+     *
+     * @return {@code false}, adding nothing, if the deadline cut the round short for some candidates
+     */
+    private boolean addDifferences(final double[] round, final double[] differences) {
+        for (int i = 0; i < round.length; i += 2) {
+            if (round[1] == 0 || round[i + 1] != round[1]) {
+                return false;
+            }
+        }
+        for (int i = 0; i < round.length / 2; i++) {
+            int from = i - i % candidatesPerCluster;
+            for (int j = from; j < from + candidatesPerCluster; j++) {
+                double difference = (round[2 * i] - round[2 * j]) / round[1];
+                int pair = 2 * (i * candidatesPerCluster + j - from);
+                differences[pair] += difference;
+                differences[pair + 1] += difference * difference;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return {@code true} if in every cluster the leader is either clearly ahead of or level with each other
+     * candidate, judged over the rounds so far
+     */
+    private boolean hasSettled(final double[] totals, final double[] differences, final int rounds) {
+        for (int from = 0; from < totals.length / 2; from += candidatesPerCluster) {
+            int leader = leader(totals, from);
+            for (int j = from; j < from + candidatesPerCluster; j++) {
+                int pair = 2 * (leader * candidatesPerCluster + j - from);
+                double mean = differences[pair] / rounds;
+                double variance = Math.max(0, (differences[pair + 1] - rounds * mean * mean) / (rounds - 1));
+                double halfWidth = CONFIDENCE_Z * Math.sqrt(variance / rounds);
+                if (j != leader && mean - halfWidth <= 0 && Math.abs(mean) + halfWidth >= RESOLUTION) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Groups our players that have an enemy within reach into clusters: two contested players are in the same cluster
+     * if they could end up within the battle radius of the same enemy.
+     */
+    private List<int[]> findClusters(final SimulatedState root) {
+        PositionSet tiles = root.outOfBounds;
+        int[] contested = new int[root.playerCount];
+        int count = 0;
+        for (int i = 0; i < root.playerCount; i++) {
+            if (root.playerOwners[i] != 0) {
+                continue;
+            }
+            for (int j = 0; j < root.playerCount; j++) {
+                if (root.playerOwners[j] != 0
+                        && distance(tiles, root.playerTiles[i], root.playerTiles[j]) <= interactionDistance) {
+                    contested[count++] = i;
+                    break;
+                }
+            }
+        }
+
+        List<int[]> clusters = new ArrayList<>();
+        boolean[] clustered = new boolean[count];
+        int[] queue = new int[count];
+        for (int start = 0; start < count; start++) {
+            if (clustered[start]) {
+                continue;
+            }
+            clustered[start] = true;
+            int tail = 0;
+            queue[tail++] = start;
+            for (int head = 0; head < tail; head++) {
+                int tile = root.playerTiles[contested[queue[head]]];
+                for (int other = 0; other < count; other++) {
+                    if (!clustered[other]
+                            && distance(tiles, tile, root.playerTiles[contested[other]]) <= 2 * interactionDistance) {
+                        clustered[other] = true;
+                        queue[tail++] = other;
+                    }
+                }
+            }
+            int[] members = new int[tail];
+            for (int i = 0; i < tail; i++) {
+                members[i] = contested[queue[i]];
+            }
+            clusters.add(members);
+        }
+        return clusters;
+    }
+
+    private static int distance(final PositionSet tiles, final int a, final int b) {
+        int dx = Math.abs(tiles.x(a) - tiles.x(b));
+        int dy = Math.abs(tiles.y(a) - tiles.y(b));
+        return Math.max(Math.min(dx, tiles.getWidth() - dx), Math.min(dy, tiles.getHeight() - dy));
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * A joint move for the players of one cluster.
+     */
+    private static final class Candidate {
+        private final int[] members;
+        private final int[] directions;
+
+        Candidate(final int[] members, final int[] planned) {
+            this.members = members;
+            this.directions = new int[members.length];
+            for (int k = 0; k < members.length; k++) {
+                directions[k] = planned[members[k]];
+            }
+        }
+
+        /**
+         * A variation on the planned moves, with the moves of a few of the players replaced at random. Changing many
+         * at once in a large cluster would almost never beat the plan.
+         */
+        Candidate(final int[] members, final int[] planned, final SplittableRandom random) {
+            this(members, planned);
+            int changes = 1 + random.nextInt(Math.min(members.length, MAX_CHANGES));
+            for (int change = 0; change < changes; change++) {
+                directions[random.nextInt(members.length)] = random.nextInt(OPTIONS) - 1;
+            }
+        }
+    }
+
+    /**
+     * The simulator and scratch buffers of one pool thread.
+     */
+    private static final class Worker {
+        private final PhaseSimulator simulator;
+        private final int[] claimed;
+        private SimulatedState scratch;
+
+        Worker(final GameMap map, final int battleRadius) {
+            this.simulator = new PhaseSimulator(map, battleRadius, PhaseSimulator.DEFAULT_SPAWN_PHASES);
+            this.claimed = new int[map.getWidth() * map.getHeight()];
+        }
+
+        double rollout(final SimulatedState root, final Candidate candidate, final long seed, final int depth) {
+            if (scratch == null) {
+                scratch = root.newScratch();
+            }
+            scratch.copyFrom(root);
+            for (int k = 0; k < candidate.members.length; k++) {
+                scratch.moves[candidate.members[k]] = candidate.directions[k];
+            }
+            randomMoves(seed, false);
+            simulator.step(scratch);
+            for (int phase = 1; phase < depth; phase++) {
+                randomMoves(seed + phase * GOLDEN_GAMMA, true);
+                simulator.step(scratch);
+            }
+            return score();
+        }
+
+        /**
+         * Gives players random moves, avoiding known out-of-bounds tiles and tiles another player of the same owner
+         * is already moving to.
+         */
+        private void randomMoves(final long seed, final boolean includeOwn) {
+            SimulatedState state = scratch;
+            for (int i = 0; i < state.playerCount; i++) {
+                int tile = state.playerTiles[i];
+                int owner = 1 << state.playerOwners[i];
+                if (state.playerOwners[i] == 0 && !includeOwn) {
+                    claimed[target(state, i)] |= owner;
+                    continue;
+                }
+                long hash = mix(seed ^ mix(tile * GOLDEN_GAMMA + state.playerOwners[i]));
+                state.moves[i] = SimulatedState.STAY;
+                for (int attempt = 0; attempt < 3; attempt++, hash >>>= 8) {
+                    int option = (int) ((hash & 0xff) % OPTIONS) - 1;
+                    int target = option == SimulatedState.STAY
+                            ? tile : state.outOfBounds.neighbour(tile, DIRECTIONS[option]);
+                    if (!state.outOfBounds.contains(target) && (claimed[target] & owner) == 0) {
+                        state.moves[i] = option;
+                        break;
+                    }
+                }
+                claimed[target(state, i)] |= owner;
+            }
+            for (int i = 0; i < state.playerCount; i++) {
+                claimed[target(state, i)] = 0;
+            }
+        }
+
+        private static int target(final SimulatedState state, final int player) {
+            int move = state.moves[player];
+            return move == SimulatedState.STAY ? state.playerTiles[player]
+                    : state.outOfBounds.neighbour(state.playerTiles[player], DIRECTIONS[move]);
+        }
+
+        private double score() {
+            SimulatedState state = scratch;
+            int score = 0;
+            for (int i = 0; i < state.playerCount; i++) {
+                score += state.playerOwners[i] == 0 ? 1 : -1;
+            }
+            for (int i = 0; i < state.spawnPointCount; i++) {
+                score += state.spawnPointOwners[i] == 0 ? SPAWN_POINT_VALUE : -SPAWN_POINT_VALUE;
+            }
+            return score;
+        }
+    }
+
+    /**
+     * Plays rollouts for a range of candidates, splitting the range across the pool. The result holds the total score
+     * and the number of rollouts played for each candidate in the range, in pairs.
+     */
+    private final class RolloutTask extends RecursiveTask<double[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final SimulatedState root;
+        private final Candidate[] candidates;
+        private final int from;
+        private final int to;
+        private final long seed;
+        private final PhaseDeadline deadline;
+
+        RolloutTask(final SimulatedState root, final Candidate[] candidates, final int from, final int to,
+                    final long seed, final PhaseDeadline deadline) {
+            this.root = root;
+            this.candidates = candidates;
+            this.from = from;
+            this.to = to;
+            this.seed = seed;
+            this.deadline = deadline;
+        }
+
+        @Override
+        protected double[] compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                RolloutTask left = new RolloutTask(root, candidates, from, middle, seed, deadline);
+                left.fork();
+                double[] right = new RolloutTask(root, candidates, middle, to, seed, deadline).compute();
+                double[] totals = Arrays.copyOf(left.join(), 2 * (to - from));
+                System.arraycopy(right, 0, totals, 2 * (middle - from), right.length);
+                return totals;
+            }
+
+            // every candidate is played with the same seeds, so they are compared on the same random moves
+            double[] totals = new double[2];
+            Worker worker = workers.get();
+            for (int rollout = 0; rollout < ROLLOUTS_PER_TASK && !deadline.isExpired(); rollout++) {
+                totals[0] += worker.rollout(root, candidates[from], seed + rollout * GOLDEN_GAMMA, depth);
+                totals[1]++;
+            }
+            return totals;
+        }
+    }
+}
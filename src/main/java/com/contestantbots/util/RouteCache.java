@@ -0,0 +1,253 @@
+package com.contestantbots.util;
+
+import com.scottlogic.hackathon.game.Direction;
+import com.scottlogic.hackathon.game.GameMap;
+import com.scottlogic.hackathon.game.Position;
+import com.scottlogic.hackathon.game.Route;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The most recently used routes from a {@link GridPathfinder}, so that players marching towards the same target phase
+ * after phase, like {@code HunterBot}'s towards enemy spawn points, do not pay for a search each time.
+ * <p>
+ * Routes are keyed by their start and end tiles packed into a {@code long}, and the least recently used is evicted
+ * once the cache is full. Every tile also lists the cached routes that cross it. A player part way along a cached
+ * route gets the rest of that route without a search, and a tile that changes state drops only the routes through
+ * it. Any other cached route is still free of obstacles. It is only as short as the pathfinder made it, which is
+ * near-optimal rather than shortest, but it runs no further over the shortest route than when it was found, because
+ * new obstacles can only make routes longer.
+ */
+public class RouteCache {
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final GameMap map;
+    private final PositionTable positions;
+    private final GridPathfinder pathfinder;
+    private final Map<Long, CachedRoute> routes;
+    private final CachedRoute[][] byTile;
+    private final int[][] offsetsByTile;
+    private final int[] countByTile;
+    private long hits;
+    private long suffixHits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    public RouteCache(final GameMap map) {
+        this(map, new GridPathfinder(map), DEFAULT_CAPACITY);
+    }
+
+    public RouteCache(final GameMap map, final GridPathfinder pathfinder, final int capacity) {
+        this.map = map;
+        this.positions = PositionTable.forMap(map);
+        this.pathfinder = pathfinder;
+        this.routes = new LinkedHashMap<Long, CachedRoute>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Long, CachedRoute> eldest) {
+                if (size() <= capacity) {
+                    return false;
+                }
+                eldest.getValue().live = false;
+                evictions++;
+                return true;
+            }
+        };
+        this.byTile = new CachedRoute[positions.size()][];
+        this.offsetsByTile = new int[positions.size()][];
+        this.countByTile = new int[positions.size()];
+    }
+
+    /**
+     * Passes newly visible out-of-bounds positions on to the pathfinder, and drops every cached route through them.
+     *
+     * @return {@code true} if any of the positions were not already known
+     */
+    public boolean addOutOfBounds(final Collection<Position> outOfBounds) {
+        if (!pathfinder.addOutOfBounds(outOfBounds)) {
+            return false;
+        }
+        for (Position position : outOfBounds) {
+            invalidate(position);
+        }
+        return true;
+    }
+
+    /**
+     * Drops every cached route through the position, e.g. because a teammate will be standing on it.
+     */
+    public void invalidate(final Position position) {
+        int tile = positions.index(position);
+        for (int i = 0; i < countByTile[tile]; i++) {
+            CachedRoute cached = byTile[tile][i];
+            if (cached.live) {
+                cached.live = false;
+                routes.remove(key(cached.start, cached.end));
+                invalidations++;
+            }
+            byTile[tile][i] = null;
+        }
+        countByTile[tile] = 0;
+    }
+
+    /**
+     * @return a route avoiding every known out-of-bounds tile, from the cache if possible, or empty if there is none
+     */
+    public Optional<Route> route(final Position from, final Position to) {
+        int start = positions.index(from);
+        int end = positions.index(to);
+        CachedRoute cached = routes.get(key(start, end));
+        if (cached != null) {
+            hits++;
+            return Optional.of(cached.route);
+        }
+        Route suffix = suffix(start, end);
+        if (suffix != null) {
+            suffixHits++;
+            return Optional.of(suffix);
+        }
+
+        misses++;
+        Optional<Route> route = pathfinder.findRoute(from, to);
+        route.ifPresent(found -> add(start, end, found));
+        return route;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return how many routes were the rest of a longer cached route
+     */
+    public long getSuffixHits() {
+        return suffixHits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public long getInvalidations() {
+        return invalidations;
+    }
+
+    /**
+     * @return the fraction of lookups answered without a search, counting suffixes as hits
+     */
+    public double getHitRate() {
+        long lookups = hits + suffixHits + misses;
+        return lookups == 0 ? 0 : (double) (hits + suffixHits) / lookups;
+    }
+
+    public int size() {
+        return routes.size();
+    }
+
+    public void clear() {
+        for (CachedRoute cached : routes.values()) {
+            cached.live = false;
+        }
+        routes.clear();
+        Arrays.fill(countByTile, 0);
+        for (CachedRoute[] tileRoutes : byTile) {
+            if (tileRoutes != null) {
+                Arrays.fill(tileRoutes, null);
+            }
+        }
+    }
+
+    /**
+     * @return the rest of a cached route that passes through the start on its way to the same end, or {@code null}
+     */
+    private Route suffix(final int start, final int end) {
+        for (int i = 0; i < countByTile[start]; i++) {
+            CachedRoute cached = byTile[start][i];
+            if (cached.live && cached.end == end) {
+                int offset = offsetsByTile[start][i];
+                // counts as a use of the whole route, so it is not the next to be evicted
+                routes.get(key(cached.start, cached.end));
+                return map.route(positions.position(start),
+                        cached.directions.subList(offset, cached.directions.size()));
+            }
+        }
+        return null;
+    }
+
+    private void add(final int start, final int end, final Route route) {
+        List<Direction> directions = new ArrayList<>(route.getLength());
+        for (Iterator<Direction> iterator = route.directionIterator(); iterator.hasNext(); ) {
+            directions.add(iterator.next());
+        }
+        CachedRoute cached = new CachedRoute(start, end, route, Collections.unmodifiableList(directions));
+        routes.put(key(start, end), cached);
+
+        int tile = start;
+        index(tile, cached, 0);
+        for (int i = 0; i < directions.size(); i++) {
+            tile = positions.neighbour(tile, directions.get(i));
+            index(tile, cached, i + 1);
+        }
+    }
+
+    private void index(final int tile, final CachedRoute cached, final int offset) {
+        if (byTile[tile] == null) {
+            byTile[tile] = new CachedRoute[4];
+            offsetsByTile[tile] = new int[4];
+        } else if (countByTile[tile] == byTile[tile].length) {
+            compact(tile);
+            if (countByTile[tile] * 2 > byTile[tile].length) {
+                byTile[tile] = Arrays.copyOf(byTile[tile], byTile[tile].length * 2);
+                offsetsByTile[tile] = Arrays.copyOf(offsetsByTile[tile], offsetsByTile[tile].length * 2);
+            }
+        }
+        byTile[tile][countByTile[tile]] = cached;
+        offsetsByTile[tile][countByTile[tile]++] = offset;
+    }
+
+    /**
+     * Removes the evicted and invalidated routes from a tile's list.
+     */
+    private void compact(final int tile) {
+        int live = 0;
+        for (int i = 0; i < countByTile[tile]; i++) {
+            if (byTile[tile][i].live) {
+                byTile[tile][live] = byTile[tile][i];
+                offsetsByTile[tile][live++] = offsetsByTile[tile][i];
+            }
+        }
+        Arrays.fill(byTile[tile], live, countByTile[tile], null);
+        countByTile[tile] = live;
+    }
+
+    private static long key(final int start, final int end) {
+        return ((long) start << 32) | end;
+    }
+
+    private static final class CachedRoute {
+        private final int start;
+        private final int end;
+        private final Route route;
+        private final List<Direction> directions;
+        private boolean live = true;
+
+        CachedRoute(final int start, final int end, final Route route, final List<Direction> directions) {
+            this.start = start;
+            this.end = end;
+            this.route = route;
+            this.directions = directions;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.contestantbots.util;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * A compact, mutable copy of the visible game state for {@link PhaseSimulator}.
+ * <p>
+ * Everything is held in parallel arrays indexed by slot, with positions as tile indices (as used by
+ * {@link PositionSet}) and owners as indices into {@link #getOwners()}, where the simulating bot is always owner 0.
+ * The arrays only grow, so a state can be reset with {@link #copyFrom} many times per phase without allocating.
+ */
+public class SimulatedState {
+    public static final int STAY = -1;
+
+    UUID[] owners;
+    PositionSet outOfBounds;
+
+    int phase;
+
+    int playerCount;
+    UUID[] playerIds;
+    int[] playerTiles;
+    int[] playerOwners;
+    int[] moves;
+
+    int spawnPointCount;
+    int[] spawnPointTiles;
+    int[] spawnPointOwners;
+    int[] spawnPointQueues;
+
+    int collectableCount;
+    int[] collectableTiles;
+
+    SimulatedState(final UUID[] owners, final PositionSet outOfBounds, final int players, final int spawnPoints,
+                   final int collectables) {
+        this.owners = owners;
+        this.outOfBounds = outOfBounds;
+        this.playerIds = new UUID[players];
+        this.playerTiles = new int[players];
+        this.playerOwners = new int[players];
+        this.moves = new int[players];
+        this.spawnPointTiles = new int[spawnPoints];
+        this.spawnPointOwners = new int[spawnPoints];
+        this.spawnPointQueues = new int[spawnPoints];
+        this.collectableTiles = new int[collectables];
+    }
+
+    /**
+     * @return an empty state to be filled in with {@link #copyFrom}
+     */
+    public SimulatedState newScratch() {
+        return new SimulatedState(owners, outOfBounds, playerIds.length, spawnPointTiles.length,
+                collectableTiles.length);
+    }
+
+    public void copyFrom(final SimulatedState other) {
+        owners = other.owners;
+        outOfBounds = other.outOfBounds;
+        phase = other.phase;
+        ensurePlayerCapacity(other.playerCount);
+        playerCount = other.playerCount;
+        System.arraycopy(other.playerIds, 0, playerIds, 0, playerCount);
+        System.arraycopy(other.playerTiles, 0, playerTiles, 0, playerCount);
+        System.arraycopy(other.playerOwners, 0, playerOwners, 0, playerCount);
+        System.arraycopy(other.moves, 0, moves, 0, playerCount);
+        if (spawnPointTiles.length < other.spawnPointCount) {
+            spawnPointTiles = new int[other.spawnPointTiles.length];
+            spawnPointOwners = new int[other.spawnPointTiles.length];
+            spawnPointQueues = new int[other.spawnPointTiles.length];
+        }
+        spawnPointCount = other.spawnPointCount;
+        System.arraycopy(other.spawnPointTiles, 0, spawnPointTiles, 0, spawnPointCount);
+        System.arraycopy(other.spawnPointOwners, 0, spawnPointOwners, 0, spawnPointCount);
+        System.arraycopy(other.spawnPointQueues, 0, spawnPointQueues, 0, spawnPointCount);
+        if (collectableTiles.length < other.collectableCount) {
+            collectableTiles = new int[other.collectableTiles.length];
+        }
+        collectableCount = other.collectableCount;
+        System.arraycopy(other.collectableTiles, 0, collectableTiles, 0, collectableCount);
+    }
+
+    public int getPhase() {
+        return phase;
+    }
+
+    public UUID[] getOwners() {
+        return owners;
+    }
+
+    public PositionSet getOutOfBounds() {
+        return outOfBounds;
+    }
+
+    public int getPlayerCount() {
+        return playerCount;
+    }
+
+    /**
+     * @return the player's id, or {@code null} for players spawned during the simulation
+     */
+    public UUID getPlayerId(final int player) {
+        return playerIds[player];
+    }
+
+    public int getPlayerTile(final int player) {
+        return playerTiles[player];
+    }
+
+    public int getPlayerOwner(final int player) {
+        return playerOwners[player];
+    }
+
+    /**
+     * Sets the move the player will make in the next {@link PhaseSimulator#step}.
+     *
+     * @param direction a {@code Direction} ordinal, or {@link #STAY}
+     */
+    public void setMove(final int player, final int direction) {
+        moves[player] = direction;
+    }
+
+    public int getMove(final int player) {
+        return moves[player];
+    }
+
+    public void clearMoves() {
+        Arrays.fill(moves, 0, playerCount, STAY);
+    }
+
+    /**
+     * @return how many players the given owner has
+     */
+    public int countPlayers(final int owner) {
+        int count = 0;
+        for (int i = 0; i < playerCount; i++) {
+            if (playerOwners[i] == owner) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int getSpawnPointCount() {
+        return spawnPointCount;
+    }
+
+    public int getSpawnPointTile(final int spawnPoint) {
+        return spawnPointTiles[spawnPoint];
+    }
+
+    public int getSpawnPointOwner(final int spawnPoint) {
+        return spawnPointOwners[spawnPoint];
+    }
+
+    public int getCollectableCount() {
+        return collectableCount;
+    }
+
+    public int getCollectableTile(final int collectable) {
+        return collectableTiles[collectable];
+    }
+
+    int addPlayer(final UUID id, final int tile, final int owner) {
+        ensurePlayerCapacity(playerCount + 1);
+        playerIds[playerCount] = id;
+        playerTiles[playerCount] = tile;
+        playerOwners[playerCount] = owner;
+        moves[playerCount] = STAY;
+        return playerCount++;
+    }
+
+    private void ensurePlayerCapacity(final int capacity) {
+        if (playerIds.length < capacity) {
+            int length = Math.max(capacity, playerIds.length * 2);
+            playerIds = Arrays.copyOf(playerIds, length);
+            playerTiles = Arrays.copyOf(playerTiles, length);
+            playerOwners = Arrays.copyOf(playerOwners, length);
+            moves = Arrays.copyOf(moves, length);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.contestantbots.util;
+
+/**
+ * The k smallest of a stream of packed {@code long} keys, kept in order by insertion, for the nearest and hottest tile
+ * searches. Callers pack what they rank by into the high bits and an id or tile into the low 32, so equal ranks fall
+ * back to the smaller id. The array grows to the largest k asked for and is reused.
+ */
+final class SmallestK {
+    private long[] keys = new long[0];
+    private int k;
+    private int found;
+
+    /**
+     * Forgets the keys offered so far and starts keeping the {@code k} smallest.
+     */
+    void reset(final int k) {
+        if (keys.length < k) {
+            keys = new long[k];
+        }
+        this.k = k;
+        this.found = 0;
+    }
+
+    void offer(final long candidate) {
+        if (found == k && candidate >= keys[k - 1]) {
+            return;
+        }
+        int slot = found < k ? found++ : k - 1;
+        while (slot > 0 && keys[slot - 1] > candidate) {
+            keys[slot] = keys[slot - 1];
+            slot--;
+        }
+        keys[slot] = candidate;
+    }
+
+    /**
+     * @return {@code true} once k keys have been offered, so that no key larger than {@link #largest} can get in
+     */
+    boolean isFull() {
+        return found == k;
+    }
+
+    long largest() {
+        return keys[found - 1];
+    }
+
+    int size() {
+        return found;
+    }
+
+    /**
+     * @return the low 32 bits of the i-th smallest key
+     */
+    int id(final int i) {
+        return (int) keys[i];
+    }
+}
@@ -0,0 +1,252 @@
+package com.contestantbots.util;
+
+import com.scottlogic.hackathon.game.GameMap;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Entities (players, collectables, spawn points, ...) bucketed by square cells of the map, for nearest and radius
+ * queries that only look at the cells around the query tile.
+ * <p>
+ * Entities are identified by small non-negative ids chosen by the caller, and tiles are indexed like
+ * {@link PositionSet}. Each cell keeps a doubly linked list threaded through per-id arrays, so adding, removing and
+ * moving an entity are O(1), and an entity that stays within its cell is moved without touching any list. Distances
+ * are the engine's: the larger of the wrapped x and y distances.
+ */
+public class SpatialIndex {
+    public static final int DEFAULT_CELL_SIZE = 8;
+    public static final int ABSENT = -1;
+
+    private final int width;
+    private final int height;
+    private final int cellSize;
+    private final int cellsAcross;
+    private final int cellsDown;
+    /**
+     * How much closer than a whole number of cells a ring of cells can be, because the last row and column of cells
+     * are cut short where the map wraps.
+     */
+    private final int slack;
+    private final PositionTable positions;
+    private final int[] heads;
+    private final int[] visited;
+    private int visitStamp;
+    private int[] tiles = new int[0];
+    private int[] next = new int[0];
+    private int[] previous = new int[0];
+    private int size;
+    private final SmallestK closest = new SmallestK();
+
+    public SpatialIndex(final GameMap map) {
+        this(map.getWidth(), map.getHeight(), DEFAULT_CELL_SIZE);
+    }
+
+    public SpatialIndex(final int width, final int height, final int cellSize) {
+        this.width = width;
+        this.height = height;
+        this.cellSize = cellSize;
+        this.cellsAcross = (width + cellSize - 1) / cellSize;
+        this.cellsDown = (height + cellSize - 1) / cellSize;
+        this.slack = Math.max(cellsAcross * cellSize - width, cellsDown * cellSize - height);
+        this.positions = PositionTable.forSize(width, height);
+        this.heads = new int[cellsAcross * cellsDown];
+        this.visited = new int[cellsAcross * cellsDown];
+        Arrays.fill(heads, ABSENT);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(final int id) {
+        return id < tiles.length && tiles[id] != ABSENT;
+    }
+
+    /**
+     * @return the tile the entity is on, or {@link #ABSENT}
+     */
+    public int tile(final int id) {
+        return id < tiles.length ? tiles[id] : ABSENT;
+    }
+
+    /**
+     * Adds the entity on the tile, or moves it there if it is already in the index.
+     */
+    public void put(final int id, final int tile) {
+        ensureCapacity(id + 1);
+        if (tiles[id] != ABSENT) {
+            move(id, tile);
+            return;
+        }
+        tiles[id] = tile;
+        link(id, cell(tile));
+        size++;
+    }
+
+    /**
+     * Moves an entity already in the index, touching the cell lists only if it changed cell.
+     */
+    public void move(final int id, final int tile) {
+        int from = cell(tiles[id]);
+        int to = cell(tile);
+        tiles[id] = tile;
+        if (from != to) {
+            unlink(id, from);
+            link(id, to);
+        }
+    }
+
+    public void remove(final int id) {
+        if (!contains(id)) {
+            return;
+        }
+        unlink(id, cell(tiles[id]));
+        tiles[id] = ABSENT;
+        size--;
+    }
+
+    public void clear() {
+        Arrays.fill(heads, ABSENT);
+        Arrays.fill(tiles, ABSENT);
+        size = 0;
+    }
+
+    /**
+     * Finds the entities nearest the tile, searching rings of cells outwards until no unsearched cell can hold
+     * anything nearer than those already found.
+     *
+     * @param ids filled with up to {@code k} ids, nearest first
+     * @return how many ids were found
+     */
+    public int nearest(final int tile, final int k, final int[] ids) {
+        if (k <= 0 || size == 0) {
+            return 0;
+        }
+        closest.reset(k);
+        int centreX = tile % width / cellSize;
+        int centreY = tile / width / cellSize;
+        int maxRing = Math.max(cellsAcross, cellsDown) / 2 + 1;
+        nextVisit();
+        for (int ring = 0; ring <= maxRing; ring++) {
+            int bound = (ring - 1) * cellSize + 1 - slack;
+            if (closest.isFull() && bound > (int) (closest.largest() >>> 32)) {
+                break;
+            }
+            for (int dy = -ring; dy <= ring; dy++) {
+                // only the edge of the ring: every column on the top and bottom rows, the ends of the others
+                int step = dy == -ring || dy == ring ? 1 : 2 * ring;
+                for (int dx = -ring; dx <= ring; dx += step) {
+                    int cell = Math.floorMod(centreY + dy, cellsDown) * cellsAcross
+                            + Math.floorMod(centreX + dx, cellsAcross);
+                    if (visited[cell] == visitStamp) {
+                        continue;
+                    }
+                    visited[cell] = visitStamp;
+                    for (int id = heads[cell]; id != ABSENT; id = next[id]) {
+                        closest.offer(((long) distance(tile, tiles[id]) << 32) | id);
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < closest.size(); i++) {
+            ids[i] = closest.id(i);
+        }
+        return closest.size();
+    }
+
+    /**
+     * Calls the action with every entity within the distance of the tile, in no particular order.
+     */
+    public void forEachWithin(final int tile, final int radius, final IntConsumer action) {
+        if (size == 0) {
+            return;
+        }
+        int x = tile % width;
+        int y = tile / width;
+        nextVisit();
+        for (int ty = y - radius; ty <= y + radius; ty = nextCellStart(ty, height)) {
+            int row = Math.floorMod(ty, height) / cellSize;
+            for (int tx = x - radius; tx <= x + radius; tx = nextCellStart(tx, width)) {
+                int cell = row * cellsAcross + Math.floorMod(tx, width) / cellSize;
+                if (visited[cell] == visitStamp) {
+                    continue;
+                }
+                visited[cell] = visitStamp;
+                for (int id = heads[cell]; id != ABSENT; id = next[id]) {
+                    if (distance(tile, tiles[id]) <= radius) {
+                        action.accept(id);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return how many entities are within the distance of the tile
+     */
+    public int countWithin(final int tile, final int radius) {
+        int[] count = {0};
+        forEachWithin(tile, radius, id -> count[0]++);
+        return count[0];
+    }
+
+    /**
+     * @return the engine's distance between two tiles: the larger of the wrapped x and y distances
+     */
+    public int distance(final int from, final int to) {
+        return positions.distance(from, to);
+    }
+
+    /**
+     * @return the (unwrapped) coordinate at which the cell after the one holding the coordinate starts
+     */
+    private int nextCellStart(final int coordinate, final int length) {
+        int wrapped = Math.floorMod(coordinate, length);
+        int end = Math.min((wrapped / cellSize + 1) * cellSize, length);
+        return coordinate + end - wrapped;
+    }
+
+    private int cell(final int tile) {
+        return tile / width / cellSize * cellsAcross + tile % width / cellSize;
+    }
+
+    private void link(final int id, final int cell) {
+        int head = heads[cell];
+        next[id] = head;
+        previous[id] = ABSENT;
+        if (head != ABSENT) {
+            previous[head] = id;
+        }
+        heads[cell] = id;
+    }
+
+    private void unlink(final int id, final int cell) {
+        if (previous[id] != ABSENT) {
+            next[previous[id]] = next[id];
+        } else {
+            heads[cell] = next[id];
+        }
+        if (next[id] != ABSENT) {
+            previous[next[id]] = previous[id];
+        }
+    }
+
+    private void nextVisit() {
+        if (++visitStamp == Integer.MAX_VALUE) {
+            Arrays.fill(visited, 0);
+            visitStamp = 1;
+        }
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (tiles.length < capacity) {
+            int length = Math.max(capacity, Math.max(16, tiles.length * 2));
+            int old = tiles.length;
+            tiles = Arrays.copyOf(tiles, length);
+            next = Arrays.copyOf(next, length);
+            previous = Arrays.copyOf(previous, length);
+            Arrays.fill(tiles, old, length, ABSENT);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.contestantbots.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Runs a bot's work for the next phase in the gap between phases, after it has returned its moves and while the
+ * engine resolves them and waits on the other bots.
+ * <p>
+ * One speculation runs at a time, on a daemon thread that stops once it has been idle for a while, so nothing is left
+ * running to keep the JVM alive after the game. A bot calls {@link #reconcile} before it touches any of its state at
+ * the start of a phase: that asks a speculation still running to give up and waits for it, so a speculation and a
+ * phase never run at once and need no locking between them. Speculations check {@code cancelled} between steps; what
+ * they finish stays for the phase to reuse or overwrite, so they should only do work that the phase checks against
+ * the real game state. In the engine's debug mode every bot runs on the client's main thread with no timeout, so
+ * speculations run there too, straight after the moves are made, and a game played under a debugger plays out the
+ * same as one without.
+ */
+public class SpeculativePlanner {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SpeculativePlanner.class);
+    private static final long IDLE_SECONDS = 30;
+
+    /**
+     * Work done between phases.
+     */
+    @FunctionalInterface
+    public interface Speculation {
+        /**
+         * @param cancelled becomes {@code true} once the next phase has started, after which the work should stop as
+         *                  soon as it can
+         */
+        void run(BooleanSupplier cancelled);
+    }
+
+    private final boolean synchronous;
+    private final ThreadPoolExecutor executor;
+    private final MetricsRegistry.Timer speculationTimer;
+    private final MetricsRegistry.Timer reconcileTimer;
+    private final LongAdder cancelledCount;
+    private final LongAdder failedCount;
+    private volatile boolean cancelled;
+    private Future<?> running;
+
+    public SpeculativePlanner(final String name, final boolean synchronous, final MetricsRegistry metrics) {
+        this.synchronous = synchronous;
+        this.speculationTimer = metrics.timer("speculation");
+        this.reconcileTimer = metrics.timer("speculation.reconcile");
+        this.cancelledCount = metrics.counter("speculation.cancelled");
+        this.failedCount = metrics.counter("speculation.failed");
+        if (synchronous) {
+            this.executor = null;
+        } else {
+            this.executor = new ThreadPoolExecutor(1, 1, IDLE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "speculation-" + name);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            this.executor.allowCoreThreadTimeOut(true);
+        }
+    }
+
+    /**
+     * Guesses whether the engine is running in debug mode, in which it calls every bot on the client's main thread
+     * rather than on a pool thread, or whether a debugger is attached. Call it from {@code makeMoves}.
+     */
+    public static boolean isDebugMode() {
+        if ("main".equals(Thread.currentThread().getName())) {
+            return true;
+        }
+        for (String argument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (argument.startsWith("-agentlib:jdwp") || argument.startsWith("-Xrunjdwp")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isSynchronous() {
+        return synchronous;
+    }
+
+    /**
+     * Starts the speculation, once any earlier one has stopped, on the background thread or, if synchronous, runs it
+     * now.
+     */
+    public void speculate(final Speculation speculation) {
+        reconcile();
+        cancelled = false;
+        if (synchronous) {
+            run(speculation);
+            return;
+        }
+        try {
+            running = executor.submit(() -> run(speculation));
+        } catch (RejectedExecutionException e) {
+            // shut down: the game is over
+        }
+    }
+
+    /**
+     * Stops any speculation still running and waits for it, after which the caller has the bot's state to itself.
+     */
+    public void reconcile() {
+        if (running == null) {
+            return;
+        }
+        MetricsRegistry.Sample sample = reconcileTimer.start();
+        try {
+            cancelled = true;
+            running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            failed(e.getCause());
+        } finally {
+            sample.close();
+            running = null;
+        }
+    }
+
+    /**
+     * Stops any speculation still running and lets the background thread finish; later speculations are ignored.
+     */
+    public void shutdown() {
+        reconcile();
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private void run(final Speculation speculation) {
+        try {
+            speculationTimer.time(() -> speculation.run(() -> cancelled));
+        } catch (RuntimeException e) {
+            // the next phase reads the real game state anyway, so a failed guess only costs the time it took
+            failed(e);
+            return;
+        }
+        if (cancelled) {
+            cancelledCount.increment();
+        }
+    }
+
+    private void failed(final Throwable cause) {
+        failedCount.increment();
+        LOGGER.warn("Speculation failed", cause);
+    }
+}
@@ -0,0 +1,100 @@
+package com.contestantbots.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntBinaryOperator;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * Matches players to targets (collectables, unseen tiles, enemy spawn points, ...) minimising the total cost.
+ * <p>
+ * Uses the optimal solver while its O(n<sup>2</sup>m) running time stays within a work limit, and the fallback
+ * solver beyond that, so the time spent per phase stays bounded however large the armies get.
+ */
+public class TargetAssigner {
+    private static final long DEFAULT_OPTIMAL_WORK_LIMIT = 30_000_000L;
+    private static final int DEFAULT_NEAREST_TARGETS = 8;
+
+    private final AssignmentSolver optimal;
+    private final AssignmentSolver fallback;
+    private final long optimalWorkLimit;
+
+    public TargetAssigner() {
+        this(new HungarianSolver(), new GreedyNearestSolver(DEFAULT_NEAREST_TARGETS), DEFAULT_OPTIMAL_WORK_LIMIT);
+    }
+
+    /**
+     * Always uses the given solver, however many players and targets there are.
+     */
+    public TargetAssigner(final AssignmentSolver solver) {
+        this(solver, solver, Long.MAX_VALUE);
+    }
+
+    public TargetAssigner(final AssignmentSolver optimal, final AssignmentSolver fallback, final long optimalWorkLimit) {
+        this.optimal = optimal;
+        this.fallback = fallback;
+        this.optimalWorkLimit = optimalWorkLimit;
+    }
+
+    /**
+     * @param cost cost of sending a player to a target, or {@link AssignmentSolver#FORBIDDEN} to never do so
+     * @return the target assigned to each player that got one, in player order
+     */
+    public <P, T> Map<P, T> assign(final List<P> players, final List<T> targets, final ToIntBiFunction<P, T> cost) {
+        return assign(players, targets, cost, null);
+    }
+
+    /**
+     * @param cost    cost of sending a player to a target, or {@link AssignmentSolver#FORBIDDEN} to never do so
+     * @param nearest the targets nearest each player, by index into the lists, for solvers that only consider those
+     * @return the target assigned to each player that got one, in player order
+     */
+    public <P, T> Map<P, T> assign(final List<P> players, final List<T> targets, final ToIntBiFunction<P, T> cost,
+                                   final AssignmentSolver.NearestTargets nearest) {
+        if (players.isEmpty() || targets.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        int[] assignment = new int[players.size()];
+        assign(players.size(), targets.size(),
+                (player, target) -> cost.applyAsInt(players.get(player), targets.get(target)), nearest, assignment);
+
+        Map<P, T> assigned = new LinkedHashMap<>();
+        for (int player = 0; player < players.size(); player++) {
+            if (assignment[player] != AssignmentSolver.UNASSIGNED) {
+                assigned.put(players.get(player), targets.get(assignment[player]));
+            }
+        }
+        return assigned;
+    }
+
+    /**
+     * As {@link #assign(List, List, ToIntBiFunction, AssignmentSolver.NearestTargets)}, but for players and targets
+     * known by index, such as planning slots, so that nothing is boxed or collected into a map.
+     *
+     * @param assignment filled with the target index for each player, or {@link AssignmentSolver#UNASSIGNED}; at
+     *                   least {@code players} long and reused by the caller
+     * @return how many players were given a target
+     */
+    public int assign(final int players, final int targets, final IntBinaryOperator cost,
+                      final AssignmentSolver.NearestTargets nearest, final int[] assignment) {
+        if (players == 0 || targets == 0) {
+            Arrays.fill(assignment, 0, players, AssignmentSolver.UNASSIGNED);
+            return 0;
+        }
+
+        long n = Math.min(players, targets);
+        long m = Math.max(players, targets);
+        AssignmentSolver solver = n * n * m <= optimalWorkLimit ? optimal : fallback;
+        int[] solved = solver.solve(players, targets, cost, nearest);
+
+        int assigned = 0;
+        for (int player = 0; player < players; player++) {
+            assignment[player] = solved[player];
+            assigned += solved[player] != AssignmentSolver.UNASSIGNED ? 1 : 0;
+        }
+        return assigned;
+    }
+}
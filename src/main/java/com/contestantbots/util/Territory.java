@@ -0,0 +1,205 @@
+package com.contestantbots.util;
+
+import com.scottlogic.hackathon.game.Direction;
+import com.scottlogic.hackathon.game.GameMap;
+import com.scottlogic.hackathon.game.GameState;
+import com.scottlogic.hackathon.game.Position;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Which bot's spawn point can reach each tile first, and where the territories meet.
+ * <p>
+ * The territories are a {@link FlowField} from every known spawn point, ours and the enemies', so each tile is
+ * labelled with its nearest spawn point by walking distance around out-of-bounds tiles, and a destroyed spawn point
+ * only relabels the tiles it owned. A tile is on the border if a neighbour belongs to a different bot. Each bot's
+ * territory and border sizes are counters adjusted for only the tiles that were relabelled and their neighbours, so
+ * they, like the per-tile lookups, are O(1).
+ */
+public class Territory extends FlowField {
+    public static final int NO_OWNER = -1;
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final int area;
+    private final Map<UUID, Integer> ownerIndices = new HashMap<>();
+    private final List<UUID> owners = new ArrayList<>();
+    private final List<PositionSet> borders = new ArrayList<>();
+    private final int[] spawnOwners;
+    private final int[] tileOwners;
+    private final boolean[] border;
+    private final PositionSet changedTiles;
+    private final PositionSet noBorder;
+    private final List<Position> spawnPoints = new ArrayList<>();
+    private int[] territorySizes = new int[0];
+    private int[] borderSizes = new int[0];
+    private boolean rebuild;
+
+    public Territory(final GameMap map) {
+        super(map);
+        this.area = map.getWidth() * map.getHeight();
+        this.spawnOwners = new int[area];
+        this.tileOwners = new int[area];
+        this.border = new boolean[area];
+        this.changedTiles = new PositionSet(map);
+        this.noBorder = new PositionSet(map);
+        Arrays.fill(spawnOwners, NO_OWNER);
+        Arrays.fill(tileOwners, NO_OWNER);
+    }
+
+    /**
+     * Brings the territories up to date with the spawn points the world model knows of, which no longer include any
+     * reported in {@code getRemovedSpawnPoints()}.
+     */
+    public void update(final GameState gameState, final WorldModel world) {
+        rebuild |= addOutOfBounds(gameState.getOutOfBoundsPositions());
+        spawnPoints.clear();
+        for (Position position : world.getOwnSpawnPoints()) {
+            addSpawnPoint(position, world.getBotId());
+        }
+        for (Position position : world.getEnemySpawnPoints()) {
+            addSpawnPoint(position, world.getEnemySpawnPointOwner(position));
+        }
+        setTargets(spawnPoints);
+        refresh();
+        if (rebuild) {
+            rebuild = false;
+            changedTiles.clear();
+            for (int tile = 0; tile < area; tile++) {
+                recount(tile);
+            }
+        } else {
+            // a relabelled tile can change whether each of its neighbours is on the border too
+            for (int tile = changedTiles.nextIndex(0); tile >= 0; tile = changedTiles.nextIndex(tile + 1)) {
+                recount(tile);
+                for (Direction direction : DIRECTIONS) {
+                    int neighbour = changedTiles.neighbour(tile, direction);
+                    if (!changedTiles.contains(neighbour)) {
+                        recount(neighbour);
+                    }
+                }
+            }
+            changedTiles.clear();
+        }
+    }
+
+    /**
+     * @return the bot whose spawn point is nearest the tile, or {@code null} if no spawn point can reach it
+     */
+    public UUID owner(final int tile) {
+        return tileOwners[tile] == NO_OWNER ? null : owners.get(tileOwners[tile]);
+    }
+
+    public UUID owner(final Position position) {
+        return owner(changedTiles.index(position));
+    }
+
+    /**
+     * @return {@code true} if the tile belongs to a bot and a neighbour belongs to another
+     */
+    public boolean isBorder(final int tile) {
+        return border[tile];
+    }
+
+    public boolean isBorder(final Position position) {
+        return border[changedTiles.index(position)];
+    }
+
+    /**
+     * @return how many tiles the bot's spawn points reach first
+     */
+    public int territorySize(final UUID owner) {
+        Integer index = ownerIndices.get(owner);
+        return index == null ? 0 : territorySizes[index];
+    }
+
+    /**
+     * @return how many of the bot's tiles are on the border
+     */
+    public int borderSize(final UUID owner) {
+        Integer index = ownerIndices.get(owner);
+        return index == null ? 0 : borderSizes[index];
+    }
+
+    /**
+     * @return the bot's border tiles; callers must not modify it
+     */
+    public PositionSet getBorder(final UUID owner) {
+        Integer index = ownerIndices.get(owner);
+        return index == null ? noBorder : borders.get(index);
+    }
+
+    /**
+     * @return every bot that has had a spawn point, in the order they were first seen
+     */
+    public List<UUID> getOwners() {
+        return Collections.unmodifiableList(owners);
+    }
+
+    @Override
+    protected void changed(final int tile) {
+        changedTiles.add(tile);
+    }
+
+    private void addSpawnPoint(final Position position, final UUID owner) {
+        spawnPoints.add(position);
+        spawnOwners[changedTiles.index(position)] = ownerIndex(owner);
+    }
+
+    private int ownerIndex(final UUID owner) {
+        Integer index = ownerIndices.get(owner);
+        if (index != null) {
+            return index;
+        }
+        ownerIndices.put(owner, owners.size());
+        owners.add(owner);
+        borders.add(new PositionSet(noBorder.getWidth(), noBorder.getHeight()));
+        territorySizes = Arrays.copyOf(territorySizes, owners.size());
+        borderSizes = Arrays.copyOf(borderSizes, owners.size());
+        return owners.size() - 1;
+    }
+
+    /**
+     * Takes the tile's old owner and border state out of the counts and puts its current ones in.
+     */
+    private void recount(final int tile) {
+        int oldOwner = tileOwners[tile];
+        if (oldOwner != NO_OWNER) {
+            territorySizes[oldOwner]--;
+            if (border[tile]) {
+                borderSizes[oldOwner]--;
+                borders.get(oldOwner).remove(tile);
+            }
+        }
+
+        int owner = currentOwner(tile);
+        boolean onBorder = false;
+        if (owner != NO_OWNER) {
+            for (Direction direction : DIRECTIONS) {
+                int neighbour = currentOwner(changedTiles.neighbour(tile, direction));
+                if (neighbour != NO_OWNER && neighbour != owner) {
+                    onBorder = true;
+                    break;
+                }
+            }
+            territorySizes[owner]++;
+            if (onBorder) {
+                borderSizes[owner]++;
+                borders.get(owner).add(tile);
+            }
+        }
+        tileOwners[tile] = owner;
+        border[tile] = onBorder;
+    }
+
+    private int currentOwner(final int tile) {
+        int source = sourceOf(tile);
+        return source < 0 ? NO_OWNER : spawnOwners[source];
+    }
+}
@@ -0,0 +1,248 @@
+package com.contestantbots.util;
+
+import com.scottlogic.hackathon.game.GameMap;
+import com.scottlogic.hackathon.game.GameState;
+import com.scottlogic.hackathon.game.Player;
+import com.scottlogic.hackathon.game.Position;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.ToIntFunction;
+
+/**
+ * Friendly and enemy strength around every tile, following the engine's battle rules.
+ * <p>
+ * In a battle a player is removed if any enemy within the battle radius has no more enemies in range than the player
+ * itself has. Each phase {@link #update} counts the players of each owner in the (wrapped) square around every tile
+ * with separable sliding-window sums, then takes the minimum of the enemies' own opposition over the same windows, so
+ * {@link #isSafe} and {@link #isWinning} are O(1) per tile however many players are on the map. The estimates are
+ * based on where everyone is at the start of the phase.
+ */
+public class ThreatMap {
+    public static final int DEFAULT_BATTLE_RADIUS = 2;
+
+    private static final int NO_ENEMY_MIN = Integer.MAX_VALUE;
+    private static final int INITIAL_TILES_PER_OWNER = 16;
+
+    private final int width;
+    private final int height;
+    private final int radius;
+    private final int[] friendly;
+    private final int[] enemy;
+    private final int[] weakestEnemy;
+    private final int[] occupancy;
+    private final int[] scratch;
+    // per enemy owner, in the order first seen: the tiles of its players this phase and its sums over them
+    private final List<UUID> owners = new ArrayList<>();
+    private int[][] ownerTiles = new int[0][];
+    private int[] ownerTileCounts = new int[0];
+    private int[][] ownerCounts = new int[0][];
+
+    public ThreatMap(final GameMap map) {
+        this(map, DEFAULT_BATTLE_RADIUS);
+    }
+
+    public ThreatMap(final GameMap map, final int battleRadius) {
+        this.width = map.getWidth();
+        this.height = map.getHeight();
+        this.radius = battleRadius;
+        int area = width * height;
+        this.friendly = new int[area];
+        this.enemy = new int[area];
+        this.weakestEnemy = new int[area];
+        this.occupancy = new int[area];
+        this.scratch = new int[area];
+    }
+
+    public void update(final GameState gameState, final UUID botId) {
+        List<Player> ownPlayers = new ArrayList<>();
+        List<Player> enemyPlayers = new ArrayList<>();
+        for (Player player : gameState.getPlayers()) {
+            (player.getOwner().equals(botId) ? ownPlayers : enemyPlayers).add(player);
+        }
+        update(ownPlayers, enemyPlayers);
+    }
+
+    /**
+     * Recounts from the players already split by side, such as {@link WorldModel#getOwnPlayers()} and
+     * {@link WorldModel#getVisibleEnemies()}.
+     */
+    public void update(final Collection<Player> ownPlayers, final Collection<Player> enemyPlayers) {
+        update(ownPlayers, enemyPlayers, player -> index(player.getPosition().getX(), player.getPosition().getY()));
+    }
+
+    /**
+     * Recounts with each enemy on the tile it is expected to be on when the battles are fought, e.g. from
+     * {@link OpponentModel#predictedTile(Player)}, rather than where it stands now.
+     *
+     * @param enemyTile the tile of each enemy, indexed like {@link PositionSet}
+     */
+    public void update(final Collection<Player> ownPlayers, final Collection<Player> enemyPlayers,
+                       final ToIntFunction<Player> enemyTile) {
+        Arrays.fill(occupancy, 0);
+        Arrays.fill(ownerTileCounts, 0);
+        for (Player player : ownPlayers) {
+            occupancy[index(player.getPosition().getX(), player.getPosition().getY())]++;
+        }
+        for (Player player : enemyPlayers) {
+            int owner = ownerSlot(player.getOwner());
+            if (ownerTileCounts[owner] == ownerTiles[owner].length) {
+                ownerTiles[owner] = Arrays.copyOf(ownerTiles[owner], ownerTiles[owner].length * 2);
+            }
+            ownerTiles[owner][ownerTileCounts[owner]++] = enemyTile.applyAsInt(player);
+        }
+        windowSum(occupancy, friendly);
+
+        Arrays.fill(enemy, 0);
+        for (int owner = 0; owner < owners.size(); owner++) {
+            if (ownerTileCounts[owner] == 0) {
+                continue;
+            }
+            int[] counts = ownerCounts[owner];
+            Arrays.fill(occupancy, 0);
+            for (int i = 0; i < ownerTileCounts[owner]; i++) {
+                occupancy[ownerTiles[owner][i]]++;
+            }
+            windowSum(occupancy, counts);
+            for (int i = 0; i < counts.length; i++) {
+                enemy[i] += counts[i];
+            }
+        }
+
+        // how many enemies each enemy player has in range: everyone nearby except its own side
+        Arrays.fill(weakestEnemy, NO_ENEMY_MIN);
+        for (int owner = 0; owner < owners.size(); owner++) {
+            int[] counts = ownerCounts[owner];
+            for (int i = 0; i < ownerTileCounts[owner]; i++) {
+                int index = ownerTiles[owner][i];
+                int opposition = friendly[index] + enemy[index] - counts[index];
+                weakestEnemy[index] = Math.min(weakestEnemy[index], opposition);
+            }
+        }
+        windowMin(weakestEnemy);
+    }
+
+    /**
+     * @return the number of our players within the battle radius of the position
+     */
+    public int friendly(final Position position) {
+        return friendly[index(position.getX(), position.getY())];
+    }
+
+    /**
+     * @return the number of enemy players within the battle radius of the position
+     */
+    public int enemy(final Position position) {
+        return enemy[index(position.getX(), position.getY())];
+    }
+
+    public int strength(final Position position) {
+        int index = index(position.getX(), position.getY());
+        return friendly[index] - enemy[index];
+    }
+
+    /**
+     * @return {@code true} if none of the enemies in range of the position would win a battle against a player there
+     */
+    public boolean isSafe(final Position position) {
+        return isSafe(index(position.getX(), position.getY()));
+    }
+
+    /**
+     * @param index the tile's index, as used by {@link PositionSet}
+     */
+    public boolean isSafe(final int index) {
+        return weakestEnemy[index] > enemy[index];
+    }
+
+    /**
+     * @return {@code true} if a player at the position would survive and remove at least one enemy; a player that
+     * survives has fewer enemies in range than each of them has, so it removes them all
+     */
+    public boolean isWinning(final Position position) {
+        return isWinning(index(position.getX(), position.getY()));
+    }
+
+    /**
+     * @param index the tile's index, as used by {@link PositionSet}
+     */
+    public boolean isWinning(final int index) {
+        return enemy[index] > 0 && weakestEnemy[index] > enemy[index];
+    }
+
+    /**
+     * @return the owner's slot in the per-owner arrays, adding one the first time the owner is seen
+     */
+    private int ownerSlot(final UUID owner) {
+        for (int slot = 0; slot < owners.size(); slot++) {
+            if (owners.get(slot).equals(owner)) {
+                return slot;
+            }
+        }
+        int slot = owners.size();
+        owners.add(owner);
+        ownerTiles = Arrays.copyOf(ownerTiles, slot + 1);
+        ownerTiles[slot] = new int[INITIAL_TILES_PER_OWNER];
+        ownerTileCounts = Arrays.copyOf(ownerTileCounts, slot + 1);
+        ownerCounts = Arrays.copyOf(ownerCounts, slot + 1);
+        ownerCounts[slot] = new int[width * height];
+        return slot;
+    }
+
+    private int index(final int x, final int y) {
+        return Math.floorMod(y, height) * width + Math.floorMod(x, width);
+    }
+
+    /**
+     * Sums the values in the square of the battle radius around every tile, one row pass and one column pass, each
+     * keeping a running total as the window slides.
+     */
+    private void windowSum(final int[] values, final int[] sums) {
+        for (int y = 0; y < height; y++) {
+            int row = y * width;
+            int sum = 0;
+            for (int dx = -radius; dx <= radius; dx++) {
+                sum += values[row + Math.floorMod(dx, width)];
+            }
+            for (int x = 0; x < width; x++) {
+                scratch[row + x] = sum;
+                sum += values[row + (x + radius + 1) % width] - values[row + Math.floorMod(x - radius, width)];
+            }
+        }
+        for (int x = 0; x < width; x++) {
+            int sum = 0;
+            for (int dy = -radius; dy <= radius; dy++) {
+                sum += scratch[Math.floorMod(dy, height) * width + x];
+            }
+            for (int y = 0; y < height; y++) {
+                sums[y * width + x] = sum;
+                sum += scratch[(y + radius + 1) % height * width + x]
+                        - scratch[Math.floorMod(y - radius, height) * width + x];
+            }
+        }
+    }
+
+    private void windowMin(final int[] values) {
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int min = NO_ENEMY_MIN;
+                for (int dx = -radius; dx <= radius; dx++) {
+                    min = Math.min(min, values[y * width + Math.floorMod(x + dx, width)]);
+                }
+                scratch[y * width + x] = min;
+            }
+        }
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int min = NO_ENEMY_MIN;
+                for (int dy = -radius; dy <= radius; dy++) {
+                    min = Math.min(min, scratch[Math.floorMod(y + dy, height) * width + x]);
+                }
+                values[y * width + x] = min;
+            }
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.contestantbots.util;
+
+import com.scottlogic.hackathon.game.Bot;
+import com.scottlogic.hackathon.game.CutoffCondition;
+import com.scottlogic.hackathon.game.GameResult;
+import com.scottlogic.hackathon.game.Player;
+import com.scottlogic.hackathon.game.PhaseResult;
+import com.scottlogic.hackathon.game.engine.GameEngine;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Plays a bot headlessly against the default bots on every map, several games at a time, and reports how it did.
+ * <p>
+ * Run it with {@code gradlew run -PmainClass=com.contestantbots.util.TournamentRunner --args="<bot class> [games per
+ * match] [threads]"}. Games run on a fixed pool sized to the machine; each game's own bot threads come from a shared
+ * daemon thread factory and are released by {@link GameEngine#dispose()} as soon as the game ends.
+ */
+public class TournamentRunner {
+    public static final List<List<String>> OPPONENTS = Collections.unmodifiableList(Arrays.asList(
+            Collections.singletonList("Default"),
+            Collections.singletonList("Milestone1"),
+            Collections.singletonList("Milestone2"),
+            Collections.singletonList("Milestone3"),
+            Collections.singletonList("FastExpansion"),
+            Arrays.asList("Milestone2", "Milestone3", "FastExpansion")));
+
+    private static final String DEFAULT_BOT_PACKAGE = "com.scottlogic.hackathon.bots.";
+
+    private final String botClassName;
+    private final int gamesPerMatch;
+    private final int threads;
+
+    public TournamentRunner(final String botClassName, final int gamesPerMatch, final int threads) {
+        this.botClassName = botClassName;
+        this.gamesPerMatch = gamesPerMatch;
+        this.threads = threads;
+    }
+
+    /**
+     * Plays every match and blocks until all games have finished.
+     *
+     * @return the results of each match, keyed by {@code "<map> vs <opponents>"}, in the order they were scheduled
+     */
+    public Map<String, MatchResult> run() throws InterruptedException {
+        ExecutorService games = Executors.newFixedThreadPool(threads, daemonThreadFactory("tournament-game-"));
+        ThreadFactory botThreads = daemonThreadFactory("tournament-bot-");
+        try {
+            Map<String, List<Future<GameOutcome>>> scheduled = new LinkedHashMap<>();
+            for (String map : BundledMaps.NAMES) {
+                for (List<String> opponents : OPPONENTS) {
+                    List<Future<GameOutcome>> futures = new ArrayList<>();
+                    for (int game = 0; game < gamesPerMatch; game++) {
+                        futures.add(games.submit(() -> play(map, opponents, botThreads)));
+                    }
+                    scheduled.put(map + " vs " + String.join("+", opponents), futures);
+                }
+            }
+
+            Map<String, MatchResult> results = new LinkedHashMap<>();
+            for (Map.Entry<String, List<Future<GameOutcome>>> match : scheduled.entrySet()) {
+                MatchResult result = new MatchResult();
+                for (Future<GameOutcome> future : match.getValue()) {
+                    try {
+                        result.add(future.get());
+                    } catch (ExecutionException e) {
+                        result.failed++;
+                        e.getCause().printStackTrace();
+                    }
+                }
+                results.put(match.getKey(), result);
+            }
+            return results;
+        } finally {
+            games.shutdownNow();
+        }
+    }
+
+    private GameOutcome play(final String map, final List<String> opponents, final ThreadFactory botThreads)
+            throws Exception {
+        Bot contestant = newBot(botClassName);
+        Set<Bot> bots = new LinkedHashSet<>();
+        bots.add(contestant);
+        for (String opponent : opponents) {
+            bots.add(newBot(DEFAULT_BOT_PACKAGE + opponent + "Bot"));
+        }
+
+        GameEngine engine = GameEngine.create(map, bots, botThreads);
+        try {
+            GameResult result = engine.play((phaseResult, cutoffCondition) -> true);
+            return new GameOutcome(result, contestant.getId());
+        } finally {
+            engine.dispose();
+            if (contestant instanceof AnytimeBot) {
+                ((AnytimeBot) contestant).gameOver();
+            }
+        }
+    }
+
+    private static Bot newBot(final String className) throws ReflectiveOperationException {
+        return (Bot) Class.forName(className).getConstructor().newInstance();
+    }
+
+    private static ThreadFactory daemonThreadFactory(final String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public static void main(String[] args) throws Exception {
+        String botClassName = args.length > 0 ? args[0] : "com.contestantbots.team.ExampleBotRobbie";
+        int gamesPerMatch = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        // the engine logs every event and most bots print every phase, which would serialise the games on the console
+        System.setProperty("org.slf4j.simpleLogger.defaultLogLevel", "warn");
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        }));
+
+        long start = System.nanoTime();
+        Map<String, MatchResult> results = new TournamentRunner(botClassName, gamesPerMatch, threads).run();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        MatchResult total = new MatchResult();
+        console.printf("%-45s %5s %5s %5s %5s %6s %9s  %s%n",
+                "Match", "Games", "Won", "Drawn", "Lost", "Win%", "AvgPhases", "Cutoffs");
+        for (Map.Entry<String, MatchResult> match : results.entrySet()) {
+            console.println(match.getValue().format(match.getKey()));
+            total.addAll(match.getValue());
+        }
+        console.println(total.format("Total"));
+        console.printf("%d games on %d threads in %.1f s%n", total.games, threads, elapsedMillis / 1000.0);
+    }
+
+    private static class GameOutcome {
+        private final int phases;
+        private final CutoffCondition cutoffCondition;
+        private final int rank;
+        private final boolean disqualified;
+
+        GameOutcome(final GameResult result, final UUID contestant) {
+            List<PhaseResult> phaseResults = result.getPhaseResults();
+            PhaseResult last = phaseResults.get(phaseResults.size() - 1);
+            this.phases = phaseResults.size();
+            this.cutoffCondition = result.getCutoffCondition();
+            this.disqualified = last.getDisqualifiedBots().stream()
+                    .anyMatch(bot -> bot.getBot().getId().equals(contestant));
+
+            Map<UUID, Integer> playerCounts = new HashMap<>();
+            for (Player player : last.getPlayers()) {
+                playerCounts.merge(player.getOwner(), 1, Integer::sum);
+            }
+            int ours = playerCounts.getOrDefault(contestant, 0);
+            int best = playerCounts.entrySet().stream()
+                    .filter(entry -> !entry.getKey().equals(contestant))
+                    .mapToInt(Map.Entry::getValue)
+                    .max()
+                    .orElse(0);
+            this.rank = Integer.compare(ours, best);
+        }
+    }
+
+    /**
+     * Aggregated results of the games played in one match. A game is won if the bot finished with strictly more
+     * players than every opponent, and lost if it finished with fewer than any of them or was disqualified.
+     */
+    public static class MatchResult {
+        private int games;
+        private int won;
+        private int drawn;
+        private int lost;
+        private int failed;
+        private long totalPhases;
+        private final Map<CutoffCondition, Integer> cutoffConditions = new EnumMap<>(CutoffCondition.class);
+
+        void add(final GameOutcome outcome) {
+            games++;
+            if (outcome.disqualified || outcome.rank < 0) {
+                lost++;
+            } else if (outcome.rank > 0) {
+                won++;
+            } else {
+                drawn++;
+            }
+            totalPhases += outcome.phases;
+            if (outcome.cutoffCondition != null) {
+                cutoffConditions.merge(outcome.cutoffCondition, 1, Integer::sum);
+            }
+        }
+
+        void addAll(final MatchResult other) {
+            games += other.games;
+            won += other.won;
+            drawn += other.drawn;
+            lost += other.lost;
+            failed += other.failed;
+            totalPhases += other.totalPhases;
+            other.cutoffConditions.forEach((condition, count) -> cutoffConditions.merge(condition, count, Integer::sum));
+        }
+
+        public int getGames() {
+            return games;
+        }
+
+        public int getWon() {
+            return won;
+        }
+
+        public int getDrawn() {
+            return drawn;
+        }
+
+        public int getLost() {
+            return lost;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+
+        public double getWinRate() {
+            return games == 0 ? 0 : (double) won / games;
+        }
+
+        public double getAveragePhases() {
+            return games == 0 ? 0 : (double) totalPhases / games;
+        }
+
+        public Map<CutoffCondition, Integer> getCutoffConditions() {
+            return Collections.unmodifiableMap(cutoffConditions);
+        }
+
+        String format(final String name) {
+            return String.format("%-45s %5d %5d %5d %5d %5.1f%% %9.1f  %s%s",
+                    name, games, won, drawn, lost, 100 * getWinRate(), getAveragePhases(), cutoffConditions,
+                    failed == 0 ? "" : " (" + failed + " failed)");
+        }
+    }
+}
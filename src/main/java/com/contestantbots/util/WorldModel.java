@@ -0,0 +1,478 @@
+package com.contestantbots.util;
+
+import com.scottlogic.hackathon.game.Collectable;
+import com.scottlogic.hackathon.game.GameMap;
+import com.scottlogic.hackathon.game.GameState;
+import com.scottlogic.hackathon.game.Player;
+import com.scottlogic.hackathon.game.Position;
+import com.scottlogic.hackathon.game.SpawnPoint;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * Everything a bot knows about the game, kept between phases so that each part of a strategy can look things up
+ * rather than filtering {@code getPlayers()} again.
+ * <p>
+ * {@link #update} reads the game state once per phase. Players are tracked by id in separate tables for the bot's
+ * own and enemy players, and every tile records who is standing on it in flat arrays indexed like
+ * {@link PositionSet}. Each side's players, the collectables and the enemy spawn points are also kept in a
+ * {@link SpatialIndex} for nearest and radius queries; players are moved within theirs in place. Enemies that go out
+ * of view are remembered where they were last seen until that tile is in
+ * view again, the engine reports them removed, or {@link #getEnemyMemoryPhases()} phases have passed. Enemy spawn
+ * points are remembered the same way, except that they are only forgotten once seen to be gone.
+ */
+public class WorldModel {
+    public static final int DEFAULT_ENEMY_MEMORY_PHASES = 16;
+    public static final byte EMPTY = 0;
+    public static final byte OWN = 1;
+    public static final byte ENEMY = 2;
+
+    private final UUID botId;
+    private final PositionTable positions;
+    private final int enemyMemoryPhases;
+    private final FogOfWar fogOfWar;
+    private final PlayerTable ownPlayers;
+    private final PlayerTable enemies;
+    private final List<Player> visibleOwnPlayers = new ArrayList<>();
+    private final List<Player> visibleEnemies = new ArrayList<>();
+    private final byte[] occupants;
+    private final Player[] playersAt;
+    private int[] occupiedTiles = new int[64];
+    private int occupiedCount;
+    private final Set<Position> ownSpawnPoints = new LinkedHashSet<>();
+    private final Map<Position, UUID> enemySpawnPoints = new LinkedHashMap<>();
+    private final List<Position> enemySpawnPointList = new ArrayList<>();
+    private final SpatialIndex enemySpawnPointIndex;
+    private final PositionSet visibleSpawnPoints;
+    private final PositionSet collectableTiles;
+    private final List<Position> collectables = new ArrayList<>();
+    private final SpatialIndex collectableIndex;
+    private int phase = -1;
+
+    public WorldModel(final GameMap map, final UUID botId) {
+        this(map, botId, new FogOfWar(map), DEFAULT_ENEMY_MEMORY_PHASES);
+    }
+
+    public WorldModel(final GameMap map, final UUID botId, final FogOfWar fogOfWar, final int enemyMemoryPhases) {
+        this.botId = botId;
+        this.positions = PositionTable.forMap(map);
+        this.enemyMemoryPhases = enemyMemoryPhases;
+        this.fogOfWar = fogOfWar;
+        this.ownPlayers = new PlayerTable(new SpatialIndex(map));
+        this.enemies = new PlayerTable(new SpatialIndex(map));
+        this.occupants = new byte[positions.size()];
+        this.playersAt = new Player[positions.size()];
+        this.visibleSpawnPoints = new PositionSet(map);
+        this.collectableTiles = new PositionSet(map);
+        this.enemySpawnPointIndex = new SpatialIndex(map);
+        this.collectableIndex = new SpatialIndex(map);
+    }
+
+    /**
+     * Brings the model up to date with this phase's game state; call it once per phase, before any queries.
+     */
+    public void update(final GameState gameState) {
+        phase = gameState.getPhase();
+        for (Player removed : gameState.getRemovedPlayers()) {
+            ownPlayers.remove(removed.getId());
+            enemies.remove(removed.getId());
+        }
+
+        clearOccupancy();
+        visibleOwnPlayers.clear();
+        visibleEnemies.clear();
+        for (Player player : gameState.getPlayers()) {
+            int tile = positions.index(player.getPosition());
+            if (player.getOwner().equals(botId)) {
+                visibleOwnPlayers.add(player);
+                occupy(tile, OWN, player);
+                ownPlayers.track(player, tile, phase);
+            } else {
+                visibleEnemies.add(player);
+                occupy(tile, ENEMY, player);
+                enemies.track(player, tile, phase);
+            }
+        }
+        // the bot always sees all of its own players, so any not seen this phase are gone
+        ownPlayers.removeIf(tracked -> tracked.lastSeen != phase);
+        fogOfWar.update(phase, visibleOwnPlayers);
+        enemies.removeIf(enemy -> enemy.lastSeen != phase && (phase - enemy.lastSeen > enemyMemoryPhases
+                || fogOfWar.isVisible(positions.position(enemy.tile))));
+
+        updateSpawnPoints(gameState);
+        collectableTiles.clear();
+        collectables.clear();
+        collectableIndex.clear();
+        for (Collectable collectable : gameState.getCollectables()) {
+            if (collectableTiles.add(collectable.getPosition())) {
+                collectableIndex.put(collectables.size(), positions.index(collectable.getPosition()));
+                collectables.add(collectable.getPosition());
+            }
+        }
+    }
+
+    public UUID getBotId() {
+        return botId;
+    }
+
+    /**
+     * @return the phase of the last {@link #update}
+     */
+    public int getPhase() {
+        return phase;
+    }
+
+    public int getEnemyMemoryPhases() {
+        return enemyMemoryPhases;
+    }
+
+    /**
+     * @return the fog of war, moved on to the last phase by {@link #update}
+     */
+    public FogOfWar getFogOfWar() {
+        return fogOfWar;
+    }
+
+    /**
+     * @return the bot's players this phase, in the order the game state listed them; callers must not modify it
+     */
+    public List<Player> getOwnPlayers() {
+        return visibleOwnPlayers;
+    }
+
+    /**
+     * @return the enemy players in view this phase; callers must not modify it
+     */
+    public List<Player> getVisibleEnemies() {
+        return visibleEnemies;
+    }
+
+    /**
+     * @return the bot's player with the id, or {@code null} if it has been removed
+     */
+    public TrackedPlayer getOwnPlayer(final UUID id) {
+        return ownPlayers.byId.get(id);
+    }
+
+    /**
+     * @return the enemy player with the id, in view or remembered, or {@code null} if it is not known
+     */
+    public TrackedPlayer getEnemy(final UUID id) {
+        return enemies.byId.get(id);
+    }
+
+    /**
+     * @return every enemy player in view or remembered
+     */
+    public Collection<TrackedPlayer> getKnownEnemies() {
+        return Collections.unmodifiableCollection(enemies.byId.values());
+    }
+
+    /**
+     * @return up to {@code k} of the enemies in view or remembered, nearest the position first
+     */
+    public List<TrackedPlayer> nearestEnemies(final Position position, final int k) {
+        return enemies.nearest(positions.index(position), k);
+    }
+
+    /**
+     * @return up to {@code k} of the bot's players, nearest the position first
+     */
+    public List<TrackedPlayer> nearestOwnPlayers(final Position position, final int k) {
+        return ownPlayers.nearest(positions.index(position), k);
+    }
+
+    /**
+     * @return the distance from the tile to the nearest of the bot's players, or {@link Integer#MAX_VALUE} if it has
+     * none
+     */
+    public int distanceToOwnPlayer(final int tile) {
+        return ownPlayers.distanceToNearest(tile);
+    }
+
+    /**
+     * @return how many enemies in view or remembered are within the distance of the position
+     */
+    public int countEnemiesWithin(final Position position, final int distance) {
+        return enemies.index.countWithin(positions.index(position), distance);
+    }
+
+    /**
+     * @return how many of the bot's players are within the distance of the position
+     */
+    public int countOwnPlayersWithin(final Position position, final int distance) {
+        return ownPlayers.index.countWithin(positions.index(position), distance);
+    }
+
+    /**
+     * @return {@link #EMPTY}, {@link #OWN} or {@link #ENEMY}, for whoever is on the tile at the start of this phase
+     */
+    public byte occupant(final int tile) {
+        return occupants[tile];
+    }
+
+    public byte occupant(final Position position) {
+        return occupants[positions.index(position)];
+    }
+
+    /**
+     * @return the player on the tile at the start of this phase, or {@code null}
+     */
+    public Player playerAt(final int tile) {
+        return playersAt[tile];
+    }
+
+    public Player playerAt(final Position position) {
+        return playersAt[positions.index(position)];
+    }
+
+    /**
+     * @return the positions of the bot's spawn points that have not been removed
+     */
+    public Set<Position> getOwnSpawnPoints() {
+        return Collections.unmodifiableSet(ownSpawnPoints);
+    }
+
+    /**
+     * @return the positions of every enemy spawn point seen and not since seen to be gone
+     */
+    public List<Position> getEnemySpawnPoints() {
+        return Collections.unmodifiableList(enemySpawnPointList);
+    }
+
+    /**
+     * @return the bot owning a remembered enemy spawn point, or {@code null} if there is none at the position
+     */
+    public UUID getEnemySpawnPointOwner(final Position position) {
+        return enemySpawnPoints.get(position);
+    }
+
+    /**
+     * @return the enemy spawn points by tile, with ids that index {@link #getEnemySpawnPoints()}
+     */
+    public SpatialIndex getEnemySpawnPointIndex() {
+        return enemySpawnPointIndex;
+    }
+
+    /**
+     * @return the distinct positions of the collectables in view this phase; callers must not modify it
+     */
+    public List<Position> getCollectables() {
+        return collectables;
+    }
+
+    public boolean isCollectable(final int tile) {
+        return collectableTiles.contains(tile);
+    }
+
+    /**
+     * @return the collectables in view by tile, with ids that index {@link #getCollectables()}
+     */
+    public SpatialIndex getCollectableIndex() {
+        return collectableIndex;
+    }
+
+    /**
+     * Remembers enemy spawn points once seen, and forgets them once they are in view again but gone. The engine only
+     * reports the bot's own spawn points in {@code getRemovedSpawnPoints()}.
+     */
+    private void updateSpawnPoints(final GameState gameState) {
+        for (SpawnPoint removed : gameState.getRemovedSpawnPoints()) {
+            ownSpawnPoints.remove(removed.getPosition());
+        }
+        visibleSpawnPoints.clear();
+        for (SpawnPoint spawnPoint : gameState.getSpawnPoints()) {
+            visibleSpawnPoints.add(spawnPoint.getPosition());
+            if (spawnPoint.getOwner().equals(botId)) {
+                ownSpawnPoints.add(spawnPoint.getPosition());
+            } else {
+                enemySpawnPoints.put(spawnPoint.getPosition(), spawnPoint.getOwner());
+            }
+        }
+        enemySpawnPoints.keySet().removeIf(position -> fogOfWar.isVisible(position)
+                && !visibleSpawnPoints.contains(position));
+
+        enemySpawnPointList.clear();
+        enemySpawnPointIndex.clear();
+        for (Position position : enemySpawnPoints.keySet()) {
+            enemySpawnPointIndex.put(enemySpawnPointList.size(), positions.index(position));
+            enemySpawnPointList.add(position);
+        }
+    }
+
+    private void occupy(final int tile, final byte occupant, final Player player) {
+        if (occupants[tile] == EMPTY) {
+            if (occupiedCount == occupiedTiles.length) {
+                occupiedTiles = Arrays.copyOf(occupiedTiles, occupiedCount * 2);
+            }
+            occupiedTiles[occupiedCount++] = tile;
+        }
+        occupants[tile] = occupant;
+        playersAt[tile] = player;
+    }
+
+    /**
+     * Empties only the tiles occupied last phase, rather than the whole map.
+     */
+    private void clearOccupancy() {
+        for (int i = 0; i < occupiedCount; i++) {
+            occupants[occupiedTiles[i]] = EMPTY;
+            playersAt[occupiedTiles[i]] = null;
+        }
+        occupiedCount = 0;
+    }
+
+    /**
+     * The players of one side by id, and by a small handle that is reused once they are removed and is their id in
+     * the side's {@link SpatialIndex}.
+     */
+    private static final class PlayerTable {
+        private final Map<UUID, TrackedPlayer> byId = new HashMap<>();
+        private final SpatialIndex index;
+        private TrackedPlayer[] byHandle = new TrackedPlayer[16];
+        private int[] freeHandles = new int[16];
+        private int freeCount;
+        private int handleCount;
+        private int[] found = new int[0];
+
+        PlayerTable(final SpatialIndex index) {
+            this.index = index;
+        }
+
+        void track(final Player player, final int tile, final int phase) {
+            TrackedPlayer tracked = byId.get(player.getId());
+            if (tracked == null) {
+                tracked = new TrackedPlayer(player.getId(), player.getOwner(), phase, allocate());
+                byId.put(player.getId(), tracked);
+                byHandle[tracked.handle] = tracked;
+            }
+            tracked.player = player;
+            tracked.tile = tile;
+            tracked.lastSeen = phase;
+            index.put(tracked.handle, tile);
+        }
+
+        void remove(final UUID id) {
+            TrackedPlayer tracked = byId.remove(id);
+            if (tracked != null) {
+                release(tracked);
+            }
+        }
+
+        void removeIf(final Predicate<TrackedPlayer> filter) {
+            for (Iterator<TrackedPlayer> iterator = byId.values().iterator(); iterator.hasNext(); ) {
+                TrackedPlayer tracked = iterator.next();
+                if (filter.test(tracked)) {
+                    iterator.remove();
+                    release(tracked);
+                }
+            }
+        }
+
+        List<TrackedPlayer> nearest(final int tile, final int k) {
+            if (found.length < k) {
+                found = new int[k];
+            }
+            int count = index.nearest(tile, k, found);
+            List<TrackedPlayer> nearest = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                nearest.add(byHandle[found[i]]);
+            }
+            return nearest;
+        }
+
+        int distanceToNearest(final int tile) {
+            if (found.length < 1) {
+                found = new int[1];
+            }
+            return index.nearest(tile, 1, found) == 0 ? Integer.MAX_VALUE
+                    : index.distance(tile, byHandle[found[0]].tile);
+        }
+
+        private int allocate() {
+            if (freeCount > 0) {
+                return freeHandles[--freeCount];
+            }
+            if (handleCount == byHandle.length) {
+                byHandle = Arrays.copyOf(byHandle, handleCount * 2);
+            }
+            return handleCount++;
+        }
+
+        private void release(final TrackedPlayer tracked) {
+            index.remove(tracked.handle);
+            byHandle[tracked.handle] = null;
+            if (freeCount == freeHandles.length) {
+                freeHandles = Arrays.copyOf(freeHandles, freeCount * 2);
+            }
+            freeHandles[freeCount++] = tracked.handle;
+        }
+    }
+
+    /**
+     * A player as last seen. The {@link Player} object is replaced every phase, so look players up by id rather than
+     * holding on to it.
+     */
+    public static final class TrackedPlayer {
+        private final UUID id;
+        private final UUID owner;
+        private final int firstSeen;
+        private final int handle;
+        private Player player;
+        private int tile;
+        private int lastSeen;
+
+        TrackedPlayer(final UUID id, final UUID owner, final int firstSeen, final int handle) {
+            this.id = id;
+            this.owner = owner;
+            this.firstSeen = firstSeen;
+            this.handle = handle;
+        }
+
+        public UUID getId() {
+            return id;
+        }
+
+        public UUID getOwner() {
+            return owner;
+        }
+
+        /**
+         * @return the player as it was in the game state it was last seen in
+         */
+        public Player getPlayer() {
+            return player;
+        }
+
+        /**
+         * @return the tile it was last seen on, indexed like {@link PositionSet}
+         */
+        public int getTile() {
+            return tile;
+        }
+
+        public Position getPosition() {
+            return player.getPosition();
+        }
+
+        public int getFirstSeen() {
+            return firstSeen;
+        }
+
+        public int getLastSeen() {
+            return lastSeen;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.contestantbots.util;
+
+import com.scottlogic.hackathon.game.Collectable;
+import com.scottlogic.hackathon.game.GameMap;
+import com.scottlogic.hackathon.game.Player;
+import com.scottlogic.hackathon.game.Position;
+import com.scottlogic.hackathon.game.SpawnPoint;
+import com.scottlogic.hackathon.game.engine.models.GameMapImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CollectableHeatmapTest {
+    private static final float DELTA = 1e-4f;
+
+    private final GameMap map = new GameMapImpl(40, 40);
+    private final PositionTable positions = PositionTable.forMap(map);
+    private final UUID botId = UUID.randomUUID();
+    private final UUID enemyId = UUID.randomUUID();
+    private final UUID playerId = UUID.randomUUID();
+    private final SpawnPoint ownSpawnPoint = new RecordedGameState.RecordedSpawnPoint(UUID.randomUUID(), botId,
+            new Position(0, 0));
+    private final SpawnPoint enemySpawnPoint = new RecordedGameState.RecordedSpawnPoint(UUID.randomUUID(), enemyId,
+            new Position(20, 30));
+    // our only player stands still in the middle, seeing six tiles each way
+    private final Position own = new Position(20, 20);
+    private final Position near = new Position(18, 18);
+    private final Position other = new Position(22, 17);
+    // within eight of the enemy spawn point at (20, 30)
+    private final Position excluded = new Position(20, 24);
+    // on the edge of the view, so it may have only just come into it
+    private final Position edge = new Position(26, 20);
+    private WorldModel world;
+    private CollectableHeatmap heatmap;
+    private int phase;
+
+    @Before
+    public void setUp() {
+        world = new WorldModel(map, botId);
+        heatmap = new CollectableHeatmap(map);
+        phase = 0;
+        update();
+    }
+
+    @Test
+    public void onlyCollectablesAppearingWellInViewCountAsSpawns() {
+        update(near, edge);
+        assertEquals(1, heatmap.getSpawnsSeen());
+        assertEquals(1, heatmap.heat(near), DELTA);
+        assertEquals(0, heatmap.heat(edge), DELTA);
+
+        // still there, so not spawned again
+        update(near, edge);
+        assertEquals(1, heatmap.getSpawnsSeen());
+    }
+
+    @Test
+    public void heatDecaysEachPhaseAndAddsUpOverSpawns() {
+        update(near);
+        for (int i = 0; i < 10; i++) {
+            update();
+        }
+        float decayed = (float) Math.pow(CollectableHeatmap.DEFAULT_DECAY, 10);
+        assertEquals(decayed, heatmap.heat(near), DELTA);
+
+        update(near);
+        assertEquals(decayed * CollectableHeatmap.DEFAULT_DECAY + 1, heatmap.heat(near), DELTA);
+        assertEquals(2, heatmap.getSpawnsSeen());
+    }
+
+    @Test
+    public void hotSpotsAreTheHottestTilesAwayFromSpawnPoints() {
+        for (int i = 0; i < 3; i++) {
+            update(other, excluded);
+            update();
+        }
+        update(near);
+        assertTrue(heatmap.isExcluded(positions.index(excluded), world));
+        assertFalse(heatmap.isExcluded(positions.index(near), world));
+
+        int[] tiles = new int[4];
+        assertEquals(2, heatmap.hotSpots(4, 0.5f, tiles, world));
+        assertArrayEquals(new int[]{positions.index(other), positions.index(near)}, new int[]{tiles[0], tiles[1]});
+        assertEquals(1, heatmap.hotSpots(1, 0.5f, tiles, world));
+        assertEquals(positions.index(other), tiles[0]);
+        assertEquals(1, heatmap.hotSpots(4, 1.5f, tiles, world));
+        assertEquals(0, heatmap.hotSpots(0, 0.5f, tiles, world));
+    }
+
+    @Test
+    public void spawnsComingBackToTheSameTilesAreClustered() {
+        for (int i = 0; i < 12; i++) {
+            update(i % 2 == 0 ? near : other);
+            update();
+        }
+        assertEquals(10, heatmap.getRepeatSpawns());
+        assertTrue(heatmap.isClustered());
+    }
+
+    @Test
+    public void spawnsAnywhereInViewAreNotClustered() {
+        Random random = new Random(5);
+        for (int i = 0; i < 100; i++) {
+            // anywhere that was in view last phase, as the engine would spawn them
+            update(new Position(own.getX() + random.nextInt(11) - 5, own.getY() + random.nextInt(11) - 5));
+            update();
+        }
+        assertTrue(heatmap.getRepeatSpawns() > 0);
+        assertFalse(heatmap.getRepeatSpawns() + " repeats, " + heatmap.getExpectedRepeatSpawns() + " expected",
+                heatmap.isClustered());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decayMustBeAFraction() {
+        new CollectableHeatmap(map, CollectableHeatmap.DEFAULT_EXCLUSION_RADIUS, 1.5f);
+    }
+
+    private void update(final Position... collectables) {
+        Set<Player> players = Collections.<Player>singleton(new RecordedGameState.RecordedPlayer(playerId, botId,
+                own));
+        Set<SpawnPoint> spawnPoints = new HashSet<>();
+        spawnPoints.add(ownSpawnPoint);
+        spawnPoints.add(enemySpawnPoint);
+        Set<Collectable> inView = new HashSet<>();
+        for (Position collectable : collectables) {
+            inView.add(new RecordedGameState.RecordedCollectable(UUID.randomUUID(), Collectable.Type.PLAYER,
+                    collectable));
+        }
+        world.update(new RecordedGameState(phase++, map, Collections.<Position>emptySet(), players,
+                Collections.<Player>emptySet(), spawnPoints, Collections.<SpawnPoint>emptySet(), inView));
+        heatmap.update(world);
+    }
+}
@@ -0,0 +1,91 @@
+package com.contestantbots.util;
+
+import com.scottlogic.hackathon.game.Position;
+import com.scottlogic.hackathon.game.engine.maps.Arena;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class FlowFieldTest {
+    private static final int STEPS = 40;
+
+    @Test
+    public void incrementalTargetChangesMatchAFreshBuild() throws Exception {
+        for (String name : BundledMaps.NAMES) {
+            Arena arena = Arena.load(name);
+            PositionSet positions = new PositionSet(arena);
+            Random random = new Random(name.hashCode());
+            FlowField field = new FlowField(arena);
+            field.addOutOfBounds(arena.getOutOfBoundsPositions());
+            List<Position> targets = new ArrayList<>();
+
+            for (int step = 0; step < STEPS; step++) {
+                int changes = 1 + random.nextInt(4);
+                for (int i = 0; i < changes; i++) {
+                    if (!targets.isEmpty() && random.nextInt(5) < 2) {
+                        targets.remove(random.nextInt(targets.size()));
+                    } else {
+                        Position target = randomInBounds(arena, positions, random);
+                        if (!targets.contains(target)) {
+                            targets.add(target);
+                        }
+                    }
+                }
+                field.setTargets(targets);
+
+                FlowField fresh = new FlowField(arena);
+                fresh.addOutOfBounds(arena.getOutOfBoundsPositions());
+                fresh.setTargets(targets);
+                for (int tile = 0; tile < tileCount(positions); tile++) {
+                    String where = name + " step " + step + " tile " + positions.position(tile);
+                    assertEquals(where, fresh.distance(positions.position(tile)),
+                            field.distance(positions.position(tile)));
+                    assertEquals(where, fresh.sourceOf(tile), field.sourceOf(tile));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void removingTargetsOneByOneMatchesAFreshBuild() throws Exception {
+        Arena arena = Arena.load("Hard");
+        PositionSet positions = new PositionSet(arena);
+        Random random = new Random(7);
+        List<Position> targets = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            targets.add(randomInBounds(arena, positions, random));
+        }
+        FlowField field = new FlowField(arena);
+        field.addOutOfBounds(arena.getOutOfBoundsPositions());
+        field.setTargets(targets);
+        field.distance(targets.get(0));
+
+        // each removal clears a region bordered by several others and refills it from all of them
+        while (targets.size() > 1) {
+            targets.remove(random.nextInt(targets.size()));
+            field.setTargets(targets);
+        }
+        FlowField fresh = new FlowField(arena);
+        fresh.addOutOfBounds(arena.getOutOfBoundsPositions());
+        fresh.setTargets(targets);
+        for (int tile = 0; tile < tileCount(positions); tile++) {
+            assertEquals(fresh.distance(positions.position(tile)), field.distance(positions.position(tile)));
+        }
+    }
+
+    private static Position randomInBounds(final Arena arena, final PositionSet positions, final Random random) {
+        Position position;
+        do {
+            position = positions.position(random.nextInt(tileCount(positions)));
+        } while (arena.getOutOfBoundsPositions().contains(position));
+        return position;
+    }
+
+    private static int tileCount(final PositionSet positions) {
+        return positions.getWidth() * positions.getHeight();
+    }
+}
@@ -0,0 +1,116 @@
+package com.contestantbots.util;
+
+import com.scottlogic.hackathon.game.Direction;
+import com.scottlogic.hackathon.game.Position;
+import com.scottlogic.hackathon.game.Route;
+import com.scottlogic.hackathon.game.engine.maps.Arena;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GridPathfinderTest {
+    private static final int PAIRS = 1000;
+
+    @Test
+    public void routesAreValidAndNearShortest() throws Exception {
+        for (String name : BundledMaps.NAMES) {
+            Arena arena = Arena.load(name);
+            PositionTable positions = PositionTable.forMap(arena);
+            PositionSet outOfBounds = new PositionSet(arena);
+            outOfBounds.addAll(arena.getOutOfBoundsPositions());
+            GridPathfinder pathfinder = new GridPathfinder(arena);
+            pathfinder.addOutOfBounds(arena.getOutOfBoundsPositions());
+            Random random = new Random(name.hashCode());
+            long shortestTotal = 0;
+            long foundTotal = 0;
+
+            for (int pair = 0; pair < PAIRS; pair++) {
+                int from = randomInBounds(positions, outOfBounds, random);
+                int to = randomInBounds(positions, outOfBounds, random);
+                String where = name + " " + positions.position(from) + " to " + positions.position(to);
+                int shortest = breadthFirstDistances(positions, outOfBounds, from)[to];
+                Optional<Route> route = pathfinder.findRoute(positions.position(from), positions.position(to));
+                if (shortest < 0) {
+                    assertFalse(where, route.isPresent());
+                    continue;
+                }
+                assertTrue(where, route.isPresent());
+
+                int length = route.get().getLength();
+                assertEquals(where, length, pathfinder.distance(positions.position(from), positions.position(to)));
+                int tile = from;
+                for (Iterator<Direction> steps = route.get().directionIterator(); steps.hasNext(); ) {
+                    tile = positions.neighbour(tile, steps.next());
+                    assertFalse(where + " crosses " + positions.position(tile), outOfBounds.contains(tile));
+                }
+                assertEquals(where, to, tile);
+                // the route can be held to the corridor of clusters the cluster graph chose, so it may run long
+                assertTrue(where + ": " + length + " against " + shortest,
+                        shortest <= length && length - shortest <= (shortest + 1) / 2);
+                shortestTotal += shortest;
+                foundTotal += length;
+            }
+            assertTrue(name + ": " + foundTotal + " against " + shortestTotal,
+                    foundTotal - shortestTotal <= shortestTotal / 50);
+        }
+    }
+
+    @Test
+    public void unreachableAndOutOfBoundsEndsHaveNoRoute() throws Exception {
+        Arena arena = Arena.load("Medium");
+        PositionTable positions = PositionTable.forMap(arena);
+        PositionSet outOfBounds = new PositionSet(arena);
+        outOfBounds.addAll(arena.getOutOfBoundsPositions());
+        GridPathfinder pathfinder = new GridPathfinder(arena);
+        pathfinder.addOutOfBounds(arena.getOutOfBoundsPositions());
+        Random random = new Random(2);
+        Position wall = arena.getOutOfBoundsPositions().iterator().next();
+        Position open = positions.position(randomInBounds(positions, outOfBounds, random));
+
+        assertFalse(pathfinder.findRoute(open, wall).isPresent());
+        assertFalse(pathfinder.findRoute(wall, open).isPresent());
+        assertEquals(-1, pathfinder.distance(open, wall));
+        assertEquals(0, pathfinder.distance(open, open));
+    }
+
+    /**
+     * @return the number of steps from the tile to every other, or -1 where there is no way
+     */
+    private static int[] breadthFirstDistances(final PositionTable positions, final PositionSet outOfBounds,
+                                               final int from) {
+        int[] distances = new int[positions.size()];
+        Arrays.fill(distances, -1);
+        int[] queue = new int[positions.size()];
+        int head = 0;
+        int tail = 0;
+        distances[from] = 0;
+        queue[tail++] = from;
+        while (head < tail) {
+            int tile = queue[head++];
+            for (Direction direction : Direction.values()) {
+                int neighbour = positions.neighbour(tile, direction);
+                if (distances[neighbour] < 0 && !outOfBounds.contains(neighbour)) {
+                    distances[neighbour] = distances[tile] + 1;
+                    queue[tail++] = neighbour;
+                }
+            }
+        }
+        return distances;
+    }
+
+    private static int randomInBounds(final PositionTable positions, final PositionSet outOfBounds,
+                                      final Random random) {
+        int tile;
+        do {
+            tile = random.nextInt(positions.size());
+        } while (outOfBounds.contains(tile));
+        return tile;
+    }
+}
@@ -0,0 +1,40 @@
+package com.contestantbots.util;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HistogramTest {
+    @Test
+    public void percentilesAreWithinAnEighthAcrossTheWholeRange() {
+        Random random = new Random(23);
+        for (int exponent = 0; exponent < Long.SIZE - 1; exponent++) {
+            long low = 1L << exponent;
+            long high = exponent == Long.SIZE - 2 ? Long.MAX_VALUE : (1L << (exponent + 1)) - 1;
+            long[] values = {low, high, low + (long) (random.nextDouble() * (high - low))};
+            for (long value : values) {
+                Histogram histogram = new Histogram();
+                histogram.record(value);
+                // a larger value keeps the percentile from being capped at the maximum recorded
+                histogram.record(Long.MAX_VALUE);
+                long percentile = histogram.percentile(0.5);
+                assertTrue(value + " reported as " + percentile,
+                        value <= percentile && percentile - value <= value / 8);
+            }
+        }
+    }
+
+    @Test
+    public void smallValuesAndTheExtremesAreExact() {
+        for (long value : new long[]{0, 1, 7, Long.MAX_VALUE}) {
+            Histogram histogram = new Histogram();
+            histogram.record(value);
+            histogram.record(Long.MAX_VALUE);
+            assertEquals(value, histogram.percentile(0.5));
+            assertEquals(Long.MAX_VALUE, histogram.percentile(1));
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.contestantbots.util;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HungarianSolverTest {
+    private static final int ROUNDS = 500;
+
+    @Test
+    public void neverCostsMoreThanGreedy() {
+        Random random = new Random(17);
+        HungarianSolver hungarian = new HungarianSolver();
+        GreedyNearestSolver greedy = new GreedyNearestSolver(3);
+
+        for (int round = 0; round < ROUNDS; round++) {
+            int players = 1 + random.nextInt(12);
+            int targets = 1 + random.nextInt(12);
+            int range = 1 + random.nextInt(100);
+            int[][] costs = new int[players][targets];
+            for (int player = 0; player < players; player++) {
+                for (int target = 0; target < targets; target++) {
+                    costs[player][target] = random.nextInt(range);
+                }
+            }
+
+            String where = "round " + round + " (" + players + "x" + targets + ")";
+            long optimal = total(where, costs, targets, hungarian.solve(players, targets, (p, t) -> costs[p][t]));
+            long nearest = total(where, costs, targets, greedy.solve(players, targets, (p, t) -> costs[p][t]));
+            assertTrue(where + ": " + optimal + " > " + nearest, optimal <= nearest);
+        }
+    }
+
+    /**
+     * Checks that the assignment fills as many players as it can, each with a target of its own, and adds up its
+     * cost.
+     */
+    private static long total(final String where, final int[][] costs, final int targets, final int[] assignment) {
+        boolean[] taken = new boolean[targets];
+        int assigned = 0;
+        long total = 0;
+        for (int player = 0; player < assignment.length; player++) {
+            int target = assignment[player];
+            if (target == AssignmentSolver.UNASSIGNED) {
+                continue;
+            }
+            assertFalse(where + " target " + target + " taken twice", taken[target]);
+            taken[target] = true;
+            assigned++;
+            total += costs[player][target];
+        }
+        assertEquals(where, Math.min(assignment.length, targets), assigned);
+        return total;
+    }
+}
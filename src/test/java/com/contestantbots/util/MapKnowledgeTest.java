@@ -0,0 +1,88 @@
+package com.contestantbots.util;
+
+import com.scottlogic.hackathon.game.Collectable;
+import com.scottlogic.hackathon.game.GameMap;
+import com.scottlogic.hackathon.game.GameState;
+import com.scottlogic.hackathon.game.Player;
+import com.scottlogic.hackathon.game.Position;
+import com.scottlogic.hackathon.game.SpawnPoint;
+import com.scottlogic.hackathon.game.engine.models.GameMapImpl;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MapKnowledgeTest {
+    private static final int WIDTH = 40;
+    private static final int HEIGHT = 30;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final GameMap map = new GameMapImpl(WIDTH, HEIGHT);
+    private final UUID botId = UUID.randomUUID();
+    private final Position spawnPoint = new Position(5, 5);
+    // a wall with a three-tile gap, well out of view of the spawn point
+    private final Set<Position> wall = wall(20, 10, 13);
+
+    @Test
+    public void writtenFilesMapBackTheSame() throws Exception {
+        MapKnowledge computed = MapKnowledge.compute(WIDTH, HEIGHT, wall,
+                Arrays.asList(spawnPoint, new Position(30, 25)));
+        Path file = folder.getRoot().toPath().resolve("Walled" + MapKnowledge.FILE_EXTENSION);
+        computed.write(file);
+        MapKnowledge mapped = MapKnowledge.map(file);
+
+        assertTrue(mapped.isPrecomputed());
+        assertEquals(computed.getFingerprint(), mapped.getFingerprint());
+        assertEquals(wall, mapped.getOutOfBoundsPositions());
+        assertEquals(computed.getSpawnPoints(), mapped.getSpawnPoints());
+        assertEquals(computed.getChokepoints(), mapped.getChokepoints());
+        assertTrue(mapped.getChokepoints().contains(new Position(20, 11)));
+        assertFalse(mapped.getChokepoints().contains(new Position(10, 20)));
+    }
+
+    @Test
+    public void aMapThatLookedTheSameStopsMatchingWhenTheDifferenceComesIntoView() {
+        MapKnowledge open = MapKnowledge.compute(WIDTH, HEIGHT, Collections.<Position>emptySet(),
+                Collections.singletonList(spawnPoint));
+
+        // both look the same from the spawn point
+        assertTrue(open.matches(gameState(new Position(6, 6), Collections.<Position>emptySet()), botId));
+        // but not from beside the wall, which the open map does not have
+        Position nearWall = new Position(17, 11);
+        assertFalse(open.matches(gameState(nearWall, wall), botId));
+    }
+
+    private GameState gameState(final Position player, final Set<Position> outOfBounds) {
+        Set<Player> players = Collections.<Player>singleton(new RecordedGameState.RecordedPlayer(UUID.randomUUID(),
+                botId, player));
+        Set<SpawnPoint> spawnPoints = Collections.<SpawnPoint>singleton(new RecordedGameState.RecordedSpawnPoint(
+                UUID.randomUUID(), botId, spawnPoint));
+        return new RecordedGameState(0, map, outOfBounds, players, Collections.<Player>emptySet(), spawnPoints,
+                Collections.<SpawnPoint>emptySet(), Collections.<Collectable>emptySet());
+    }
+
+    /**
+     * A column of out-of-bounds tiles at x, open from y = gapFrom up to but not including gapTo.
+     */
+    private static Set<Position> wall(final int x, final int gapFrom, final int gapTo) {
+        Set<Position> tiles = new HashSet<>();
+        for (int y = 0; y < HEIGHT; y++) {
+            if (y < gapFrom || y >= gapTo) {
+                tiles.add(new Position(x, y));
+            }
+        }
+        return tiles;
+    }
+}
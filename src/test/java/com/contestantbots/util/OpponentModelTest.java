@@ -0,0 +1,186 @@
+package com.contestantbots.util;
+
+import com.scottlogic.hackathon.game.Collectable;
+import com.scottlogic.hackathon.game.Direction;
+import com.scottlogic.hackathon.game.GameMap;
+import com.scottlogic.hackathon.game.Player;
+import com.scottlogic.hackathon.game.Position;
+import com.scottlogic.hackathon.game.SpawnPoint;
+import com.scottlogic.hackathon.game.engine.models.GameMapImpl;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class OpponentModelTest {
+    private static final int SIZE = 60;
+    private static final int PHASES = 100;
+    private static final int PER_OWNER = 6;
+
+    private enum Behaviour {
+        RANDOM, MOMENTUM, AGGRESSIVE, EVASIVE
+    }
+
+    private final GameMap map = new GameMapImpl(SIZE, SIZE);
+    private final PositionTable positions = PositionTable.forMap(map);
+    private final Random random = new Random(19);
+    private final UUID botId = UUID.randomUUID();
+    private final int ownTile = positions.index(SIZE / 2, SIZE / 2);
+
+    @Test
+    public void learnsEachOpponentsPatternAndPredictsItsSteps() {
+        Map<Behaviour, UUID> owners = new HashMap<>();
+        for (Behaviour behaviour : Behaviour.values()) {
+            owners.put(behaviour, UUID.randomUUID());
+        }
+        WorldModel world = new WorldModel(map, botId);
+        OpponentModel model = new OpponentModel(map);
+        Map<UUID, Enemy> enemies = new HashMap<>();
+        int checked = 0;
+        // the patterns before the last update, since each prediction is made with the pattern as it stood then
+        Set<UUID> settled = new HashSet<>();
+
+        for (int phase = 0; phase < PHASES; phase++) {
+            Set<Player> removed = new HashSet<>();
+            for (Enemy enemy : new ArrayList<>(enemies.values())) {
+                int distance = distance(enemy.tile, ownTile);
+                if (distance <= 2 || distance >= SIZE / 2 - 2 || enemy.behaviour == Behaviour.MOMENTUM
+                        && distance != enemy.startDistance) {
+                    // out of room to keep doing what it does, so it is replaced
+                    enemies.remove(enemy.id);
+                    removed.add(player(enemy));
+                } else {
+                    // predictions only follow the behaviour once the owner's pattern has been learned
+                    boolean learned = settled.contains(enemy.owner) && learned(model, enemy.owner, enemy.behaviour);
+                    int expected = model.predictedTile(enemy.id);
+                    enemy.tile = step(enemy);
+                    // a step needs two sightings in a row to show, so predicting one needs them too
+                    if (learned && enemy.seenInARow >= 2 && expected != OpponentModel.NONE && enemy.behaviour != Behaviour.RANDOM) {
+                        assertEquals(enemy.behaviour + " in phase " + phase, enemy.tile, expected);
+                        checked++;
+                    }
+                }
+            }
+            for (Behaviour behaviour : Behaviour.values()) {
+                while (enemies.values().stream().filter(enemy -> enemy.behaviour == behaviour).count() < PER_OWNER) {
+                    Enemy enemy = new Enemy(owners.get(behaviour), behaviour, startTile(behaviour));
+                    enemies.put(enemy.id, enemy);
+                }
+            }
+
+            Set<Player> players = new HashSet<>();
+            players.add(new RecordedGameState.RecordedPlayer(botId, botId, positions.position(ownTile)));
+            Set<Integer> occupied = new HashSet<>();
+            occupied.add(ownTile);
+            for (Enemy enemy : enemies.values()) {
+                if (occupied.add(enemy.tile)) {
+                    players.add(player(enemy));
+                    enemy.seenInARow++;
+                } else {
+                    enemy.seenInARow = 0;
+                }
+            }
+            RecordedGameState gameState = new RecordedGameState(phase, map, Collections.<Position>emptySet(), players,
+                    removed, Collections.<SpawnPoint>emptySet(), Collections.<SpawnPoint>emptySet(),
+                    Collections.<Collectable>emptySet());
+            settled.clear();
+            owners.forEach((behaviour, owner) -> {
+                if (learned(model, owner, behaviour)) {
+                    settled.add(owner);
+                }
+            });
+            world.update(gameState);
+            model.update(gameState, world);
+            // removed enemies give their slots back, so only the ones alive are tracked
+            assertTrue(model.size() <= enemies.size());
+        }
+
+        assertEquals(OpponentModel.Pattern.RANDOM, model.getPattern(owners.get(Behaviour.RANDOM)));
+        assertEquals(OpponentModel.Pattern.MOMENTUM, model.getPattern(owners.get(Behaviour.MOMENTUM)));
+        assertEquals(OpponentModel.Pattern.AGGRESSIVE, model.getPattern(owners.get(Behaviour.AGGRESSIVE)));
+        assertEquals(OpponentModel.Pattern.EVASIVE, model.getPattern(owners.get(Behaviour.EVASIVE)));
+        assertEquals(OpponentModel.Pattern.UNKNOWN, model.getPattern(UUID.randomUUID()));
+        assertTrue("only " + checked + " predictions checked", checked > PHASES);
+    }
+
+    private static boolean learned(final OpponentModel model, final UUID owner, final Behaviour behaviour) {
+        return model.getPattern(owner).name().equals(behaviour.name());
+    }
+
+    private int startTile(final Behaviour behaviour) {
+        if (behaviour == Behaviour.MOMENTUM) {
+            // above or below our player, heading sideways so it neither closes nor backs away for a while
+            int dy = (8 + random.nextInt(12)) * (random.nextBoolean() ? 1 : -1);
+            int dx = random.nextInt(5) - 2;
+            return positions.index(SIZE / 2 + dx, SIZE / 2 + dy);
+        }
+        while (true) {
+            int tile = random.nextInt(positions.size());
+            int distance = distance(tile, ownTile);
+            boolean roomy = behaviour == Behaviour.AGGRESSIVE ? distance >= 12 : distance <= 12;
+            if (roomy && distance > 2) {
+                return tile;
+            }
+        }
+    }
+
+    private int step(final Enemy enemy) {
+        switch (enemy.behaviour) {
+            case MOMENTUM:
+                return positions.neighbour(enemy.tile, enemy.heading);
+            case AGGRESSIVE:
+            case EVASIVE:
+                // the same choice the model predicts with: the first direction that does best
+                int best = enemy.tile;
+                int bestDistance = distance(enemy.tile, ownTile);
+                for (Direction direction : Direction.values()) {
+                    int next = positions.neighbour(enemy.tile, direction);
+                    int distance = distance(next, ownTile);
+                    if (enemy.behaviour == Behaviour.AGGRESSIVE ? distance < bestDistance : distance > bestDistance) {
+                        best = next;
+                        bestDistance = distance;
+                    }
+                }
+                return best;
+            default:
+                return positions.neighbour(enemy.tile, Direction.values()[random.nextInt(8)]);
+        }
+    }
+
+    private Player player(final Enemy enemy) {
+        return new RecordedGameState.RecordedPlayer(enemy.id, enemy.owner, positions.position(enemy.tile));
+    }
+
+    private int distance(final int from, final int to) {
+        int dx = Math.abs(from % SIZE - to % SIZE);
+        int dy = Math.abs(from / SIZE - to / SIZE);
+        return Math.max(Math.min(dx, SIZE - dx), Math.min(dy, SIZE - dy));
+    }
+
+    private final class Enemy {
+        private final UUID id = UUID.randomUUID();
+        private final UUID owner;
+        private final Behaviour behaviour;
+        private final Direction heading = random.nextBoolean() ? Direction.EAST : Direction.WEST;
+        private final int startDistance;
+        private int tile;
+        private int seenInARow;
+
+        Enemy(final UUID owner, final Behaviour behaviour, final int tile) {
+            this.owner = owner;
+            this.behaviour = behaviour;
+            this.tile = tile;
+            this.startDistance = distance(tile, ownTile);
+        }
+    }
+}
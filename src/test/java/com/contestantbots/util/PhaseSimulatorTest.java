@@ -0,0 +1,96 @@
+package com.contestantbots.util;
+
+import com.scottlogic.hackathon.game.Bot;
+import com.scottlogic.hackathon.game.Direction;
+import com.scottlogic.hackathon.game.GameState;
+import com.scottlogic.hackathon.game.Move;
+import com.scottlogic.hackathon.game.Player;
+import com.scottlogic.hackathon.game.engine.GameEngine;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PhaseSimulatorTest {
+    private static final int PHASES = 120;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void quietPhasesArePredictedExactly() throws Exception {
+        PhaseSimulatorValidator validator = new PhaseSimulatorValidator();
+        for (String map : new String[]{"VeryEasy", "Medium"}) {
+            Path file = folder.newFile(map + ".replay").toPath();
+            RandomBot bot = new RandomBot(file);
+            Set<Bot> bots = new LinkedHashSet<>(Arrays.asList(bot, newDefaultBot("Milestone1")));
+            GameEngine engine = GameEngine.createDebug(map, bots);
+            try {
+                engine.play((phaseResult, cutoffCondition) -> phaseResult.getPhase() < PHASES);
+            } finally {
+                engine.dispose();
+                bot.recorder.close();
+            }
+            try (ReplayReader replay = new ReplayReader(file)) {
+                validator.validate(replay);
+            }
+        }
+
+        PhaseSimulatorValidator.Counts quiet = validator.getQuiet();
+        assertTrue("only " + quiet.getPhases() + " quiet phases", quiet.getPhases() > PHASES / 2);
+        assertEquals(quiet.getPlayers(), quiet.getExactPlayers());
+        assertEquals(quiet.getPhases(), quiet.getExactPhases());
+    }
+
+    private static Bot newDefaultBot(final String name) throws ReflectiveOperationException {
+        return (Bot) Class.forName("com.scottlogic.hackathon.bots." + name + "Bot").getConstructor().newInstance();
+    }
+
+    /**
+     * Moves every player in a random direction, out of bounds and into each other included, and records each phase.
+     */
+    private static final class RandomBot extends Bot {
+        private final Path file;
+        private final Random random = new Random(29);
+        private ReplayRecorder recorder;
+
+        RandomBot(final Path file) {
+            super("Random Bot");
+            this.file = file;
+        }
+
+        @Override
+        public void initialise(final GameState initialGameState) {
+            try {
+                recorder = new ReplayRecorder(file, initialGameState.getMap(), getId());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public List<Move> makeMoves(final GameState gameState) {
+            List<Move> moves = new ArrayList<>();
+            for (Player player : gameState.getPlayers()) {
+                if (player.getOwner().equals(getId())) {
+                    Direction direction = Direction.values()[random.nextInt(8)];
+                    moves.add(new RecordedGameState.RecordedMove(player.getId(), direction));
+                }
+            }
+            recorder.record(gameState, moves);
+            return moves;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.contestantbots.util;
+
+import com.scottlogic.hackathon.game.Collectable;
+import com.scottlogic.hackathon.game.Direction;
+import com.scottlogic.hackathon.game.GameMap;
+import com.scottlogic.hackathon.game.GameState;
+import com.scottlogic.hackathon.game.Move;
+import com.scottlogic.hackathon.game.Player;
+import com.scottlogic.hackathon.game.Position;
+import com.scottlogic.hackathon.game.SpawnPoint;
+import com.scottlogic.hackathon.game.engine.models.GameMapImpl;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ReplayRecorderTest {
+    private static final int WIDTH = 50;
+    private static final int HEIGHT = 40;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void phasesReadBackAsRecorded() throws Exception {
+        List<GameState> states = new ArrayList<>();
+        List<List<Move>> moves = new ArrayList<>();
+        Path file = record(60, 20, states, moves);
+        assertReadsBack(file, states, moves);
+    }
+
+    @Test
+    public void phasesReadBackAcrossChunksAndTheFileIsTruncated() throws Exception {
+        List<GameState> states = new ArrayList<>();
+        List<List<Move>> moves = new ArrayList<>();
+        // about 24 KB of players a phase, so the recording outgrows the first 4 MB chunk
+        Path file = record(200, 2000, states, moves);
+        assertReadsBack(file, states, moves);
+    }
+
+    private Path record(final int phases, final int playerCount, final List<GameState> states,
+                        final List<List<Move>> moves) throws Exception {
+        GameMap map = new GameMapImpl(WIDTH, HEIGHT);
+        Random random = new Random(phases);
+        UUID botId = UUID.randomUUID();
+        UUID enemyId = UUID.randomUUID();
+        List<UUID> playerIds = new ArrayList<>();
+        for (int i = 0; i < playerCount; i++) {
+            playerIds.add(UUID.randomUUID());
+        }
+        Set<SpawnPoint> spawnPoints = new HashSet<>();
+        spawnPoints.add(new RecordedGameState.RecordedSpawnPoint(UUID.randomUUID(), botId, randomPosition(random)));
+        spawnPoints.add(new RecordedGameState.RecordedSpawnPoint(UUID.randomUUID(), enemyId, randomPosition(random)));
+        Set<Position> outOfBounds = new HashSet<>();
+
+        Path file = folder.newFile("game.replay").toPath();
+        try (ReplayRecorder recorder = new ReplayRecorder(file, map, botId)) {
+            for (int phase = 0; phase < phases; phase++) {
+                for (int i = 0; i < 5; i++) {
+                    Position position = randomPosition(random);
+                    if (!outOfBounds.remove(position)) {
+                        outOfBounds.add(position);
+                    }
+                }
+                Set<Player> players = new HashSet<>();
+                Set<Player> removedPlayers = new HashSet<>();
+                List<Move> phaseMoves = new ArrayList<>();
+                for (UUID id : playerIds) {
+                    UUID owner = id.hashCode() % 2 == 0 ? botId : enemyId;
+                    Player player = new RecordedGameState.RecordedPlayer(id, owner, randomPosition(random));
+                    (random.nextInt(20) == 0 ? removedPlayers : players).add(player);
+                    if (owner.equals(botId)) {
+                        phaseMoves.add(new RecordedGameState.RecordedMove(id,
+                                Direction.values()[random.nextInt(Direction.values().length)]));
+                    }
+                }
+                Set<Collectable> collectables = new HashSet<>();
+                for (int i = random.nextInt(10); i > 0; i--) {
+                    collectables.add(new RecordedGameState.RecordedCollectable(UUID.randomUUID(),
+                            Collectable.Type.values()[random.nextInt(Collectable.Type.values().length)],
+                            randomPosition(random)));
+                }
+                Set<SpawnPoint> removedSpawnPoints = new HashSet<>();
+                if (phase == phases - 1) {
+                    SpawnPoint removed = spawnPoints.iterator().next();
+                    spawnPoints.remove(removed);
+                    removedSpawnPoints.add(removed);
+                }
+
+                GameState state = new RecordedGameState(phase, map, new HashSet<>(outOfBounds), players,
+                        removedPlayers, new HashSet<>(spawnPoints), removedSpawnPoints, collectables);
+                recorder.record(state, phaseMoves);
+                states.add(state);
+                moves.add(phaseMoves);
+            }
+        }
+        return file;
+    }
+
+    private static void assertReadsBack(final Path file, final List<GameState> states, final List<List<Move>> moves)
+            throws Exception {
+        try (ReplayReader reader = new ReplayReader(file)) {
+            assertEquals(WIDTH, reader.getMap().getWidth());
+            assertEquals(HEIGHT, reader.getMap().getHeight());
+            assertEquals(states.size(), reader.getPhaseCount());
+            // read forwards, then jump back to check the out-of-bounds deltas are replayed from the start
+            for (int index : new int[]{0, 1, states.size() - 1, 2, states.size() / 2}) {
+                String where = "phase " + index;
+                GameState expected = states.get(index);
+                ReplayReader.RecordedPhase phase = reader.getPhase(index);
+                GameState actual = phase.getGameState();
+                assertEquals(where, expected.getPhase(), actual.getPhase());
+                assertEquals(where, expected.getOutOfBoundsPositions(), actual.getOutOfBoundsPositions());
+                assertEquals(where, expected.getPlayers(), actual.getPlayers());
+                assertEquals(where, expected.getRemovedPlayers(), actual.getRemovedPlayers());
+                assertEquals(where, expected.getSpawnPoints(), actual.getSpawnPoints());
+                assertEquals(where, expected.getRemovedSpawnPoints(), actual.getRemovedSpawnPoints());
+                assertEquals(where, expected.getCollectables(), actual.getCollectables());
+                assertEquals(where, moves.get(index), phase.getMoves());
+            }
+        }
+        // close() trims the unused tail of the last chunk
+        long size = Files.size(file);
+        assertTrue("file is " + size + " bytes", size % (4 << 20) != 0);
+    }
+
+    private static Position randomPosition(final Random random) {
+        return new Position(random.nextInt(WIDTH), random.nextInt(HEIGHT));
+    }
+}
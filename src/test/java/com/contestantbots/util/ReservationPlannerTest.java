@@ -0,0 +1,205 @@
+package com.contestantbots.util;
+
+import com.scottlogic.hackathon.game.Direction;
+import com.scottlogic.hackathon.game.engine.maps.Arena;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.Random;
+import java.util.function.IntBinaryOperator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ReservationPlannerTest {
+    private static final int ROUNDS = 200;
+
+    @Test
+    public void denseTeamsNeverCollideSwapOrLeaveTheMap() throws Exception {
+        Arena arena = Arena.load("Hard");
+        PositionTable positions = PositionTable.forMap(arena);
+        PositionSet outOfBounds = new PositionSet(arena);
+        outOfBounds.addAll(arena.getOutOfBoundsPositions());
+        ReservationPlanner planner = new ReservationPlanner(arena);
+        Random random = new Random(11);
+
+        for (int round = 0; round < ROUNDS; round++) {
+            int count = 2 + random.nextInt(60);
+            int[] start = cluster(positions, outOfBounds, randomInBounds(positions, outOfBounds, random), count);
+            int[] urgency = new int[count];
+            int[] goal = new int[count];
+            boolean[] stuck = new boolean[count];
+            for (int slot = 0; slot < count; slot++) {
+                urgency[slot] = random.nextInt(4);
+                // most slots head for a teammate's tile, so they have to push it out of the way
+                goal[slot] = random.nextInt(3) > 0 ? start[random.nextInt(count)] : random.nextInt(positions.size());
+                stuck[slot] = random.nextInt(8) == 0;
+            }
+            long salt = random.nextLong();
+            IntBinaryOperator cost = (slot, tile) -> {
+                if (outOfBounds.contains(tile) || stuck[slot]
+                        || (mix(salt, slot, tile) & 7) == 0) {
+                    return ReservationPlanner.BLOCKED;
+                }
+                return distance(positions, tile, goal[slot]);
+            };
+
+            int[] firstMoves = planner.plan(count, start, urgency, cost);
+            assertInvariants("round " + round, planner, positions, count, start, firstMoves, cost);
+            for (int slot = 0; slot < count; slot++) {
+                if (stuck[slot]) {
+                    assertEquals("round " + round + " slot " + slot, ReservationPlanner.STAY, firstMoves[slot]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void aPlayerDoesNotPushATeammateThatCannotMove() throws Exception {
+        Arena arena = Arena.load("Hard");
+        PositionTable positions = PositionTable.forMap(arena);
+        PositionSet outOfBounds = new PositionSet(arena);
+        outOfBounds.addAll(arena.getOutOfBoundsPositions());
+        int[] start = cluster(positions, outOfBounds, randomInBounds(positions, outOfBounds, new Random(3)), 2);
+        int[] urgency = {1, 0};
+        // slot 0 wants slot 1's tile, and slot 1 may not step anywhere
+        IntBinaryOperator cost = (slot, tile) -> {
+            if (outOfBounds.contains(tile) || slot == 1) {
+                return ReservationPlanner.BLOCKED;
+            }
+            return tile == start[1] ? 0 : 1 + distance(positions, tile, start[1]);
+        };
+
+        ReservationPlanner planner = new ReservationPlanner(arena);
+        int[] firstMoves = planner.plan(2, start, urgency, cost);
+        assertInvariants("blocked push", planner, positions, 2, start, firstMoves, cost);
+        assertEquals(ReservationPlanner.STAY, firstMoves[1]);
+        if (firstMoves[0] != ReservationPlanner.STAY) {
+            assertNotEquals(start[1], positions.neighbour(start[0], Direction.values()[firstMoves[0]]));
+        }
+    }
+
+    /**
+     * Reads every slot's tile at every phase of the horizon back out of the reservations and checks that each phase
+     * has every slot on its own tile, reached by one allowed step or none, with no two slots stepping through each
+     * other.
+     */
+    private static void assertInvariants(final String where, final ReservationPlanner planner,
+                                         final PositionTable positions, final int count, final int[] start,
+                                         final int[] firstMoves, final IntBinaryOperator cost) {
+        ReservationTable reservations = planner.getReservations();
+        int horizon = planner.getHorizon();
+        int[][] tiles = new int[horizon + 1][count];
+        for (int time = 0; time <= horizon; time++) {
+            Arrays.fill(tiles[time], -1);
+            for (int tile = 0; tile < positions.size(); tile++) {
+                int slot = reservations.occupant(tile, time);
+                if (slot != ReservationTable.FREE) {
+                    assertEquals(where + " time " + time + " slot " + slot + " holds two tiles", -1,
+                            tiles[time][slot]);
+                    tiles[time][slot] = tile;
+                }
+            }
+            for (int slot = 0; slot < count; slot++) {
+                // a slot without a tile had its reservation taken over by a teammate on the same tile
+                assertNotEquals(where + " time " + time + " slot " + slot + " shares a tile", -1, tiles[time][slot]);
+            }
+        }
+        assertArrayEquals(where, start, tiles[0], count);
+
+        for (int time = 0; time < horizon; time++) {
+            for (int slot = 0; slot < count; slot++) {
+                int from = tiles[time][slot];
+                int to = tiles[time + 1][slot];
+                String what = where + " time " + time + " slot " + slot;
+                if (from == to) {
+                    continue;
+                }
+                assertTrue(what + " jumped", isNeighbour(positions, from, to));
+                assertNotEquals(what + " stepped onto a blocked tile", ReservationPlanner.BLOCKED,
+                        cost.applyAsInt(slot, to));
+                for (int other = 0; other < count; other++) {
+                    assertFalse(what + " swapped with " + other,
+                            other != slot && tiles[time][other] == to && tiles[time + 1][other] == from);
+                }
+            }
+        }
+        for (int slot = 0; slot < count; slot++) {
+            int expected = tiles[1][slot] == start[slot] ? ReservationPlanner.STAY
+                    : direction(positions, start[slot], tiles[1][slot]);
+            assertEquals(where + " first move of slot " + slot, expected, firstMoves[slot]);
+        }
+    }
+
+    private static void assertArrayEquals(final String where, final int[] expected, final int[] actual,
+                                          final int count) {
+        for (int i = 0; i < count; i++) {
+            assertEquals(where + " index " + i, expected[i], actual[i]);
+        }
+    }
+
+    /**
+     * @return {@code count} distinct in-bounds tiles packed around the centre, in breadth-first order
+     */
+    private static int[] cluster(final PositionTable positions, final PositionSet outOfBounds, final int centre,
+                                 final int count) {
+        int[] tiles = new int[count];
+        boolean[] seen = new boolean[positions.size()];
+        Queue<Integer> queue = new ArrayDeque<>();
+        queue.add(centre);
+        seen[centre] = true;
+        int found = 0;
+        while (found < count) {
+            int tile = queue.remove();
+            tiles[found++] = tile;
+            for (Direction direction : Direction.values()) {
+                int neighbour = positions.neighbour(tile, direction);
+                if (!seen[neighbour] && !outOfBounds.contains(neighbour)) {
+                    seen[neighbour] = true;
+                    queue.add(neighbour);
+                }
+            }
+        }
+        return tiles;
+    }
+
+    private static int randomInBounds(final PositionTable positions, final PositionSet outOfBounds,
+                                      final Random random) {
+        int tile;
+        do {
+            tile = random.nextInt(positions.size());
+        } while (outOfBounds.contains(tile));
+        return tile;
+    }
+
+    private static boolean isNeighbour(final PositionTable positions, final int from, final int to) {
+        return direction(positions, from, to) != ReservationPlanner.STAY;
+    }
+
+    private static int direction(final PositionTable positions, final int from, final int to) {
+        for (Direction direction : Direction.values()) {
+            if (positions.neighbour(from, direction) == to) {
+                return direction.ordinal();
+            }
+        }
+        return ReservationPlanner.STAY;
+    }
+
+    private static int distance(final PositionTable positions, final int from, final int to) {
+        int width = positions.getWidth();
+        int height = positions.getHeight();
+        int dx = Math.abs(from % width - to % width);
+        int dy = Math.abs(from / width - to / width);
+        return Math.max(Math.min(dx, width - dx), Math.min(dy, height - dy));
+    }
+
+    private static long mix(final long salt, final int slot, final int tile) {
+        long h = salt ^ ((long) slot << 32 | tile);
+        h *= 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+}
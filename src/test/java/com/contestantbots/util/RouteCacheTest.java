@@ -0,0 +1,139 @@
+package com.contestantbots.util;
+
+import com.scottlogic.hackathon.game.Direction;
+import com.scottlogic.hackathon.game.Position;
+import com.scottlogic.hackathon.game.Route;
+import com.scottlogic.hackathon.game.engine.maps.Arena;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RouteCacheTest {
+    private Arena arena;
+    private PositionTable positions;
+    private RouteCache cache;
+    private Position from;
+    private Position to;
+
+    @Before
+    public void setUp() throws Exception {
+        arena = Arena.load("Medium");
+        positions = PositionTable.forMap(arena);
+        cache = new RouteCache(arena, new GridPathfinder(arena), 2);
+        cache.addOutOfBounds(arena.getOutOfBoundsPositions());
+        from = inBoundsNear(0, 0);
+        to = inBoundsNear(arena.getWidth() / 2, arena.getHeight() / 2);
+    }
+
+    @Test
+    public void theRestOfACachedRouteIsReusedWithoutASearch() {
+        List<Direction> whole = directions(cache.route(from, to).get());
+        assertEquals(1, cache.getMisses());
+
+        Position position = from;
+        for (int step = 0; step < whole.size(); step++) {
+            List<Direction> rest = directions(cache.route(position, to).get());
+            assertEquals("step " + step, whole.subList(step, whole.size()), rest);
+            position = positions.neighbour(position, whole.get(step));
+        }
+        assertEquals(1, cache.getHits());
+        assertEquals(whole.size() - 1, cache.getSuffixHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void aTileDropsOnlyTheRoutesThroughIt() {
+        List<Direction> first = directions(cache.route(from, to).get());
+        Position other = inBoundsNear(arena.getWidth() * 3 / 4, arena.getHeight() / 4);
+        Route second = cache.route(other, from).get();
+        Position middle = along(from, first, first.size() / 2);
+        assertFalse("the second route must miss the tile for this test", passesThrough(second, middle));
+
+        cache.invalidate(middle);
+        assertEquals(1, cache.getInvalidations());
+        assertEquals(1, cache.size());
+        cache.route(other, from);
+        assertEquals(1, cache.getHits());
+        cache.route(from, to);
+        assertEquals(3, cache.getMisses());
+    }
+
+    @Test
+    public void newObstaclesDropTheRoutesThroughThem() {
+        List<Direction> first = directions(cache.route(from, to).get());
+        Position blocked = along(from, first, first.size() / 2);
+
+        assertTrue(cache.addOutOfBounds(Collections.singleton(blocked)));
+        assertEquals(1, cache.getInvalidations());
+        Route rerouted = cache.route(from, to).get();
+        assertFalse(passesThrough(rerouted, blocked));
+        assertEquals(2, cache.getMisses());
+        // already known, so nothing is dropped
+        assertFalse(cache.addOutOfBounds(Collections.singleton(blocked)));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void theLeastRecentlyUsedRouteIsEvicted() {
+        Position third = inBoundsNear(arena.getWidth() * 3 / 4, arena.getHeight() / 4);
+        cache.route(from, to);
+        cache.route(to, from);
+        cache.route(from, to);
+        cache.route(third, to);
+        assertEquals(1, cache.getEvictions());
+        assertEquals(2, cache.size());
+
+        cache.route(from, to);
+        assertEquals(2, cache.getHits());
+        cache.route(to, from);
+        assertEquals(4, cache.getMisses());
+    }
+
+    /**
+     * @return the first tile in bounds at or after the given one, reading along the rows
+     */
+    private Position inBoundsNear(final int x, final int y) {
+        int near = positions.index(x, y);
+        for (int i = 0; i < positions.size(); i++) {
+            Position position = positions.position((near + i) % positions.size());
+            if (!arena.getOutOfBoundsPositions().contains(position)) {
+                return position;
+            }
+        }
+        throw new AssertionError("no tile in bounds");
+    }
+
+    private Position along(final Position start, final List<Direction> directions, final int steps) {
+        Position position = start;
+        for (int i = 0; i < steps; i++) {
+            position = positions.neighbour(position, directions.get(i));
+        }
+        return position;
+    }
+
+    private boolean passesThrough(final Route route, final Position position) {
+        Position at = route.getStart();
+        for (Iterator<Direction> steps = route.directionIterator(); steps.hasNext(); ) {
+            at = positions.neighbour(at, steps.next());
+            if (at.equals(position)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<Direction> directions(final Route route) {
+        List<Direction> directions = new ArrayList<>();
+        route.directionIterator().forEachRemaining(directions::add);
+        return directions;
+    }
+}
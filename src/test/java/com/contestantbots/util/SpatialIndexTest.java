@@ -0,0 +1,102 @@
+package com.contestantbots.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SpatialIndexTest {
+    // neither side is a multiple of the cell size, so the last row and column of cells are cut short
+    private static final int WIDTH = 37;
+    private static final int HEIGHT = 29;
+    private static final int IDS = 120;
+    private static final int ROUNDS = 300;
+
+    @Test
+    public void queriesMatchABruteForceSearch() {
+        SpatialIndex index = new SpatialIndex(WIDTH, HEIGHT, SpatialIndex.DEFAULT_CELL_SIZE);
+        int[] tiles = new int[IDS];
+        Arrays.fill(tiles, SpatialIndex.ABSENT);
+        Random random = new Random(5);
+        int[] queries = edgeTiles();
+
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int i = 0; i < 10; i++) {
+                int id = random.nextInt(IDS);
+                if (tiles[id] != SpatialIndex.ABSENT && random.nextInt(3) == 0) {
+                    index.remove(id);
+                    tiles[id] = SpatialIndex.ABSENT;
+                } else {
+                    int tile = random.nextInt(WIDTH * HEIGHT);
+                    if (tiles[id] != SpatialIndex.ABSENT && random.nextBoolean()) {
+                        index.move(id, tile);
+                    } else {
+                        index.put(id, tile);
+                    }
+                    tiles[id] = tile;
+                }
+            }
+
+            int query = random.nextBoolean() ? queries[random.nextInt(queries.length)]
+                    : random.nextInt(WIDTH * HEIGHT);
+            String where = "round " + round + " tile (" + query % WIDTH + ", " + query / WIDTH + ")";
+            int k = 1 + random.nextInt(12);
+            int[] ids = new int[k];
+            int found = index.nearest(query, k, ids);
+            List<Integer> expected = nearestByBruteForce(index, tiles, query, k);
+            assertEquals(where, expected.size(), found);
+            for (int i = 0; i < found; i++) {
+                assertEquals(where + " rank " + i, (int) expected.get(i), ids[i]);
+            }
+
+            int radius = random.nextInt(HEIGHT);
+            boolean[] seen = new boolean[IDS];
+            index.forEachWithin(query, radius, id -> {
+                assertTrue(where + " radius " + radius + " id " + id + " reported twice", !seen[id]);
+                seen[id] = true;
+            });
+            for (int id = 0; id < IDS; id++) {
+                boolean within = tiles[id] != SpatialIndex.ABSENT && index.distance(query, tiles[id]) <= radius;
+                assertEquals(where + " radius " + radius + " id " + id, within, seen[id]);
+            }
+        }
+    }
+
+    /**
+     * @return up to {@code k} ids ordered by distance from the tile, then by id
+     */
+    private static List<Integer> nearestByBruteForce(final SpatialIndex index, final int[] tiles, final int tile,
+                                                     final int k) {
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 0; id < tiles.length; id++) {
+            if (tiles[id] != SpatialIndex.ABSENT) {
+                ids.add(id);
+            }
+        }
+        ids.sort((a, b) -> {
+            int byDistance = Integer.compare(index.distance(tile, tiles[a]), index.distance(tile, tiles[b]));
+            return byDistance != 0 ? byDistance : Integer.compare(a, b);
+        });
+        return ids.subList(0, Math.min(k, ids.size()));
+    }
+
+    /**
+     * @return the tiles in the first and last two rows and columns, where searches wrap around the map
+     */
+    private static int[] edgeTiles() {
+        List<Integer> tiles = new ArrayList<>();
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                if (x < 2 || x >= WIDTH - 2 || y < 2 || y >= HEIGHT - 2) {
+                    tiles.add(y * WIDTH + x);
+                }
+            }
+        }
+        return tiles.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -0,0 +1,207 @@
+package com.contestantbots.util;
+
+import com.scottlogic.hackathon.game.Collectable;
+import com.scottlogic.hackathon.game.GameMap;
+import com.scottlogic.hackathon.game.GameState;
+import com.scottlogic.hackathon.game.Player;
+import com.scottlogic.hackathon.game.Position;
+import com.scottlogic.hackathon.game.SpawnPoint;
+import com.scottlogic.hackathon.game.engine.maps.Arena;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+
+public class TerritoryTest {
+    private static final int STEPS = 20;
+
+    @Test
+    public void incrementalUpdatesMatchAFreshBuild() throws Exception {
+        for (String name : BundledMaps.NAMES) {
+            Arena arena = Arena.load(name);
+            PositionTable positions = PositionTable.forMap(arena);
+            Random random = new Random(name.hashCode());
+            UUID botId = UUID.randomUUID();
+            UUID[] owners = {botId, UUID.randomUUID(), UUID.randomUUID()};
+            FakeGameState gameState = new FakeGameState(arena);
+            List<FakeSpawnPoint> spawnPoints = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                spawnPoints.add(new FakeSpawnPoint(owners[i % owners.length], freeTile(arena, positions, random,
+                        spawnPoints)));
+            }
+            WorldModel world = new WorldModel(arena, botId);
+            Territory territory = new Territory(arena);
+
+            for (int phase = 0; phase < STEPS; phase++) {
+                gameState.phase = phase;
+                gameState.removedSpawnPoints.clear();
+                gameState.players.clear();
+                if (phase > 0) {
+                    if (spawnPoints.size() > 2 && random.nextBoolean()) {
+                        FakeSpawnPoint removed = spawnPoints.remove(random.nextInt(spawnPoints.size()));
+                        if (removed.owner.equals(botId)) {
+                            gameState.removedSpawnPoints.add(removed);
+                        } else {
+                            // the world model only forgets an enemy spawn point once it sees that it is gone
+                            gameState.players.add(new FakePlayer(botId, removed.position));
+                        }
+                    } else {
+                        spawnPoints.add(new FakeSpawnPoint(owners[random.nextInt(owners.length)],
+                                freeTile(arena, positions, random, spawnPoints)));
+                    }
+                }
+                gameState.spawnPoints.clear();
+                gameState.spawnPoints.addAll(spawnPoints);
+
+                world.update(gameState);
+                territory.update(gameState, world);
+                Territory fresh = new Territory(arena);
+                fresh.update(gameState, world);
+
+                int[] sizes = new int[owners.length];
+                for (int tile = 0; tile < positions.size(); tile++) {
+                    String where = name + " phase " + phase + " tile " + positions.position(tile);
+                    assertEquals(where, fresh.owner(tile), territory.owner(tile));
+                    assertEquals(where, fresh.isBorder(tile), territory.isBorder(tile));
+                    for (int i = 0; i < owners.length; i++) {
+                        sizes[i] += Objects.equals(owners[i], territory.owner(tile)) ? 1 : 0;
+                    }
+                }
+                for (int i = 0; i < owners.length; i++) {
+                    String where = name + " phase " + phase + " owner " + i;
+                    assertEquals(where, sizes[i], territory.territorySize(owners[i]));
+                    assertEquals(where, fresh.territorySize(owners[i]), territory.territorySize(owners[i]));
+                    assertEquals(where, fresh.borderSize(owners[i]), territory.borderSize(owners[i]));
+                    assertEquals(where, territory.borderSize(owners[i]), territory.getBorder(owners[i]).size());
+                }
+            }
+        }
+    }
+
+    private static Position freeTile(final Arena arena, final PositionTable positions, final Random random,
+                                     final List<FakeSpawnPoint> spawnPoints) {
+        while (true) {
+            Position position = positions.position(random.nextInt(positions.size()));
+            if (!arena.getOutOfBoundsPositions().contains(position)
+                    && spawnPoints.stream().noneMatch(spawnPoint -> spawnPoint.position.equals(position))) {
+                return position;
+            }
+        }
+    }
+
+    private static final class FakeSpawnPoint implements SpawnPoint {
+        private final UUID id = UUID.randomUUID();
+        private final UUID owner;
+        private final Position position;
+
+        FakeSpawnPoint(final UUID owner, final Position position) {
+            this.owner = owner;
+            this.position = position;
+        }
+
+        @Override
+        public UUID getId() {
+            return id;
+        }
+
+        @Override
+        public UUID getOwner() {
+            return owner;
+        }
+
+        @Override
+        public Position getPosition() {
+            return position;
+        }
+
+        @Override
+        public void queuePlayer() {
+        }
+    }
+
+    private static final class FakePlayer implements Player {
+        private final UUID id = UUID.randomUUID();
+        private final UUID owner;
+        private final Position position;
+
+        FakePlayer(final UUID owner, final Position position) {
+            this.owner = owner;
+            this.position = position;
+        }
+
+        @Override
+        public UUID getId() {
+            return id;
+        }
+
+        @Override
+        public UUID getOwner() {
+            return owner;
+        }
+
+        @Override
+        public Position getPosition() {
+            return position;
+        }
+    }
+
+    private static final class FakeGameState implements GameState {
+        private final Arena arena;
+        private final Set<Player> players = new HashSet<>();
+        private final Set<SpawnPoint> spawnPoints = new HashSet<>();
+        private final Set<SpawnPoint> removedSpawnPoints = new HashSet<>();
+        private int phase;
+
+        FakeGameState(final Arena arena) {
+            this.arena = arena;
+        }
+
+        @Override
+        public int getPhase() {
+            return phase;
+        }
+
+        @Override
+        public GameMap getMap() {
+            return arena;
+        }
+
+        @Override
+        public Set<Position> getOutOfBoundsPositions() {
+            return arena.getOutOfBoundsPositions();
+        }
+
+        @Override
+        public Set<Player> getPlayers() {
+            return players;
+        }
+
+        @Override
+        public Set<Player> getRemovedPlayers() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public Set<SpawnPoint> getSpawnPoints() {
+            return spawnPoints;
+        }
+
+        @Override
+        public Set<SpawnPoint> getRemovedSpawnPoints() {
+            return removedSpawnPoints;
+        }
+
+        @Override
+        public Set<Collectable> getCollectables() {
+            return Collections.emptySet();
+        }
+    }
+}
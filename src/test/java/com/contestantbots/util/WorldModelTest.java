@@ -0,0 +1,162 @@
+package com.contestantbots.util;
+
+import com.scottlogic.hackathon.game.Collectable;
+import com.scottlogic.hackathon.game.Direction;
+import com.scottlogic.hackathon.game.GameMap;
+import com.scottlogic.hackathon.game.Player;
+import com.scottlogic.hackathon.game.Position;
+import com.scottlogic.hackathon.game.SpawnPoint;
+import com.scottlogic.hackathon.game.engine.models.GameMapImpl;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+
+public class WorldModelTest {
+    private static final int WIDTH = 40;
+    private static final int HEIGHT = 30;
+    private static final int PHASES = 150;
+
+    @Test
+    public void incrementalUpdatesMatchTheGameStates() {
+        GameMap map = new GameMapImpl(WIDTH, HEIGHT);
+        PositionTable positions = PositionTable.forMap(map);
+        Random random = new Random(13);
+        UUID botId = UUID.randomUUID();
+        UUID enemyId = UUID.randomUUID();
+        WorldModel world = new WorldModel(map, botId);
+        int viewDistance = FogOfWar.DEFAULT_VIEW_DISTANCE;
+        int memory = world.getEnemyMemoryPhases();
+
+        Map<UUID, Integer> ownTiles = new HashMap<>();
+        Map<UUID, Integer> enemyTiles = new HashMap<>();
+        // what the model should remember: each enemy's last seen tile and phase
+        Map<UUID, int[]> expectedEnemies = new HashMap<>();
+
+        for (int phase = 0; phase < PHASES; phase++) {
+            Set<Player> removed = new HashSet<>();
+            walk(ownTiles, botId, positions, random, removed);
+            walk(enemyTiles, enemyId, positions, random, removed);
+
+            Set<Player> players = new HashSet<>();
+            Set<Integer> occupied = new HashSet<>();
+            for (Map.Entry<UUID, Integer> own : ownTiles.entrySet()) {
+                if (occupied.add(own.getValue())) {
+                    players.add(new RecordedGameState.RecordedPlayer(own.getKey(), botId,
+                            positions.position(own.getValue())));
+                }
+            }
+            List<UUID> visibleEnemies = new ArrayList<>();
+            for (Map.Entry<UUID, Integer> enemy : enemyTiles.entrySet()) {
+                if (isInView(positions, ownTiles.values(), enemy.getValue(), viewDistance)
+                        && occupied.add(enemy.getValue())) {
+                    players.add(new RecordedGameState.RecordedPlayer(enemy.getKey(), enemyId,
+                            positions.position(enemy.getValue())));
+                    visibleEnemies.add(enemy.getKey());
+                }
+            }
+            Set<Collectable> collectables = new HashSet<>();
+            for (int i = 0; i < 5; i++) {
+                collectables.add(new RecordedGameState.RecordedCollectable(UUID.randomUUID(), Collectable.Type.PLAYER,
+                        positions.position(random.nextInt(positions.size()))));
+            }
+            world.update(new RecordedGameState(phase, map, Collections.<Position>emptySet(), players, removed,
+                    Collections.<SpawnPoint>emptySet(), Collections.<SpawnPoint>emptySet(), collectables));
+
+            for (Player player : removed) {
+                expectedEnemies.remove(player.getId());
+            }
+            for (UUID id : visibleEnemies) {
+                expectedEnemies.put(id, new int[]{enemyTiles.get(id), phase});
+            }
+            int current = phase;
+            expectedEnemies.values().removeIf(seen -> seen[1] != current && (current - seen[1] > memory
+                    || isInView(positions, ownTiles.values(), seen[0], viewDistance)));
+
+            String where = "phase " + phase;
+            Map<UUID, Integer> knownEnemies = new HashMap<>();
+            for (WorldModel.TrackedPlayer enemy : world.getKnownEnemies()) {
+                knownEnemies.put(enemy.getId(), enemy.getTile());
+            }
+            Map<UUID, Integer> expectedTiles = new HashMap<>();
+            expectedEnemies.forEach((id, seen) -> expectedTiles.put(id, seen[0]));
+            assertEquals(where, expectedTiles, knownEnemies);
+            assertEquals(where, players.size() - visibleEnemies.size(), world.getOwnPlayers().size());
+            assertEquals(where, visibleEnemies.size(), world.getVisibleEnemies().size());
+
+            for (int tile = 0; tile < positions.size(); tile++) {
+                String at = where + " tile " + positions.position(tile);
+                Player player = playerOn(players, positions, tile);
+                byte occupant = player == null ? WorldModel.EMPTY
+                        : player.getOwner().equals(botId) ? WorldModel.OWN : WorldModel.ENEMY;
+                assertEquals(at, occupant, world.occupant(tile));
+                assertEquals(at, player, world.playerAt(tile));
+                assertEquals(at, isInView(positions, ownTiles.values(), tile, viewDistance),
+                        world.getFogOfWar().isVisible(positions.position(tile)));
+                assertEquals(at, nearest(positions, ownTiles.values(), tile), world.distanceToOwnPlayer(tile));
+            }
+            for (int i = 0; i < 10; i++) {
+                int tile = random.nextInt(positions.size());
+                int radius = random.nextInt(10);
+                long within = expectedTiles.values().stream()
+                        .filter(enemy -> distance(positions, tile, enemy) <= radius)
+                        .count();
+                assertEquals(where, within, world.countEnemiesWithin(positions.position(tile), radius));
+            }
+        }
+    }
+
+    /**
+     * Moves every player a random step, removes a few and adds new ones so the side keeps about ten players.
+     */
+    private static void walk(final Map<UUID, Integer> tiles, final UUID owner, final PositionTable positions,
+                             final Random random, final Set<Player> removed) {
+        for (UUID id : new ArrayList<>(tiles.keySet())) {
+            if (random.nextInt(25) == 0) {
+                removed.add(new RecordedGameState.RecordedPlayer(id, owner, positions.position(tiles.remove(id))));
+            } else {
+                tiles.put(id, positions.neighbour(tiles.get(id), Direction.values()[random.nextInt(8)]));
+            }
+        }
+        while (tiles.size() < 10) {
+            tiles.put(UUID.randomUUID(), random.nextInt(positions.size()));
+        }
+    }
+
+    private static Player playerOn(final Set<Player> players, final PositionTable positions, final int tile) {
+        for (Player player : players) {
+            if (positions.index(player.getPosition()) == tile) {
+                return player;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isInView(final PositionTable positions, final Iterable<Integer> viewers, final int tile,
+                                    final int viewDistance) {
+        return nearest(positions, viewers, tile) <= viewDistance;
+    }
+
+    private static int nearest(final PositionTable positions, final Iterable<Integer> from, final int tile) {
+        int nearest = Integer.MAX_VALUE;
+        for (int each : from) {
+            nearest = Math.min(nearest, distance(positions, each, tile));
+        }
+        return nearest;
+    }
+
+    private static int distance(final PositionTable positions, final int from, final int to) {
+        int dx = Math.abs(from % positions.getWidth() - to % positions.getWidth());
+        int dy = Math.abs(from / positions.getWidth() - to / positions.getWidth());
+        return Math.max(Math.min(dx, positions.getWidth() - dx), Math.min(dy, positions.getHeight() - dy));
+    }
+}